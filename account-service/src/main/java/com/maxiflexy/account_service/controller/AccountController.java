@@ -1,10 +1,19 @@
 package com.maxiflexy.account_service.controller;
 
 import com.maxiflexy.account_service.dto.AccountDto;
+import com.maxiflexy.account_service.dto.AccountLookupDto;
+import com.maxiflexy.account_service.dto.BalanceAdjustmentDto;
+import com.maxiflexy.account_service.dto.BatchTransferBalanceDto;
+import com.maxiflexy.account_service.dto.BatchTransferResultDto;
+import com.maxiflexy.account_service.dto.CaptureHoldDto;
 import com.maxiflexy.account_service.dto.CreateAccountDto;
 import com.maxiflexy.account_service.dto.EncryptedAccountDto;
+import com.maxiflexy.account_service.dto.HoldDto;
+import com.maxiflexy.account_service.dto.PlaceHoldDto;
 import com.maxiflexy.account_service.dto.TransferBalanceDto;
+import com.maxiflexy.account_service.dto.TransferResultDto;
 import com.maxiflexy.account_service.service.AccountService;
+import com.maxiflexy.account_service.service.HoldService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
@@ -24,6 +33,9 @@ public class AccountController {
     @Autowired
     private AccountService accountService;
 
+    @Autowired
+    private HoldService holdService;
+
 //    @GetMapping
 //    @Operation(summary = "Get all accounts for a user", description = "Returns a list of accounts owned by the user")
 //    public ResponseEntity<List<AccountDto>> getAccounts(@RequestHeader("X-User-Id") Long userId) {
@@ -70,12 +82,30 @@ public class AccountController {
 //    }
 
     @PutMapping("/transfer")
-    @Operation(summary = "Transfer between accounts", description = "Updates balances for two accounts in a transfer")
-    public ResponseEntity<Void> transferBetweenAccounts(
+    @Operation(summary = "Transfer between accounts", description = "Updates balances for two accounts in a transfer and returns the resulting balances")
+    public ResponseEntity<TransferResultDto> transferBetweenAccounts(
             @RequestHeader("X-User-Id") Long userId,
             @Valid @RequestBody TransferBalanceDto transferDto) {
-        accountService.transferBetweenAccounts(userId, transferDto);
-        return ResponseEntity.ok().build();
+        TransferResultDto result = accountService.transferBetweenAccounts(userId, transferDto);
+        return ResponseEntity.ok(result);
+    }
+
+    @PutMapping("/transfer/batch")
+    @Operation(summary = "Batch transfer", description = "Debits the source once and credits many destinations, returning a result per line")
+    public ResponseEntity<BatchTransferResultDto> batchTransfer(
+            @RequestHeader("X-User-Id") Long userId,
+            @Valid @RequestBody BatchTransferBalanceDto batchDto) {
+        BatchTransferResultDto result = accountService.batchTransfer(userId, batchDto);
+        return ResponseEntity.ok(result);
+    }
+
+    @PutMapping("/transfer/{reference}/reverse")
+    @Operation(summary = "Reverse a transfer", description = "Posts a compensating entry for a referenced transfer and returns the resulting balances")
+    public ResponseEntity<TransferResultDto> reverseTransfer(
+            @RequestHeader("X-User-Id") Long userId,
+            @PathVariable String reference) {
+        TransferResultDto result = accountService.reverseTransfer(userId, reference);
+        return ResponseEntity.ok(result);
     }
 
     @GetMapping
@@ -106,6 +136,18 @@ public class AccountController {
         return ResponseEntity.ok(encryptedAccount);
     }
 
+    @PostMapping("/lookup")
+    @Operation(summary = "Look up several accounts", description = "Returns the caller's accounts among the given ids and the accounts with the given numbers, in one call")
+    public ResponseEntity<List<EncryptedAccountDto>> lookupAccounts(
+            @RequestHeader("X-User-Id") Long userId,
+            @Valid @RequestBody AccountLookupDto lookupDto) {
+        List<AccountDto> accounts = accountService.lookupAccounts(userId, lookupDto);
+        List<EncryptedAccountDto> encryptedAccounts = accounts.stream()
+                .map(EncryptedAccountDto::fromAccountDto)
+                .collect(Collectors.toList());
+        return ResponseEntity.ok(encryptedAccounts);
+    }
+
     @PostMapping
     @Operation(summary = "Create a new account", description = "Creates a new account for the user")
     public ResponseEntity<EncryptedAccountDto> createAccount(
@@ -127,4 +169,75 @@ public class AccountController {
         EncryptedAccountDto encryptedAccount = EncryptedAccountDto.fromAccountDto(updatedAccount);
         return ResponseEntity.ok(encryptedAccount);
     }
+
+    // Internal, admin-only: an operations switch with no api-gateway route, reached from inside the cluster
+    @PutMapping("/{accountId}/hot-mode")
+    @Operation(summary = "Set hot-account mode", description = "Spreads the balance of a heavily credited account over several rows, or folds it back into one")
+    public ResponseEntity<EncryptedAccountDto> setHotMode(
+            @RequestHeader("X-User-Id") Long userId,
+            @PathVariable Long accountId,
+            @RequestParam boolean enabled) {
+        AccountDto updatedAccount = accountService.setHotMode(userId, accountId, enabled);
+        EncryptedAccountDto encryptedAccount = EncryptedAccountDto.fromAccountDto(updatedAccount);
+        return ResponseEntity.ok(encryptedAccount);
+    }
+
+    @PutMapping("/{accountId}/credit")
+    @Operation(summary = "Credit account", description = "Atomically adds an amount to the balance and returns the updated account")
+    public ResponseEntity<EncryptedAccountDto> creditAccount(
+            @RequestHeader("X-User-Id") Long userId,
+            @PathVariable Long accountId,
+            @Valid @RequestBody BalanceAdjustmentDto adjustmentDto) {
+        AccountDto updatedAccount = accountService.creditAccount(userId, accountId, adjustmentDto.getAmount());
+        EncryptedAccountDto encryptedAccount = EncryptedAccountDto.fromAccountDto(updatedAccount);
+        return ResponseEntity.ok(encryptedAccount);
+    }
+
+    @PutMapping("/{accountId}/debit")
+    @Operation(summary = "Debit account", description = "Atomically subtracts an amount from the balance if funds are sufficient and returns the updated account")
+    public ResponseEntity<EncryptedAccountDto> debitAccount(
+            @RequestHeader("X-User-Id") Long userId,
+            @PathVariable Long accountId,
+            @Valid @RequestBody BalanceAdjustmentDto adjustmentDto) {
+        AccountDto updatedAccount = accountService.debitAccount(userId, accountId, adjustmentDto.getAmount());
+        EncryptedAccountDto encryptedAccount = EncryptedAccountDto.fromAccountDto(updatedAccount);
+        return ResponseEntity.ok(encryptedAccount);
+    }
+
+    // The hold endpoints are internal, like credit and debit: the services that take card or merchant payments
+    // call them inside the cluster, and the api-gateway deliberately has no route to them
+    @PostMapping("/{accountId}/holds")
+    @Operation(summary = "Place hold", description = "Reserves funds on an account until the hold is captured, released or expires")
+    public ResponseEntity<HoldDto> placeHold(
+            @RequestHeader("X-User-Id") Long userId,
+            @PathVariable Long accountId,
+            @Valid @RequestBody PlaceHoldDto holdDto) {
+        return ResponseEntity.ok(holdService.placeHold(userId, accountId, holdDto));
+    }
+
+    @GetMapping("/{accountId}/holds")
+    @Operation(summary = "Get active holds", description = "Retrieves the active holds on an account, soonest expiry first")
+    public ResponseEntity<List<HoldDto>> getActiveHolds(
+            @RequestHeader("X-User-Id") Long userId,
+            @PathVariable Long accountId) {
+        return ResponseEntity.ok(holdService.getActiveHolds(userId, accountId));
+    }
+
+    @PutMapping("/holds/{holdId}/capture")
+    @Operation(summary = "Capture hold", description = "Debits all or part of a held amount and releases the rest")
+    public ResponseEntity<HoldDto> captureHold(
+            @RequestHeader("X-User-Id") Long userId,
+            @PathVariable Long holdId,
+            @Valid @RequestBody(required = false) CaptureHoldDto captureDto) {
+        BigDecimal amount = captureDto != null ? captureDto.getAmount() : null;
+        return ResponseEntity.ok(holdService.captureHold(userId, holdId, amount));
+    }
+
+    @PutMapping("/holds/{holdId}/release")
+    @Operation(summary = "Release hold", description = "Gives the held funds back without debiting them")
+    public ResponseEntity<HoldDto> releaseHold(
+            @RequestHeader("X-User-Id") Long userId,
+            @PathVariable Long holdId) {
+        return ResponseEntity.ok(holdService.releaseHold(userId, holdId));
+    }
 }
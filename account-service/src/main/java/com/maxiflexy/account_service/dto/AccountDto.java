@@ -16,9 +16,14 @@ public class AccountDto {
     private Long userId;
     private String accountNumber;
     private BigDecimal balance;
+    private BigDecimal heldAmount;
+    // Balance minus active holds; what can actually be spent
+    private BigDecimal availableBalance;
     private AccountType accountType;
     private String fullName;
     private String email;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    // Set on responses to a balance mutation: the journal entry that produced this balance
+    private Long journalEntryId;
 }
\ No newline at end of file
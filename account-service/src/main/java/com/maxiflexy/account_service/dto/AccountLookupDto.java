@@ -0,0 +1,20 @@
+package com.maxiflexy.account_service.dto;
+
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountLookupDto {
+    // Only the caller's own accounts are returned for ids, as with GET /api/accounts/{accountId}
+    @Size(max = 1000, message = "At most 1000 account ids can be looked up at once")
+    private List<Long> accountIds;
+
+    @Size(max = 1000, message = "At most 1000 account numbers can be looked up at once")
+    private List<String> accountNumbers;
+}
@@ -0,0 +1,22 @@
+package com.maxiflexy.account_service.dto;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransferLineDto {
+    @NotBlank(message = "Destination account number is required")
+    private String toAccountNumber;
+
+    @NotNull
+    @DecimalMin(value = "0.01", message = "Transfer amount must be greater than zero")
+    private BigDecimal amount;
+}
@@ -0,0 +1,25 @@
+package com.maxiflexy.account_service.dto;
+
+import com.maxiflexy.account_service.enums.BatchLineStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransferLineResultDto {
+    private String toAccountNumber;
+    private BigDecimal amount;
+    private BatchLineStatus status;
+    private String error;
+
+    // Destination details, set for completed lines
+    private Long toAccountId;
+    private Long toUserId;
+    private String toFullName;
+    private String toEmail;
+    private BigDecimal toAccountBalance;
+}
@@ -0,0 +1,20 @@
+package com.maxiflexy.account_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransferResultDto {
+    // Null when no line could be applied
+    private Long journalEntryId;
+    private Long fromAccountId;
+    private BigDecimal fromAccountBalance;
+    private BigDecimal totalAmount;
+    private List<BatchTransferLineResultDto> lines;
+}
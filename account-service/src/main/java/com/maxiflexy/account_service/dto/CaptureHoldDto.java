@@ -0,0 +1,17 @@
+package com.maxiflexy.account_service.dto;
+
+import jakarta.validation.constraints.DecimalMin;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CaptureHoldDto {
+    // Defaults to the full held amount; any remainder is released
+    @DecimalMin(value = "0.01", message = "Capture amount must be greater than zero")
+    private BigDecimal amount;
+}
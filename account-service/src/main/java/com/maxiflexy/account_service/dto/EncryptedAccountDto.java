@@ -29,6 +29,12 @@ public class EncryptedAccountDto {
     @EncryptedAmount
     private BigDecimal balance;
 
+    @EncryptedAmount
+    private BigDecimal heldAmount;
+
+    @EncryptedAmount
+    private BigDecimal availableBalance;
+
     private AccountType accountType;
 
     @Encrypted
@@ -39,6 +45,7 @@ public class EncryptedAccountDto {
 
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    private Long journalEntryId;
 
     // Factory method to convert from regular AccountDto
     public static EncryptedAccountDto fromAccountDto(AccountDto accountDto) {
@@ -47,11 +54,14 @@ public class EncryptedAccountDto {
         encrypted.setUserId(accountDto.getUserId());
         encrypted.setAccountNumber(accountDto.getAccountNumber());
         encrypted.setBalance(accountDto.getBalance());
+        encrypted.setHeldAmount(accountDto.getHeldAmount());
+        encrypted.setAvailableBalance(accountDto.getAvailableBalance());
         encrypted.setAccountType(accountDto.getAccountType());
         encrypted.setFullName(accountDto.getFullName());
         encrypted.setEmail(accountDto.getEmail());
         encrypted.setCreatedAt(accountDto.getCreatedAt());
         encrypted.setUpdatedAt(accountDto.getUpdatedAt());
+        encrypted.setJournalEntryId(accountDto.getJournalEntryId());
         return encrypted;
     }
 }
\ No newline at end of file
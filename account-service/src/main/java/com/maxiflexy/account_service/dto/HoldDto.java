@@ -0,0 +1,30 @@
+package com.maxiflexy.account_service.dto;
+
+import com.maxiflexy.account_service.enums.HoldStatus;
+import com.maxiflexy.account_service.model.AccountHold;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HoldDto {
+    private Long id;
+    private Long accountId;
+    private BigDecimal amount;
+    private BigDecimal capturedAmount;
+    private HoldStatus status;
+    private String reference;
+    private LocalDateTime createdAt;
+    private LocalDateTime expiresAt;
+    private LocalDateTime resolvedAt;
+
+    public static HoldDto fromHold(AccountHold hold) {
+        return new HoldDto(hold.getId(), hold.getAccountId(), hold.getAmount(), hold.getCapturedAmount(),
+                hold.getStatus(), hold.getReference(), hold.getCreatedAt(), hold.getExpiresAt(), hold.getResolvedAt());
+    }
+}
@@ -0,0 +1,28 @@
+package com.maxiflexy.account_service.dto;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PlaceHoldDto {
+    @NotNull
+    @DecimalMin(value = "0.01", message = "Hold amount must be greater than zero")
+    private BigDecimal amount;
+
+    // Optional caller reference, e.g. a card authorization id; placing the same reference again returns the existing hold
+    @Size(max = 255)
+    private String reference;
+
+    // Defaults to app.holds.default-ttl-seconds
+    @Min(value = 1, message = "Hold lifetime must be at least one second")
+    private Long expiresInSeconds;
+}
@@ -0,0 +1,19 @@
+package com.maxiflexy.account_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransferResultDto {
+    private Long fromAccountId;
+    private BigDecimal fromAccountBalance;
+    private Long toAccountId;
+    private BigDecimal toAccountBalance;
+    // Journal entry in account-service that recorded the movement
+    private Long journalEntryId;
+}
@@ -0,0 +1,8 @@
+package com.maxiflexy.account_service.enums;
+
+public enum HoldStatus {
+    ACTIVE,
+    CAPTURED,
+    RELEASED,
+    EXPIRED
+}
@@ -0,0 +1,12 @@
+package com.maxiflexy.account_service.enums;
+
+public enum JournalEntryType {
+    DEPOSIT,
+    WITHDRAWAL,
+    TRANSFER,
+    BATCH_TRANSFER,
+    ADJUSTMENT,
+    OPENING_BALANCE,
+    REVERSAL,
+    HOLD_CAPTURE
+}
@@ -0,0 +1,8 @@
+package com.maxiflexy.account_service.enums;
+
+public enum LedgerAccount {
+    // A customer account; its postings make up accounts.balance
+    CUSTOMER,
+    // The bank's side of money entering or leaving through deposits and withdrawals
+    CASH_SETTLEMENT
+}
@@ -0,0 +1,9 @@
+package com.maxiflexy.account_service.enums;
+
+// How a group commit guards the balances it reads; see LedgerService.postGroup
+public enum LockingMode {
+    // Lock every touched row up front, lowest account id first
+    PESSIMISTIC,
+    // Read without locks and write only if each row's version is unchanged, retrying on conflict
+    OPTIMISTIC
+}
@@ -0,0 +1,6 @@
+package com.maxiflexy.account_service.enums;
+
+public enum PostingDirection {
+    DEBIT,
+    CREDIT
+}
@@ -0,0 +1,11 @@
+package com.maxiflexy.account_service.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.GATEWAY_TIMEOUT)
+public class BalanceOutcomeUnknownException extends RuntimeException {
+    public BalanceOutcomeUnknownException(String message) {
+        super(message);
+    }
+}
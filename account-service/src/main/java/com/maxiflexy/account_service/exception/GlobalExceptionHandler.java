@@ -26,6 +26,48 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(TransferReversedException.class)
+    public ResponseEntity<ApiResponse> handleTransferReversedException(TransferReversedException ex) {
+        ApiResponse response = new ApiResponse(false, ex.getMessage());
+        return new ResponseEntity<>(response, HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(ReferenceConflictException.class)
+    public ResponseEntity<ApiResponse> handleReferenceConflictException(ReferenceConflictException ex) {
+        ApiResponse response = new ApiResponse(false, ex.getMessage());
+        return new ResponseEntity<>(response, HttpStatus.UNPROCESSABLE_ENTITY);
+    }
+
+    @ExceptionHandler(DuplicateReferenceException.class)
+    public ResponseEntity<ApiResponse> handleDuplicateReferenceException(DuplicateReferenceException ex) {
+        ApiResponse response = new ApiResponse(false, ex.getMessage());
+        return new ResponseEntity<>(response, HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(HoldStateException.class)
+    public ResponseEntity<ApiResponse> handleHoldStateException(HoldStateException ex) {
+        ApiResponse response = new ApiResponse(false, ex.getMessage());
+        return new ResponseEntity<>(response, HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(LedgerBusyException.class)
+    public ResponseEntity<ApiResponse> handleLedgerBusyException(LedgerBusyException ex) {
+        ApiResponse response = new ApiResponse(false, ex.getMessage());
+        return new ResponseEntity<>(response, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @ExceptionHandler(BalanceOutcomeUnknownException.class)
+    public ResponseEntity<ApiResponse> handleBalanceOutcomeUnknownException(BalanceOutcomeUnknownException ex) {
+        ApiResponse response = new ApiResponse(false, ex.getMessage());
+        return new ResponseEntity<>(response, HttpStatus.GATEWAY_TIMEOUT);
+    }
+
+    @ExceptionHandler(UserDirectoryUnavailableException.class)
+    public ResponseEntity<ApiResponse> handleUserDirectoryUnavailableException(UserDirectoryUnavailableException ex) {
+        ApiResponse response = new ApiResponse(false, ex.getMessage());
+        return new ResponseEntity<>(response, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Map<String, String>> handleValidationExceptions(MethodArgumentNotValidException ex) {
         Map<String, String> errors = new HashMap<>();
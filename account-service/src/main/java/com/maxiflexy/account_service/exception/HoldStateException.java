@@ -0,0 +1,11 @@
+package com.maxiflexy.account_service.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class HoldStateException extends RuntimeException {
+    public HoldStateException(String message) {
+        super(message);
+    }
+}
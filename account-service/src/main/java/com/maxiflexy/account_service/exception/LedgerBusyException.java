@@ -0,0 +1,11 @@
+package com.maxiflexy.account_service.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class LedgerBusyException extends RuntimeException {
+    public LedgerBusyException(String message) {
+        super(message);
+    }
+}
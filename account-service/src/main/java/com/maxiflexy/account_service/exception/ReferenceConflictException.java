@@ -0,0 +1,11 @@
+package com.maxiflexy.account_service.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+public class ReferenceConflictException extends RuntimeException {
+    public ReferenceConflictException(String message) {
+        super(message);
+    }
+}
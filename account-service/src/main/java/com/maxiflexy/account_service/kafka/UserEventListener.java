@@ -0,0 +1,37 @@
+package com.maxiflexy.account_service.kafka;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.maxiflexy.account_service.repository.KnownUserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Component;
+
+// Keeps the known_users replica current from auth-service's user-created events
+@Slf4j
+@Component
+public class UserEventListener {
+
+    @Autowired
+    private KnownUserRepository knownUserRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @KafkaListener(topics = "user-events", groupId = "${spring.kafka.consumer.group-id}")
+    public void onUserEvent(@Payload String payload) {
+        try {
+            JsonNode userId = objectMapper.readTree(payload).get("userId");
+            if (userId == null || !userId.canConvertToLong()) {
+                log.warn("Skipping user event without a user id: {}", payload);
+                return;
+            }
+            knownUserRepository.record(userId.asLong());
+        } catch (Exception e) {
+            // A user missed here is still found through the fallback lookup
+            log.error("Error processing user event: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -29,15 +29,28 @@ public class Account {
     @Column(nullable = false)
     private BigDecimal balance = BigDecimal.ZERO;
 
+    // Sum of the account's active holds; the available balance is the balance minus this
+    @Column(nullable = false)
+    private BigDecimal heldAmount = BigDecimal.ZERO;
+
     @Column(nullable = false)
     private AccountType accountType;
 
+    // Hot accounts spread their balance over account_balance_slots; see BalanceSlotService
+    @Column(nullable = false)
+    private Boolean hot = false;
+
     @Column(nullable = false)
     private String fullName;
 
     @Column(nullable = false)
     private String email;
 
+    // Bumped by every write to the row, including the ledger's native balance updates
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     @Column(nullable = false)
     private LocalDateTime createdAt;
 
@@ -48,11 +61,6 @@ public class Account {
     protected void onCreate() {
         createdAt = LocalDateTime.now();
         updatedAt = LocalDateTime.now();
-
-        // Generate a random account number if not set
-        if (accountNumber == null || accountNumber.isEmpty()) {
-            accountNumber = "ACC" + System.currentTimeMillis();
-        }
     }
 
     @PreUpdate
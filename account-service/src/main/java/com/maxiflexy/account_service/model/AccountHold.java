@@ -0,0 +1,54 @@
+package com.maxiflexy.account_service.model;
+
+import com.maxiflexy.account_service.enums.HoldStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "account_holds")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountHold {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long accountId;
+
+    @Column(nullable = false)
+    private BigDecimal amount;
+
+    // Set on capture; may be less than amount, the rest is released
+    private BigDecimal capturedAmount;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private HoldStatus status;
+
+    private String reference;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    private LocalDateTime resolvedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+
+        if (status == null) {
+            status = HoldStatus.ACTIVE;
+        }
+    }
+}
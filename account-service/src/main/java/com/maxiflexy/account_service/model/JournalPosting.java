@@ -0,0 +1,69 @@
+package com.maxiflexy.account_service.model;
+
+import com.maxiflexy.account_service.enums.LedgerAccount;
+import com.maxiflexy.account_service.enums.PostingDirection;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Postings are appended in JDBC batches by LedgerService and never updated; the entity is for reads
+@Entity
+@Table(name = "journal_postings")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JournalPosting {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long entryId;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private LedgerAccount ledgerAccount;
+
+    // Set for CUSTOMER postings only
+    private Long accountId;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private PostingDirection direction;
+
+    @Column(nullable = false)
+    private BigDecimal amount;
+
+    // Account balance once the whole entry was applied; CUSTOMER postings only
+    private BigDecimal balanceAfter;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    public static JournalPosting debit(LedgerAccount ledgerAccount, Long accountId, BigDecimal amount) {
+        return of(ledgerAccount, accountId, PostingDirection.DEBIT, amount);
+    }
+
+    public static JournalPosting credit(LedgerAccount ledgerAccount, Long accountId, BigDecimal amount) {
+        return of(ledgerAccount, accountId, PostingDirection.CREDIT, amount);
+    }
+
+    private static JournalPosting of(LedgerAccount ledgerAccount, Long accountId, PostingDirection direction, BigDecimal amount) {
+        JournalPosting posting = new JournalPosting();
+        posting.setLedgerAccount(ledgerAccount);
+        posting.setAccountId(accountId);
+        posting.setDirection(direction);
+        posting.setAmount(amount);
+        return posting;
+    }
+
+    // Signed effect on the customer balance: credits raise it, debits lower it
+    public BigDecimal signedAmount() {
+        return direction == PostingDirection.CREDIT ? amount : amount.negate();
+    }
+}
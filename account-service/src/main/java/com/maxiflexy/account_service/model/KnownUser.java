@@ -0,0 +1,23 @@
+package com.maxiflexy.account_service.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// A user id known to exist in auth-service; see UserValidationService
+@Entity
+@Table(name = "known_users")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class KnownUser {
+
+    @Id
+    private Long userId;
+
+    @Column(nullable = false)
+    private LocalDateTime recordedAt;
+}
@@ -0,0 +1,31 @@
+package com.maxiflexy.account_service.repository;
+
+import com.maxiflexy.account_service.enums.HoldStatus;
+import com.maxiflexy.account_service.model.AccountHold;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface AccountHoldRepository extends JpaRepository<AccountHold, Long> {
+
+    Optional<AccountHold> findByReference(String reference);
+
+    List<AccountHold> findByAccountIdAndStatusOrderByExpiresAt(Long accountId, HoldStatus status);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT h FROM AccountHold h WHERE h.id = :id")
+    Optional<AccountHold> lockById(@Param("id") Long id);
+
+    @Query("SELECT h.id FROM AccountHold h WHERE h.status = com.maxiflexy.account_service.enums.HoldStatus.ACTIVE " +
+            "AND h.expiresAt <= :now ORDER BY h.expiresAt")
+    List<Long> findExpiredActiveIds(@Param("now") LocalDateTime now, Limit limit);
+}
@@ -2,8 +2,13 @@ package com.maxiflexy.account_service.repository;
 
 import com.maxiflexy.account_service.model.Account;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -11,8 +16,31 @@ import java.util.Optional;
 public interface AccountRepository extends JpaRepository<Account, Long> {
 
     List<Account> findByUserId(Long userId);
+
+    @Query("SELECT a.id FROM Account a WHERE a.userId = :userId ORDER BY a.id")
+    List<Long> findIdsByUserId(@Param("userId") Long userId);
     Optional<Account> findByAccountNumber(String accountNumber);
+    List<Account> findByAccountNumberIn(Collection<String> accountNumbers);
     Optional<Account> findByUserIdAndId(Long userId, Long id);
     boolean existsByAccountNumber(String accountNumber);
+    boolean existsByUserIdAndId(Long userId, Long id);
+
+    // Reserves funds for a hold. Matches nothing when the account is missing or its available balance is too low.
+    @Modifying
+    @Query(value = "UPDATE accounts SET held_amount = held_amount + :amount, version = version + 1, updated_at = now() " +
+            "WHERE id = :accountId AND balance - held_amount >= :amount", nativeQuery = true)
+    int reserveFunds(@Param("accountId") Long accountId, @Param("amount") BigDecimal amount);
+
+    @Modifying
+    @Query(value = "UPDATE accounts SET held_amount = held_amount - :amount, version = version + 1, updated_at = now() " +
+            "WHERE id = :accountId", nativeQuery = true)
+    int releaseFunds(@Param("accountId") Long accountId, @Param("amount") BigDecimal amount);
+
+    @Query("SELECT a.id FROM Account a WHERE a.hot = true")
+    List<Long> findHotAccountIds();
+
+    @Modifying
+    @Query("UPDATE Account a SET a.hot = :hot, a.version = a.version + 1 WHERE a.id = :accountId")
+    int setHot(@Param("accountId") Long accountId, @Param("hot") boolean hot);
 
-}
\ No newline at end of file
+}
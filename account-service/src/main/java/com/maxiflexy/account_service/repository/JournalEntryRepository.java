@@ -0,0 +1,20 @@
+package com.maxiflexy.account_service.repository;
+
+import com.maxiflexy.account_service.model.JournalEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface JournalEntryRepository extends JpaRepository<JournalEntry, Long> {
+
+    Optional<JournalEntry> findByReference(String reference);
+
+    @Query("SELECT e.reference FROM JournalEntry e WHERE e.reference IN :references")
+    List<String> findExistingReferences(@Param("references") Collection<String> references);
+}
@@ -0,0 +1,24 @@
+package com.maxiflexy.account_service.repository;
+
+import com.maxiflexy.account_service.model.JournalPosting;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface JournalPostingRepository extends JpaRepository<JournalPosting, Long> {
+
+    List<JournalPosting> findByEntryId(Long entryId);
+
+    // Accounts whose stored balance (including hot-account slots) differs from the sum of their CUSTOMER postings
+    @Query(value = "SELECT a.id FROM accounts a " +
+            "LEFT JOIN (SELECT account_id, SUM(CASE WHEN direction = 'CREDIT' THEN amount ELSE -amount END) AS net " +
+            "           FROM journal_postings WHERE ledger_account = 'CUSTOMER' GROUP BY account_id) p " +
+            "ON p.account_id = a.id " +
+            "LEFT JOIN (SELECT account_id, SUM(balance) AS total FROM account_balance_slots GROUP BY account_id) s " +
+            "ON s.account_id = a.id " +
+            "WHERE a.balance + COALESCE(s.total, 0) <> COALESCE(p.net, 0)", nativeQuery = true)
+    List<Long> findAccountsOutOfBalance();
+}
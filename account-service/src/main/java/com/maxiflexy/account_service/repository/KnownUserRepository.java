@@ -0,0 +1,20 @@
+package com.maxiflexy.account_service.repository;
+
+import com.maxiflexy.account_service.model.KnownUser;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface KnownUserRepository extends JpaRepository<KnownUser, Long> {
+
+    // Events can be redelivered and race the fallback lookup, so recording a user twice is a no-op
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO known_users (user_id, recorded_at) VALUES (:userId, now()) ON CONFLICT DO NOTHING",
+            nativeQuery = true)
+    int record(@Param("userId") Long userId);
+}
@@ -0,0 +1,127 @@
+package com.maxiflexy.account_service.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.maxiflexy.account_service.enums.AccountType;
+import com.maxiflexy.account_service.exception.ResourceNotFoundException;
+import com.maxiflexy.account_service.model.Account;
+import com.maxiflexy.account_service.repository.AccountRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Cache of the parts of an account that never change once it exists: owner, number, type and
+ * holder details, plus number-to-id resolution. Balances are deliberately not held here; readers
+ * combine a cached profile with a fresh balance read, so a balance can never be served stale, not
+ * even from another instance's cache.
+ * <p>
+ * Everything cached here is immutable, and unknown numbers are not cached, so no instance can serve a
+ * stale entry. A user's list of accounts does grow, and an eviction on one instance would not reach
+ * the others, so it is not cached: it comes from an index-only query on every call.
+ * <p>
+ * Entries are evicted when an {@link AccountChanged} event commits, bounded by size and expire after
+ * a TTL. Hit and miss counts are published as the cache.gets metrics of the caches below.
+ */
+@Component
+public class AccountCache {
+
+    private final AccountRepository accountRepository;
+    private final Cache<Long, AccountProfile> profiles;
+    private final Cache<String, Long> idsByNumber;
+
+    // Published by anything that creates an account or changes a cached part of one
+    public record AccountChanged(Long accountId, Long userId, String accountNumber) {
+    }
+
+    public record AccountProfile(Long id, Long userId, String accountNumber, AccountType accountType,
+                                 String fullName, String email, LocalDateTime createdAt) {
+        static AccountProfile of(Account account) {
+            return new AccountProfile(account.getId(), account.getUserId(), account.getAccountNumber(),
+                    account.getAccountType(), account.getFullName(), account.getEmail(), account.getCreatedAt());
+        }
+    }
+
+    @Autowired
+    public AccountCache(AccountRepository accountRepository,
+                        MeterRegistry meterRegistry,
+                        @Value("${app.account-cache.max-size:100000}") long maxSize,
+                        @Value("${app.account-cache.ttl-seconds:600}") long ttlSeconds) {
+        this.accountRepository = accountRepository;
+        this.profiles = build(maxSize, ttlSeconds);
+        this.idsByNumber = build(maxSize, ttlSeconds);
+        CaffeineCacheMetrics.monitor(meterRegistry, profiles, "accounts.profiles");
+        CaffeineCacheMetrics.monitor(meterRegistry, idsByNumber, "accounts.by-number");
+    }
+
+    public AccountProfile profile(Long accountId) {
+        AccountProfile profile = profiles.get(accountId, id -> accountRepository.findById(id)
+                .map(AccountProfile::of)
+                .orElse(null));
+        if (profile == null) {
+            throw new ResourceNotFoundException("Account not found");
+        }
+        return profile;
+    }
+
+    // Accounts missing from the cache are loaded with one IN query; unknown ids are left out of the result
+    public Map<Long, AccountProfile> profiles(Collection<Long> accountIds) {
+        return profiles.getAll(accountIds, missing -> accountRepository.findAllById(List.copyOf(missing)).stream()
+                .collect(Collectors.toMap(Account::getId, AccountProfile::of)));
+    }
+
+    public Map<String, Long> idsForNumbers(Collection<String> accountNumbers) {
+        return idsByNumber.getAll(accountNumbers, missing -> accountRepository.findByAccountNumberIn(List.copyOf(missing)).stream()
+                .collect(Collectors.toMap(Account::getAccountNumber, this::remember)));
+    }
+
+    public Long idForNumber(String accountNumber) {
+        // Unknown numbers are not cached, so an account created a moment later is found straight away
+        Long accountId = idsByNumber.get(accountNumber, number -> accountRepository.findByAccountNumber(number)
+                .map(this::remember)
+                .orElse(null));
+        if (accountId == null) {
+            throw new ResourceNotFoundException("Account not found");
+        }
+        return accountId;
+    }
+
+    // Read through every time; see the class comment
+    public List<Long> idsForUser(Long userId) {
+        return accountRepository.findIdsByUserId(userId);
+    }
+
+    // After commit, so a reader cannot cache what the transaction is about to replace. Caffeine makes the
+    // eviction wait for a load of the same key that is in flight, so that load cannot outlive it either.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAccountChanged(AccountChanged event) {
+        profiles.invalidate(event.accountId());
+        if (event.accountNumber() != null) {
+            idsByNumber.invalidate(event.accountNumber());
+        }
+    }
+
+    // A loaded account fills its profile on the way, saving the next lookup by id
+    private Long remember(Account account) {
+        profiles.put(account.getId(), AccountProfile.of(account));
+        return account.getId();
+    }
+
+    private static <K, V> Cache<K, V> build(long maxSize, long ttlSeconds) {
+        return Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+}
@@ -0,0 +1,7 @@
+package com.maxiflexy.account_service.service;
+
+// Issues account numbers of the form ACC followed by 13 digits, as ValidationUtils.isValidAccountNumber expects
+public interface AccountNumberGenerator {
+
+    String next();
+}
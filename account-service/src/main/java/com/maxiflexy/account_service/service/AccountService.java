@@ -1,49 +1,145 @@
 package com.maxiflexy.account_service.service;
 
 import com.maxiflexy.account_service.dto.AccountDto;
+import com.maxiflexy.account_service.dto.AccountLookupDto;
+import com.maxiflexy.account_service.dto.BatchTransferBalanceDto;
+import com.maxiflexy.account_service.dto.BatchTransferLineDto;
+import com.maxiflexy.account_service.dto.BatchTransferLineResultDto;
+import com.maxiflexy.account_service.dto.BatchTransferResultDto;
 import com.maxiflexy.account_service.dto.CreateAccountDto;
 import com.maxiflexy.account_service.dto.TransferBalanceDto;
-import com.maxiflexy.account_service.exception.InsufficientFundsException;
+import com.maxiflexy.account_service.dto.TransferResultDto;
+import com.maxiflexy.account_service.enums.BatchLineStatus;
+import com.maxiflexy.account_service.enums.JournalEntryType;
+import com.maxiflexy.account_service.enums.LedgerAccount;
+import com.maxiflexy.account_service.enums.PostingDirection;
+import com.maxiflexy.account_service.exception.DuplicateReferenceException;
+import com.maxiflexy.account_service.exception.ReferenceConflictException;
 import com.maxiflexy.account_service.exception.ResourceNotFoundException;
+import com.maxiflexy.account_service.exception.TransferReversedException;
 import com.maxiflexy.account_service.model.Account;
+import com.maxiflexy.account_service.model.JournalEntry;
+import com.maxiflexy.account_service.model.JournalPosting;
 import com.maxiflexy.account_service.repository.AccountRepository;
+import com.maxiflexy.account_service.repository.JournalEntryRepository;
+import com.maxiflexy.account_service.repository.JournalPostingRepository;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 public class AccountService {
 
+    private static final int LOOKUP_CHUNK_SIZE = 1000;
+
+    // The mutable part of each account, read fresh on every lookup; slot rows only exist for hot accounts
+    private static final String LIVE_BALANCES_SQL = "SELECT a.id, a.balance + COALESCE(" +
+            "(SELECT SUM(s.balance) FROM account_balance_slots s WHERE s.account_id = a.id), 0), a.held_amount, a.updated_at " +
+            "FROM accounts a WHERE a.id = ANY (?)";
+
+    private static final String LOCK_BALANCE_SQL = "SELECT balance FROM accounts WHERE id = ? FOR UPDATE";
+
     @Autowired
     private AccountRepository accountRepository;
 
     @Autowired
     private UserValidationService userValidationService;
 
+    @Autowired
+    private AccountNumberGenerator accountNumberGenerator;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private LedgerSequencer ledgerSequencer;
+
+    @Autowired
+    private BalanceSlotService balanceSlotService;
+
+    @Autowired
+    private AccountCache accountCache;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private JournalEntryRepository journalEntryRepository;
+
+    @Autowired
+    private JournalPostingRepository journalPostingRepository;
+
+    // Lookups take the account's fixed details from AccountCache and only read balances from the database
     public List<AccountDto> getAccountsByUserId(Long userId) {
-        return accountRepository.findByUserId(userId).stream()
-                .map(this::convertToDto)
+        List<Long> accountIds = accountCache.idsForUser(userId);
+        Map<Long, AccountCache.AccountProfile> profiles = accountCache.profiles(accountIds);
+        Map<Long, LiveBalance> balances = liveBalances(accountIds);
+        return accountIds.stream()
+                .filter(accountId -> profiles.containsKey(accountId) && balances.containsKey(accountId))
+                .map(accountId -> convertToDto(profiles.get(accountId), balances.get(accountId)))
                 .collect(Collectors.toList());
     }
 
     public AccountDto getAccountById(Long userId, Long accountId) {
         log.info("userId from request, {}", userId);
-        Account account = accountRepository.findByUserIdAndId(userId, accountId)
-                .orElseThrow(() -> new ResourceNotFoundException("Account not found"));
-        return convertToDto(account);
+        AccountCache.AccountProfile profile = accountCache.profile(accountId);
+        if (!profile.userId().equals(userId)) {
+            throw new ResourceNotFoundException("Account not found");
+        }
+        return liveDto(profile);
     }
 
     public AccountDto getAccountByNumber(String accountNumber) {
-        Account account = accountRepository.findByAccountNumber(accountNumber)
-                .orElseThrow(() -> new ResourceNotFoundException("Account not found"));
-        return convertToDto(account);
+        return liveDto(accountCache.profile(accountCache.idForNumber(accountNumber)));
+    }
+
+    // Multi-get: the caller's accounts among the ids, then any account among the numbers, in request order
+    // and each account once. Unknown keys are skipped. Balances for all of them come from one query.
+    public List<AccountDto> lookupAccounts(Long userId, @Valid AccountLookupDto lookupDto) {
+        Set<Long> accountIds = new LinkedHashSet<>();
+        if (lookupDto.getAccountIds() != null) {
+            accountIds.addAll(lookupDto.getAccountIds());
+        }
+        Map<Long, AccountCache.AccountProfile> profiles = new HashMap<>(accountCache.profiles(accountIds));
+        accountIds.removeIf(accountId -> !profiles.containsKey(accountId) || !profiles.get(accountId).userId().equals(userId));
+
+        if (lookupDto.getAccountNumbers() != null && !lookupDto.getAccountNumbers().isEmpty()) {
+            Map<String, Long> byNumber = accountCache.idsForNumbers(lookupDto.getAccountNumbers());
+            List<Long> numbered = lookupDto.getAccountNumbers().stream()
+                    .map(byNumber::get)
+                    .filter(Objects::nonNull)
+                    .toList();
+            profiles.putAll(accountCache.profiles(numbered));
+            accountIds.addAll(numbered);
+        }
+
+        List<Long> ordered = new ArrayList<>(accountIds);
+        Map<Long, LiveBalance> balances = liveBalances(ordered);
+        return ordered.stream()
+                .filter(accountId -> profiles.containsKey(accountId) && balances.containsKey(accountId))
+                .map(accountId -> convertToDto(profiles.get(accountId), balances.get(accountId)))
+                .collect(Collectors.toList());
     }
 
     @Transactional
@@ -55,20 +151,57 @@ public class AccountService {
 
         Account account = new Account();
         account.setUserId(createAccountDto.getUserId());
+        account.setAccountNumber(accountNumberGenerator.next());
         account.setFullName(createAccountDto.getFullName());
         account.setEmail(createAccountDto.getEmail());
         account.setAccountType(createAccountDto.getAccountType());
 
         Account savedAccount = accountRepository.save(account);
+        eventPublisher.publishEvent(new AccountCache.AccountChanged(savedAccount.getId(), savedAccount.getUserId(),
+                savedAccount.getAccountNumber()));
         return convertToDto(savedAccount);
     }
 
     private AccountDto convertToDto(Account account) {
+        return convertToDto(account, totalBalance(account));
+    }
+
+    private AccountDto liveDto(AccountCache.AccountProfile profile) {
+        LiveBalance balance = liveBalances(List.of(profile.id())).get(profile.id());
+        if (balance == null) {
+            throw new ResourceNotFoundException("Account not found");
+        }
+        return convertToDto(profile, balance);
+    }
+
+    private AccountDto convertToDto(AccountCache.AccountProfile profile, LiveBalance balance) {
+        AccountDto dto = new AccountDto();
+        dto.setId(profile.id());
+        dto.setUserId(profile.userId());
+        dto.setAccountNumber(profile.accountNumber());
+        dto.setBalance(balance.balance());
+        dto.setHeldAmount(balance.heldAmount());
+        dto.setAvailableBalance(balance.balance().subtract(balance.heldAmount()));
+        dto.setAccountType(profile.accountType());
+        dto.setFullName(profile.fullName());
+        dto.setEmail(profile.email());
+        dto.setCreatedAt(profile.createdAt());
+        dto.setUpdatedAt(balance.updatedAt());
+        return dto;
+    }
+
+    private AccountDto convertToDto(Account account, BigDecimal balance) {
+        return convertToDto(account, balance, account.getHeldAmount());
+    }
+
+    private AccountDto convertToDto(Account account, BigDecimal balance, BigDecimal heldAmount) {
         AccountDto dto = new AccountDto();
         dto.setId(account.getId());
         dto.setUserId(account.getUserId());
         dto.setAccountNumber(account.getAccountNumber());
-        dto.setBalance(account.getBalance());
+        dto.setBalance(balance);
+        dto.setHeldAmount(heldAmount);
+        dto.setAvailableBalance(balance.subtract(heldAmount));
         dto.setAccountType(account.getAccountType());
         dto.setFullName(account.getFullName());
         dto.setEmail(account.getEmail());
@@ -82,33 +215,329 @@ public class AccountService {
         Account account = accountRepository.findByUserIdAndId(userId, accountId)
                 .orElseThrow(() -> new ResourceNotFoundException("Account not found"));
 
-        account.setBalance(newBalance);
-        Account savedAccount = accountRepository.save(account);
+        // Setting a balance outright is journaled as an adjustment against cash settlement for the difference.
+        // The difference is taken under the row and slot locks, so no concurrent mutation lands in between.
+        BigDecimal current = lockBalance(accountId);
+        BigDecimal difference = newBalance.subtract(current);
+        if (difference.signum() == 0) {
+            // The row is locked and its slots folded, so this is the balance and held amount as they stand
+            LiveBalance live = liveBalances(List.of(accountId)).get(accountId);
+            return updatedDto(account, live.balance(), live.heldAmount());
+        }
+        List<JournalPosting> postings = difference.signum() > 0
+                ? List.of(JournalPosting.debit(LedgerAccount.CASH_SETTLEMENT, null, difference),
+                        JournalPosting.credit(LedgerAccount.CUSTOMER, accountId, difference))
+                : List.of(JournalPosting.debit(LedgerAccount.CUSTOMER, accountId, difference.negate()),
+                        JournalPosting.credit(LedgerAccount.CASH_SETTLEMENT, null, difference.negate()));
+        LedgerService.PostingResult result = ledgerService.post(JournalEntryType.ADJUSTMENT, null, "Balance adjustment", postings);
 
-        return convertToDto(savedAccount);
+        return updatedDto(account, result);
+    }
+
+    // Deposits, withdrawals and transfers are not @Transactional: the sequencer commits them on the
+    // account's shard thread, and the checks before it are plain reads
+    public AccountDto creditAccount(Long userId, Long accountId, BigDecimal amount) {
+        Account account = findOwnedAccount(userId, accountId);
+
+        LedgerService.PostingResult result = ledgerSequencer.post(accountId, JournalEntryType.DEPOSIT, null, "Deposit", List.of(
+                JournalPosting.debit(LedgerAccount.CASH_SETTLEMENT, null, amount),
+                JournalPosting.credit(LedgerAccount.CUSTOMER, accountId, amount)));
+        return updatedDto(account, result);
+    }
+
+    public AccountDto debitAccount(Long userId, Long accountId, BigDecimal amount) {
+        Account account = findOwnedAccount(userId, accountId);
+
+        LedgerService.PostingResult result = ledgerSequencer.post(accountId, JournalEntryType.WITHDRAWAL, null, "Withdrawal", List.of(
+                JournalPosting.debit(LedgerAccount.CUSTOMER, accountId, amount),
+                JournalPosting.credit(LedgerAccount.CASH_SETTLEMENT, null, amount)));
+        return updatedDto(account, result);
+    }
+
+    public AccountDto setHotMode(Long userId, Long accountId, boolean enabled) {
+        Account account = findOwnedAccount(userId, accountId);
+        if (!enabled) {
+            balanceSlotService.disableHotMode(accountId);
+        } else if (!Boolean.TRUE.equals(account.getHot())) {
+            balanceSlotService.enableHotMode(accountId);
+        }
+        return getAccountById(userId, accountId);
+    }
+
+    public TransferResultDto transferBetweenAccounts(Long userId, @Valid TransferBalanceDto transferDto) {
+        Long fromAccountId = transferDto.getFromAccountId();
+        Long toAccountId = transferDto.getToAccountId();
+        if (!accountRepository.existsByUserIdAndId(userId, fromAccountId)) {
+            throw new ResourceNotFoundException("Source account not found");
+        }
+
+        // A retried reference returns what the first attempt produced instead of moving money again
+        String reference = transferDto.getReference();
+        if (reference != null) {
+            Optional<JournalEntry> existing = journalEntryRepository.findByReference(reference);
+            if (existing.isPresent()) {
+                return replayTransfer(existing.get(), transferDto);
+            }
+        }
+
+        // Destination needs no ownership verification; the ledger rejects a missing account.
+        // One entry debits the source and credits the destination, so both balances move together.
+        // It runs on the source's shard, where the funds check sees every earlier debit of that account.
+        // A sequencer timeout surfaces as BalanceOutcomeUnknownException; a retry with the same reference
+        // then either replays the committed entry or posts it for the first time.
+        LedgerService.PostingResult result;
+        try {
+            result = ledgerSequencer.post(fromAccountId, JournalEntryType.TRANSFER, reference,
+                    "Transfer from account " + fromAccountId + " to account " + toAccountId, List.of(
+                            JournalPosting.debit(LedgerAccount.CUSTOMER, fromAccountId, transferDto.getAmount()),
+                            JournalPosting.credit(LedgerAccount.CUSTOMER, toAccountId, transferDto.getAmount())));
+        } catch (DuplicateReferenceException e) {
+            // A concurrent retry of the same reference got in first; answer with what it recorded
+            JournalEntry existing = journalEntryRepository.findByReference(reference)
+                    .orElseThrow(() -> e);
+            return replayTransfer(existing, transferDto);
+        }
+
+        return new TransferResultDto(fromAccountId, result.balances().get(fromAccountId),
+                toAccountId, result.balances().get(toAccountId), result.entryId());
     }
 
+    // Pays many destinations from one source: destinations are resolved in bulk, unknown ones are
+    // reported per line, and everything else is one journal entry with a single debit of the total.
+    // A retried reference rebuilds the first attempt's result from its entry instead of posting again.
     @Transactional
-    public void transferBetweenAccounts(Long userId, @Valid TransferBalanceDto transferDto) {
-        Account fromAccount = accountRepository.findByUserIdAndId(userId, transferDto.getFromAccountId())
+    public BatchTransferResultDto batchTransfer(Long userId, @Valid BatchTransferBalanceDto batchDto) {
+        Long fromAccountId = batchDto.getFromAccountId();
+        Account fromAccount = accountRepository.findByUserIdAndId(userId, fromAccountId)
                 .orElseThrow(() -> new ResourceNotFoundException("Source account not found"));
+        Optional<JournalEntry> existing = batchDto.getReference() == null
+                ? Optional.empty()
+                : journalEntryRepository.findByReference(batchDto.getReference());
+
+        Map<String, Account> destinations = findAccountsByNumber(batchDto.getLines().stream()
+                .map(BatchTransferLineDto::getToAccountNumber)
+                .collect(Collectors.toSet()));
+
+        List<BatchTransferLineResultDto> lineResults = new ArrayList<>(batchDto.getLines().size());
+        List<JournalPosting> postings = new ArrayList<>(batchDto.getLines().size() + 1);
+        BigDecimal total = BigDecimal.ZERO;
+        for (BatchTransferLineDto line : batchDto.getLines()) {
+            BatchTransferLineResultDto lineResult = new BatchTransferLineResultDto();
+            lineResult.setToAccountNumber(line.getToAccountNumber());
+            lineResult.setAmount(line.getAmount());
+
+            Account destination = destinations.get(line.getToAccountNumber());
+            if (destination == null) {
+                lineResult.setStatus(BatchLineStatus.FAILED);
+                lineResult.setError("Destination account not found");
+            } else if (destination.getId().equals(fromAccountId)) {
+                lineResult.setStatus(BatchLineStatus.FAILED);
+                lineResult.setError("Cannot transfer to the source account");
+            } else {
+                lineResult.setStatus(BatchLineStatus.COMPLETED);
+                lineResult.setToAccountId(destination.getId());
+                lineResult.setToUserId(destination.getUserId());
+                lineResult.setToFullName(destination.getFullName());
+                lineResult.setToEmail(destination.getEmail());
+                postings.add(JournalPosting.credit(LedgerAccount.CUSTOMER, destination.getId(), line.getAmount()));
+                total = total.add(line.getAmount());
+            }
+            lineResults.add(lineResult);
+        }
+
+        if (postings.isEmpty()) {
+            return new BatchTransferResultDto(null, fromAccountId, totalBalance(fromAccount), BigDecimal.ZERO, lineResults);
+        }
+        if (existing.isPresent()) {
+            return replayBatch(existing.get(), fromAccountId, total, lineResults);
+        }
+
+        // One debit of the total covers every applied line
+        String description = "Batch transfer of " + postings.size() + " lines from account " + fromAccountId;
+        postings.add(JournalPosting.debit(LedgerAccount.CUSTOMER, fromAccountId, total));
+        LedgerService.PostingResult result = ledgerService.postBulk(JournalEntryType.BATCH_TRANSFER,
+                batchDto.getReference(), description, postings);
+
+        for (BatchTransferLineResultDto lineResult : lineResults) {
+            if (lineResult.getToAccountId() != null) {
+                lineResult.setToAccountBalance(result.balances().get(lineResult.getToAccountId()));
+            }
+        }
+        return new BatchTransferResultDto(result.entryId(), fromAccountId, result.balances().get(fromAccountId), total, lineResults);
+    }
+
+    // Compensates a referenced transfer with a mirror-image entry. Reversing twice is a no-op.
+    // Batches are not reversed as a whole: a recipient may already have spent the credit, and a batch
+    // whose recording failed is finished by replaying its reference instead.
+    @Transactional
+    public TransferResultDto reverseTransfer(Long userId, String reference) {
+        JournalEntry original = journalEntryRepository.findByReference(reference)
+                .filter(entry -> entry.getEntryType() == JournalEntryType.TRANSFER)
+                .orElseThrow(() -> new ResourceNotFoundException("Transfer not found: " + reference));
+
+        List<JournalPosting> postings = journalPostingRepository.findByEntryId(original.getId());
+        Long fromAccountId = findPostingAccount(postings, PostingDirection.DEBIT);
+        Long toAccountId = findPostingAccount(postings, PostingDirection.CREDIT);
+        if (!accountRepository.existsByUserIdAndId(userId, fromAccountId)) {
+            throw new ResourceNotFoundException("Transfer not found: " + reference);
+        }
+
+        String reversalReference = reversalReference(reference);
+        Optional<JournalEntry> existing = journalEntryRepository.findByReference(reversalReference);
+        if (existing.isPresent()) {
+            return toTransferResult(existing.get().getId(), fromAccountId, toAccountId);
+        }
+
+        List<JournalPosting> mirrored = postings.stream()
+                .map(posting -> posting.getDirection() == PostingDirection.DEBIT
+                        ? JournalPosting.credit(posting.getLedgerAccount(), posting.getAccountId(), posting.getAmount())
+                        : JournalPosting.debit(posting.getLedgerAccount(), posting.getAccountId(), posting.getAmount()))
+                .collect(Collectors.toList());
+        LedgerService.PostingResult result = ledgerService.postBulk(JournalEntryType.REVERSAL, reversalReference,
+                "Reversal of transfer " + reference, mirrored);
+
+        return new TransferResultDto(fromAccountId, result.balances().get(fromAccountId),
+                toAccountId, result.balances().get(toAccountId), result.entryId());
+    }
+
+    // The lines resolve the same way as on the first attempt, so only the balances come from the stored postings
+    private BatchTransferResultDto replayBatch(JournalEntry entry, Long fromAccountId, BigDecimal total,
+                                               List<BatchTransferLineResultDto> lineResults) {
+        List<JournalPosting> postings = journalPostingRepository.findByEntryId(entry.getId());
+        if (entry.getEntryType() != JournalEntryType.BATCH_TRANSFER
+                || !hasPosting(postings, PostingDirection.DEBIT, fromAccountId, total)) {
+            throw new ReferenceConflictException("Reference " + entry.getReference() + " was already used for a different transfer");
+        }
+        Map<Long, BigDecimal> balances = new HashMap<>();
+        for (JournalPosting posting : postings) {
+            if (posting.getAccountId() != null) {
+                balances.put(posting.getAccountId(), posting.getBalanceAfter());
+            }
+        }
+        for (BatchTransferLineResultDto lineResult : lineResults) {
+            if (lineResult.getToAccountId() != null) {
+                lineResult.setToAccountBalance(balances.get(lineResult.getToAccountId()));
+            }
+        }
+        return new BatchTransferResultDto(entry.getId(), fromAccountId, balances.get(fromAccountId), total, lineResults);
+    }
+
+    private Map<String, Account> findAccountsByNumber(Set<String> accountNumbers) {
+        // Keep IN lists to a bounded size
+        List<String> numbers = new ArrayList<>(accountNumbers);
+        Map<String, Account> accounts = new HashMap<>();
+        for (int from = 0; from < numbers.size(); from += LOOKUP_CHUNK_SIZE) {
+            List<String> chunk = numbers.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, numbers.size()));
+            for (Account account : accountRepository.findByAccountNumberIn(chunk)) {
+                accounts.put(account.getAccountNumber(), account);
+            }
+        }
+        return accounts;
+    }
+
+    private TransferResultDto replayTransfer(JournalEntry entry, TransferBalanceDto transferDto) {
+        List<JournalPosting> postings = journalPostingRepository.findByEntryId(entry.getId());
+        if (!isSameTransfer(entry, postings, transferDto)) {
+            throw new ReferenceConflictException("Reference " + entry.getReference() + " was already used for a different transfer");
+        }
+        if (journalEntryRepository.findByReference(reversalReference(entry.getReference())).isPresent()) {
+            throw new TransferReversedException("Transfer " + entry.getReference() + " has been reversed");
+        }
+        return toTransferResult(entry.getId(), postings, transferDto.getFromAccountId(), transferDto.getToAccountId());
+    }
 
-        // Get destination account (no ownership verification required)
-        Account toAccount = accountRepository.findById(transferDto.getToAccountId())
-                .orElseThrow(() -> new ResourceNotFoundException("Destination account not found"));
+    // A replayed reference must describe the transfer it first recorded: same source, destination and amount
+    private boolean isSameTransfer(JournalEntry entry, List<JournalPosting> postings, TransferBalanceDto transferDto) {
+        return entry.getEntryType() == JournalEntryType.TRANSFER
+                && hasPosting(postings, PostingDirection.DEBIT, transferDto.getFromAccountId(), transferDto.getAmount())
+                && hasPosting(postings, PostingDirection.CREDIT, transferDto.getToAccountId(), transferDto.getAmount());
+    }
 
-        // Check for sufficient funds
-        if (fromAccount.getBalance().compareTo(transferDto.getAmount()) < 0) {
-            throw new InsufficientFundsException("Insufficient funds for transfer");
+    private boolean hasPosting(List<JournalPosting> postings, PostingDirection direction, Long accountId, BigDecimal amount) {
+        return postings.stream().anyMatch(posting -> posting.getLedgerAccount() == LedgerAccount.CUSTOMER
+                && posting.getDirection() == direction
+                && posting.getAccountId().equals(accountId)
+                && posting.getAmount().compareTo(amount) == 0);
+    }
+
+    private TransferResultDto toTransferResult(Long entryId, Long fromAccountId, Long toAccountId) {
+        return toTransferResult(entryId, journalPostingRepository.findByEntryId(entryId), fromAccountId, toAccountId);
+    }
+
+    private TransferResultDto toTransferResult(Long entryId, List<JournalPosting> postings, Long fromAccountId, Long toAccountId) {
+        TransferResultDto result = new TransferResultDto();
+        result.setJournalEntryId(entryId);
+        result.setFromAccountId(fromAccountId);
+        result.setToAccountId(toAccountId);
+        for (JournalPosting posting : postings) {
+            if (fromAccountId.equals(posting.getAccountId())) {
+                result.setFromAccountBalance(posting.getBalanceAfter());
+            } else if (toAccountId.equals(posting.getAccountId())) {
+                result.setToAccountBalance(posting.getBalanceAfter());
+            }
         }
+        return result;
+    }
+
+    private Long findPostingAccount(List<JournalPosting> postings, PostingDirection direction) {
+        return postings.stream()
+                .filter(posting -> posting.getLedgerAccount() == LedgerAccount.CUSTOMER && posting.getDirection() == direction)
+                .map(JournalPosting::getAccountId)
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Transfer entry is missing its " + direction + " posting"));
+    }
+
+    private String reversalReference(String reference) {
+        return "reversal:" + reference;
+    }
+
+    private Map<Long, LiveBalance> liveBalances(List<Long> accountIds) {
+        Map<Long, LiveBalance> balances = new HashMap<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(LIVE_BALANCES_SQL);
+            ps.setArray(1, connection.createArrayOf("bigint", accountIds.toArray()));
+            return ps;
+        }, rs -> {
+            balances.put(rs.getLong(1), new LiveBalance(rs.getBigDecimal(2), rs.getBigDecimal(3),
+                    rs.getTimestamp(4).toLocalDateTime()));
+        });
+        return balances;
+    }
 
-        // Update balances
-        fromAccount.setBalance(fromAccount.getBalance().subtract(transferDto.getAmount()));
-        toAccount.setBalance(toAccount.getBalance().add(transferDto.getAmount()));
+    private record LiveBalance(BigDecimal balance, BigDecimal heldAmount, LocalDateTime updatedAt) {
+    }
 
-        // Save both accounts
-        accountRepository.save(fromAccount);
-        accountRepository.save(toAccount);
+    private Account findOwnedAccount(Long userId, Long accountId) {
+        return accountRepository.findByUserIdAndId(userId, accountId)
+                .orElseThrow(() -> new ResourceNotFoundException("Account not found"));
+    }
 
+    // The ledger wrote the row natively, so the loaded entity is stale, held amount included. Only the DTO
+    // takes the new values: changing a managed entity would flush its old balance and version back over the ledger's write.
+    private AccountDto updatedDto(Account account, BigDecimal balance, BigDecimal heldAmount) {
+        AccountDto dto = convertToDto(account, balance, heldAmount);
+        dto.setUpdatedAt(LocalDateTime.now());
+        return dto;
+    }
+
+    private AccountDto updatedDto(Account account, LedgerService.PostingResult result) {
+        AccountDto dto = updatedDto(account, result.balances().get(account.getId()), result.heldAmounts().get(account.getId()));
+        dto.setJournalEntryId(result.entryId());
+        return dto;
+    }
+
+    // Locks the accounts row, then folds any slots into it and keeps them locked, so the row alone is the
+    // balance until the transaction ends. Same lock order as the ledger: row first, then slots.
+    private BigDecimal lockBalance(Long accountId) {
+        balanceSlotService.foldSlots(accountId);
+        return jdbcTemplate.queryForObject(LOCK_BALANCE_SQL, BigDecimal.class, accountId);
+    }
+
+    // A hot account's row holds only part of its balance; the rest is in its slots
+    private BigDecimal totalBalance(Account account) {
+        if (Boolean.TRUE.equals(account.getHot())) {
+            return account.getBalance().add(balanceSlotService.slotBalance(account.getId()));
+        }
+        return account.getBalance();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,198 @@
+package com.maxiflexy.account_service.service;
+
+import com.maxiflexy.account_service.exception.ResourceNotFoundException;
+import com.maxiflexy.account_service.repository.AccountRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sub-balances for hot accounts. A hot account's balance is its accounts row plus the sum of its
+ * slot rows; credits go to one slot picked round-robin, so concurrent credits rarely wait on the
+ * same row. A debit takes a single slot that covers it; one that no slot covers is taken from the
+ * accounts row by the ledger, which locks that row in id order with every other row it writes.
+ * A background fold moves the slots' balances into the row so such debits find the funds there.
+ * <p>
+ * Lock order, shared with {@link LedgerService}: accounts rows by id, then slot rows by account id,
+ * at most one slot per account. Nothing here takes a row lock after a slot lock.
+ * <p>
+ * Slot rows exist exactly while the account's hot flag is set, so reads add them for flagged accounts.
+ * Which accounts are hot is also cached here to decide where writes go; a write to a slot that no
+ * longer exists falls back to the accounts row, so a stale cache costs contention, never correctness.
+ */
+@Slf4j
+@Service
+public class BalanceSlotService {
+
+    private static final String CREDIT_SLOT_SQL =
+            "UPDATE account_balance_slots SET balance = balance + ? WHERE account_id = ? AND slot = ?";
+
+    // Takes one slot that covers the amount, the first at or after a round-robin start
+    private static final String DEBIT_SLOT_SQL = "UPDATE account_balance_slots SET balance = balance - ? " +
+            "WHERE account_id = ? AND balance >= ? AND slot = (SELECT slot FROM account_balance_slots " +
+            "WHERE account_id = ? AND balance >= ? ORDER BY slot >= ? DESC, slot LIMIT 1)";
+
+    private static final String LARGEST_SLOTS_SQL =
+            "SELECT account_id, MAX(balance) FROM account_balance_slots WHERE account_id = ANY (?) GROUP BY account_id";
+
+    private static final String LOCK_ROW_SQL = "SELECT id FROM accounts WHERE id = ? FOR UPDATE";
+
+    // Moves every slot's balance into the accounts row. The caller holds the row lock, so the slots are locked after it.
+    private static final String FOLD_SLOTS_SQL = "WITH drained AS (" +
+            "UPDATE account_balance_slots s SET balance = 0 " +
+            "FROM (SELECT slot, balance FROM account_balance_slots WHERE account_id = ? ORDER BY slot FOR UPDATE) old " +
+            "WHERE s.account_id = ? AND s.slot = old.slot AND old.balance <> 0 RETURNING old.balance) " +
+            "UPDATE accounts SET balance = balance + (SELECT COALESCE(SUM(balance), 0) FROM drained), version = version + 1, updated_at = now() " +
+            "WHERE id = ? AND EXISTS (SELECT 1 FROM drained)";
+
+    private static final String CREATE_SLOTS_SQL = "INSERT INTO account_balance_slots (account_id, slot, balance) " +
+            "SELECT ?, slot, 0 FROM generate_series(0, ? - 1) AS slot ON CONFLICT DO NOTHING";
+
+    private static final String SLOT_TOTAL_SQL =
+            "SELECT COALESCE(SUM(balance), 0) FROM account_balance_slots WHERE account_id = ?";
+
+    private static final String TOTAL_BALANCE_SQL = "SELECT a.balance + COALESCE(" +
+            "(SELECT SUM(s.balance) FROM account_balance_slots s WHERE s.account_id = a.id), 0) FROM accounts a WHERE a.id = ?";
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.hot-accounts.slots:8}")
+    private int slotCount;
+
+    private final AtomicInteger nextSlot = new AtomicInteger();
+    private volatile Set<Long> hotAccountIds = ConcurrentHashMap.newKeySet();
+
+    // Picks up accounts switched by other instances; also runs once at startup
+    @Scheduled(fixedDelayString = "${app.hot-accounts.refresh-interval-ms:30000}")
+    public void refreshHotAccounts() {
+        try {
+            Set<Long> ids = ConcurrentHashMap.newKeySet();
+            ids.addAll(accountRepository.findHotAccountIds());
+            hotAccountIds = ids;
+        } catch (Exception e) {
+            log.error("Error refreshing hot accounts: {}", e.getMessage(), e);
+        }
+    }
+
+    public Set<Long> hotAmong(Collection<Long> accountIds) {
+        Set<Long> hot = new TreeSet<>();
+        for (Long accountId : accountIds) {
+            if (hotAccountIds.contains(accountId)) {
+                hot.add(accountId);
+            }
+        }
+        return hot;
+    }
+
+    // False when the account has no slots (it has just left hot mode); the caller credits the row instead
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean credit(Long accountId, BigDecimal amount) {
+        return jdbcTemplate.update(CREDIT_SLOT_SQL, amount, accountId, nextSlot()) == 1;
+    }
+
+    // Debits one slot that covers the whole amount. False when none does, including when a concurrent
+    // debit took the slot first; the funds check in LedgerService decides whether the row is used instead.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean debit(Long accountId, BigDecimal amount) {
+        return jdbcTemplate.update(DEBIT_SLOT_SQL, amount, accountId, amount, accountId, amount, nextSlot()) == 1;
+    }
+
+    // The hot accounts among the given debits (positive amounts) that no single slot covers. An unlocked
+    // read: the ledger debits those from the accounts row, and a slot drained since is simply rejected.
+    public Set<Long> uncoveredDebits(Map<Long, BigDecimal> debits) {
+        Set<Long> uncovered = new TreeSet<>(debits.keySet());
+        if (debits.isEmpty()) {
+            return uncovered;
+        }
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(LARGEST_SLOTS_SQL);
+            ps.setArray(1, connection.createArrayOf("bigint", debits.keySet().toArray()));
+            return ps;
+        }, rs -> {
+            if (rs.getBigDecimal(2).compareTo(debits.get(rs.getLong(1))) >= 0) {
+                uncovered.remove(rs.getLong(1));
+            }
+        });
+        return uncovered;
+    }
+
+    // Gathers slot balances back into the accounts row, one account per transaction, so debits too
+    // large for any slot can be taken from the row. Accounts whose slots are empty are left alone.
+    @Scheduled(fixedDelayString = "${app.hot-accounts.fold-interval-ms:60000}")
+    public void foldHotAccounts() {
+        for (Long accountId : hotAccountIds) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> foldSlots(accountId));
+            } catch (Exception e) {
+                log.warn("Error folding balance slots of account {}: {}", accountId, e.getMessage());
+            }
+        }
+    }
+
+    public BigDecimal slotBalance(Long accountId) {
+        return jdbcTemplate.queryForObject(SLOT_TOTAL_SQL, BigDecimal.class, accountId);
+    }
+
+    public BigDecimal totalBalance(Long accountId) {
+        List<BigDecimal> total = jdbcTemplate.queryForList(TOTAL_BALANCE_SQL, BigDecimal.class, accountId);
+        if (total.isEmpty()) {
+            throw new ResourceNotFoundException("Account not found with ID: " + accountId);
+        }
+        return total.get(0);
+    }
+
+    @Transactional
+    public void enableHotMode(Long accountId) {
+        if (accountRepository.setHot(accountId, true) == 0) {
+            throw new ResourceNotFoundException("Account not found with ID: " + accountId);
+        }
+        jdbcTemplate.update(CREATE_SLOTS_SQL, accountId, slotCount);
+        hotAccountIds.add(accountId);
+        log.info("Account {} switched to hot mode with {} balance slots", accountId, slotCount);
+    }
+
+    @Transactional
+    public void disableHotMode(Long accountId) {
+        if (accountRepository.setHot(accountId, false) == 0) {
+            throw new ResourceNotFoundException("Account not found with ID: " + accountId);
+        }
+        foldSlots(accountId);
+        jdbcTemplate.update("DELETE FROM account_balance_slots WHERE account_id = ?", accountId);
+        hotAccountIds.remove(accountId);
+        log.info("Account {} switched back to a single balance row", accountId);
+    }
+
+    // Locks the accounts row before the slots, in line with the ledger's lock order
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void foldSlots(Long accountId) {
+        jdbcTemplate.queryForList(LOCK_ROW_SQL, Long.class, accountId);
+        jdbcTemplate.update(FOLD_SLOTS_SQL, accountId, accountId, accountId);
+    }
+
+    private int nextSlot() {
+        return Math.floorMod(nextSlot.getAndIncrement(), slotCount);
+    }
+}
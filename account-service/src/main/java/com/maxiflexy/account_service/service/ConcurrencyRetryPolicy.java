@@ -0,0 +1,82 @@
+package com.maxiflexy.account_service.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+/**
+ * Bounded retry for transactions that lose a concurrency race: an optimistic version conflict, a
+ * deadlock or a lock timeout. Each retry waits a random time up to an exponentially growing cap
+ * ("full jitter"), so transactions that collided once do not collide again in lockstep.
+ * Must wrap the whole transaction, never run inside one: a failed attempt has to roll back.
+ */
+@Slf4j
+@Component
+public class ConcurrencyRetryPolicy {
+
+    private final MeterRegistry meterRegistry;
+    private final int maxAttempts;
+    private final long baseBackoffMs;
+    private final long maxBackoffMs;
+    private final DistributionSummary attempts;
+    private final Counter exhausted;
+
+    public ConcurrencyRetryPolicy(MeterRegistry meterRegistry,
+                                  @Value("${app.ledger.retry.max-attempts:4}") int maxAttempts,
+                                  @Value("${app.ledger.retry.base-backoff-ms:5}") long baseBackoffMs,
+                                  @Value("${app.ledger.retry.max-backoff-ms:200}") long maxBackoffMs) {
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoffMs = baseBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.attempts = DistributionSummary.builder("ledger.concurrency.attempts")
+                .description("Attempts taken by transactions that committed or gave up")
+                .register(meterRegistry);
+        this.exhausted = Counter.builder("ledger.concurrency.retries.exhausted")
+                .description("Transactions that still conflicted after the last attempt")
+                .register(meterRegistry);
+    }
+
+    public int maxAttempts() {
+        return maxAttempts;
+    }
+
+    // Runs the transaction, passing the 1-based attempt number so the last attempt can fall back to a safer mode
+    public <T> T execute(String operation, IntFunction<T> transaction) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                T result = transaction.apply(attempt);
+                attempts.record(attempt);
+                return result;
+            } catch (ConcurrencyFailureException e) {
+                meterRegistry.counter("ledger.concurrency.conflicts",
+                        "operation", operation, "type", e.getClass().getSimpleName()).increment();
+                if (attempt >= maxAttempts) {
+                    attempts.record(attempt);
+                    exhausted.increment();
+                    throw e;
+                }
+                log.debug("{} conflicted on attempt {}: {}", operation, attempt, e.getMessage());
+                backOff(attempt, e);
+            }
+        }
+    }
+
+    private void backOff(int attempt, ConcurrencyFailureException conflict) {
+        long cap = Math.min(maxBackoffMs, baseBackoffMs << Math.min(attempt - 1, 20));
+        try {
+            TimeUnit.MILLISECONDS.sleep(ThreadLocalRandom.current().nextLong(cap + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw conflict;
+        }
+    }
+}
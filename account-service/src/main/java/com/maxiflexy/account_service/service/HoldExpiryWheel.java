@@ -0,0 +1,134 @@
+package com.maxiflexy.account_service.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hashed timing wheel of hold expiry deadlines. A hold due within one turn of the wheel goes into the
+ * bucket of the tick its deadline falls in, and each advance only looks at the buckets of the ticks that
+ * passed. Deadlines further out wait in an overflow map ordered by deadline and move onto the wheel once
+ * they come within a turn, so a long-lived hold is handled twice (parked, then bucketed) rather than on
+ * every turn. An advance costs the holds coming due plus the holds moving in from the overflow.
+ */
+@Component
+public class HoldExpiryWheel {
+
+    // Marks a hold parked in the overflow rather than in a bucket
+    private static final int OVERFLOW = -1;
+
+    private final long tickMs;
+    private final List<Map<Long, Long>> buckets;
+    private final NavigableMap<Long, List<Long>> overflow = new TreeMap<>();
+    // Where every scheduled hold sits, so a capture or release can cancel it without knowing its deadline
+    private final Map<Long, Position> positions = new ConcurrentHashMap<>();
+    private long lastTick;
+
+    private record Position(int bucket, long deadline) {
+    }
+
+    public HoldExpiryWheel(MeterRegistry meterRegistry,
+                           @Value("${app.holds.wheel-tick-ms:1000}") long tickMs,
+                           @Value("${app.holds.wheel-size:512}") int wheelSize) {
+        this.tickMs = tickMs;
+        this.buckets = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            buckets.add(new HashMap<>());
+        }
+        this.lastTick = System.currentTimeMillis() / tickMs;
+
+        Gauge.builder("holds.expiry.scheduled", positions, Map::size)
+                .description("Active holds waiting on the expiry wheel")
+                .register(meterRegistry);
+    }
+
+    public synchronized void schedule(Long holdId, LocalDateTime expiresAt) {
+        cancel(holdId);
+        place(holdId, expiresAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+
+    public synchronized void cancel(Long holdId) {
+        Position position = positions.remove(holdId);
+        if (position == null) {
+            return;
+        }
+        if (position.bucket() != OVERFLOW) {
+            buckets.get(position.bucket()).remove(holdId);
+            return;
+        }
+        List<Long> parked = overflow.get(position.deadline());
+        if (parked != null) {
+            parked.remove(holdId);
+            if (parked.isEmpty()) {
+                overflow.remove(position.deadline());
+            }
+        }
+    }
+
+    // Removes and returns the holds whose deadline has passed in the ticks since the last advance
+    public synchronized List<Long> advance(long nowMillis) {
+        long currentTick = nowMillis / tickMs;
+        // After a long pause, look at each bucket once rather than going round several times
+        long firstTick = Math.max(lastTick + 1, currentTick - buckets.size() + 1);
+
+        List<Long> due = new ArrayList<>();
+        for (long tick = firstTick; tick <= currentTick; tick++) {
+            Iterator<Map.Entry<Long, Long>> entries = buckets.get((int) (tick % buckets.size())).entrySet().iterator();
+            while (entries.hasNext()) {
+                Map.Entry<Long, Long> entry = entries.next();
+                if (entry.getValue() <= nowMillis) {
+                    entries.remove();
+                    positions.remove(entry.getKey());
+                    due.add(entry.getKey());
+                }
+            }
+        }
+        lastTick = currentTick;
+
+        // Bring onto the wheel the parked deadlines that are now within a turn
+        Map<Long, List<Long>> arriving = overflow.headMap(horizon(), true);
+        List<Map.Entry<Long, List<Long>>> moving = new ArrayList<>(arriving.entrySet());
+        arriving.clear();
+        for (Map.Entry<Long, List<Long>> entry : moving) {
+            for (Long holdId : entry.getValue()) {
+                if (entry.getKey() <= nowMillis) {
+                    positions.remove(holdId);
+                    due.add(holdId);
+                } else {
+                    place(holdId, entry.getKey());
+                }
+            }
+        }
+        return due;
+    }
+
+    private void place(Long holdId, long deadline) {
+        if (deadline > horizon()) {
+            overflow.computeIfAbsent(deadline, d -> new ArrayList<>()).add(holdId);
+            positions.put(holdId, new Position(OVERFLOW, deadline));
+            return;
+        }
+        // A deadline that is already due goes into the next bucket the wheel will visit
+        long tick = Math.max(Math.floorDiv(deadline + tickMs - 1, tickMs), lastTick + 1);
+        int bucket = (int) (tick % buckets.size());
+        buckets.get(bucket).put(holdId, deadline);
+        positions.put(holdId, new Position(bucket, deadline));
+    }
+
+    // Last deadline a bucket can take without being visited before it is due
+    private long horizon() {
+        return (lastTick + buckets.size()) * tickMs;
+    }
+}
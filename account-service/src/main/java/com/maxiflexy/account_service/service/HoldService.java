@@ -0,0 +1,235 @@
+package com.maxiflexy.account_service.service;
+
+import com.maxiflexy.account_service.dto.HoldDto;
+import com.maxiflexy.account_service.dto.PlaceHoldDto;
+import com.maxiflexy.account_service.enums.HoldStatus;
+import com.maxiflexy.account_service.enums.JournalEntryType;
+import com.maxiflexy.account_service.enums.LedgerAccount;
+import com.maxiflexy.account_service.exception.HoldStateException;
+import com.maxiflexy.account_service.exception.InsufficientFundsException;
+import com.maxiflexy.account_service.exception.ResourceNotFoundException;
+import com.maxiflexy.account_service.model.Account;
+import com.maxiflexy.account_service.model.AccountHold;
+import com.maxiflexy.account_service.model.JournalPosting;
+import com.maxiflexy.account_service.repository.AccountHoldRepository;
+import com.maxiflexy.account_service.repository.AccountRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Authorization holds: funds reserved for a pending payment without debiting them. Placing a hold
+ * raises the account's held_amount, which every debit has to leave in place; capturing debits the
+ * captured part through the ledger and releasing or expiring gives the reservation back. Expiry
+ * deadlines of the holds this instance places are tracked on a {@link HoldExpiryWheel}; a slow database
+ * sweep expires everything else, i.e. holds placed by other instances or before this one restarted.
+ * The wheel is not rebuilt from the table on startup, since that would load every active hold in the
+ * cluster onto every instance.
+ */
+@Slf4j
+@Service
+public class HoldService {
+
+    // Locked in id order, skipping holds another transaction is capturing, releasing or expiring, so the wheel
+    // and sweeps on several instances never wait on each other or deadlock with capture and release
+    private static final String LOCK_EXPIRING_HOLDS_SQL = "SELECT id FROM account_holds " +
+            "WHERE id = ANY (?) AND status = 'ACTIVE' ORDER BY id FOR UPDATE SKIP LOCKED";
+
+    private static final String EXPIRE_HOLDS_SQL = "UPDATE account_holds SET status = 'EXPIRED', resolved_at = now() " +
+            "WHERE id = ANY (?) RETURNING account_id, amount";
+
+    @Autowired
+    private AccountHoldRepository accountHoldRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private BalanceSlotService balanceSlotService;
+
+    @Autowired
+    private HoldExpiryWheel holdExpiryWheel;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.holds.default-ttl-seconds:604800}")
+    private long defaultTtlSeconds;
+
+    @Value("${app.holds.max-ttl-seconds:2592000}")
+    private long maxTtlSeconds;
+
+    @Value("${app.holds.sweep-batch-size:500}")
+    private int sweepBatchSize;
+
+    @Transactional
+    public HoldDto placeHold(Long userId, Long accountId, PlaceHoldDto holdDto) {
+        Account account = accountRepository.findByUserIdAndId(userId, accountId)
+                .orElseThrow(() -> new ResourceNotFoundException("Account not found"));
+
+        if (holdDto.getReference() != null) {
+            Optional<AccountHold> existing = accountHoldRepository.findByReference(holdDto.getReference());
+            if (existing.isPresent()) {
+                if (!existing.get().getAccountId().equals(accountId)) {
+                    throw new HoldStateException("Hold reference " + holdDto.getReference() + " is already in use");
+                }
+                return HoldDto.fromHold(existing.get());
+            }
+        }
+
+        long ttlSeconds = Math.min(holdDto.getExpiresInSeconds() != null ? holdDto.getExpiresInSeconds() : defaultTtlSeconds,
+                maxTtlSeconds);
+
+        if (accountRepository.reserveFunds(accountId, holdDto.getAmount()) == 0) {
+            // Holds only reserve funds in the accounts row, so a hot account first gathers its slots there
+            if (!Boolean.TRUE.equals(account.getHot())) {
+                throw new InsufficientFundsException("Insufficient available funds for hold");
+            }
+            balanceSlotService.foldSlots(accountId);
+            if (accountRepository.reserveFunds(accountId, holdDto.getAmount()) == 0) {
+                throw new InsufficientFundsException("Insufficient available funds for hold");
+            }
+        }
+
+        AccountHold hold = new AccountHold();
+        hold.setAccountId(accountId);
+        hold.setAmount(holdDto.getAmount());
+        hold.setReference(holdDto.getReference());
+        hold.setExpiresAt(LocalDateTime.now().plusSeconds(ttlSeconds));
+        AccountHold savedHold = accountHoldRepository.save(hold);
+
+        // Scheduling ahead of the commit is harmless: expiry only touches holds that are still ACTIVE
+        holdExpiryWheel.schedule(savedHold.getId(), savedHold.getExpiresAt());
+        return HoldDto.fromHold(savedHold);
+    }
+
+    // Debits the captured amount and releases the whole reservation; a partial capture gives back the rest
+    @Transactional
+    public HoldDto captureHold(Long userId, Long holdId, BigDecimal amount) {
+        AccountHold hold = lockActiveHold(userId, holdId);
+        BigDecimal captured = amount != null ? amount : hold.getAmount();
+        if (captured.compareTo(hold.getAmount()) > 0) {
+            throw new HoldStateException("Cannot capture more than the held amount of " + hold.getAmount());
+        }
+
+        // Release first so the debit's funds guard counts the held money as available again
+        accountRepository.releaseFunds(hold.getAccountId(), hold.getAmount());
+        ledgerService.post(JournalEntryType.HOLD_CAPTURE, "hold:" + hold.getId(), "Capture of hold " + hold.getId(), List.of(
+                JournalPosting.debit(LedgerAccount.CUSTOMER, hold.getAccountId(), captured),
+                JournalPosting.credit(LedgerAccount.CASH_SETTLEMENT, null, captured)));
+
+        hold.setCapturedAmount(captured);
+        return resolve(hold, HoldStatus.CAPTURED);
+    }
+
+    @Transactional
+    public HoldDto releaseHold(Long userId, Long holdId) {
+        AccountHold hold = lockActiveHold(userId, holdId);
+        accountRepository.releaseFunds(hold.getAccountId(), hold.getAmount());
+        return resolve(hold, HoldStatus.RELEASED);
+    }
+
+    public List<HoldDto> getActiveHolds(Long userId, Long accountId) {
+        if (!accountRepository.existsByUserIdAndId(userId, accountId)) {
+            throw new ResourceNotFoundException("Account not found");
+        }
+        return accountHoldRepository.findByAccountIdAndStatusOrderByExpiresAt(accountId, HoldStatus.ACTIVE).stream()
+                .map(HoldDto::fromHold)
+                .collect(Collectors.toList());
+    }
+
+    @Scheduled(fixedRateString = "${app.holds.wheel-tick-ms:1000}")
+    public void expireDueHolds() {
+        List<Long> due = holdExpiryWheel.advance(System.currentTimeMillis());
+        for (int from = 0; from < due.size(); from += sweepBatchSize) {
+            List<Long> chunk = due.subList(from, Math.min(from + sweepBatchSize, due.size()));
+            try {
+                expireHolds(chunk);
+            } catch (Exception e) {
+                // Still ACTIVE in the database, so the sweep retries them
+                log.error("Error expiring {} holds: {}", chunk.size(), e.getMessage(), e);
+            }
+        }
+    }
+
+    // Backstop for holds placed by other instances or before this one restarted
+    @Scheduled(fixedDelayString = "${app.holds.sweep-interval-ms:300000}")
+    public void sweepExpiredHolds() {
+        try {
+            List<Long> expired;
+            int locked;
+            do {
+                expired = accountHoldRepository.findExpiredActiveIds(LocalDateTime.now(), Limit.of(sweepBatchSize));
+                locked = expired.isEmpty() ? 0 : expireHolds(expired);
+                // Holds locked elsewhere are still ACTIVE and would be found again, so stop once a pass expires none
+            } while (expired.size() == sweepBatchSize && locked > 0);
+        } catch (Exception e) {
+            log.error("Error sweeping expired holds: {}", e.getMessage(), e);
+        }
+    }
+
+    // Returns how many of the holds were expired; those already resolved or locked elsewhere are skipped
+    private int expireHolds(List<Long> holdIds) {
+        return transactionTemplate.execute(status -> {
+            List<Long> locked = jdbcTemplate.query(connection -> {
+                PreparedStatement ps = connection.prepareStatement(LOCK_EXPIRING_HOLDS_SQL);
+                ps.setArray(1, connection.createArrayOf("bigint", holdIds.toArray()));
+                return ps;
+            }, (rs, rowNum) -> rs.getLong(1));
+            if (locked.isEmpty()) {
+                return 0;
+            }
+
+            Map<Long, BigDecimal> released = new TreeMap<>();
+            jdbcTemplate.query(connection -> {
+                PreparedStatement ps = connection.prepareStatement(EXPIRE_HOLDS_SQL);
+                ps.setArray(1, connection.createArrayOf("bigint", locked.toArray()));
+                return ps;
+            }, rs -> {
+                released.merge(rs.getLong(1), rs.getBigDecimal(2), BigDecimal::add);
+            });
+            // One update per account, lowest id first
+            released.forEach(accountRepository::releaseFunds);
+            log.info("Expired {} holds on {} accounts", locked.size(), released.size());
+            return locked.size();
+        });
+    }
+
+    private AccountHold lockActiveHold(Long userId, Long holdId) {
+        AccountHold hold = accountHoldRepository.lockById(holdId)
+                .filter(h -> accountRepository.existsByUserIdAndId(userId, h.getAccountId()))
+                .orElseThrow(() -> new ResourceNotFoundException("Hold not found"));
+        if (hold.getStatus() != HoldStatus.ACTIVE) {
+            throw new HoldStateException("Hold " + holdId + " is already " + hold.getStatus());
+        }
+        return hold;
+    }
+
+    private HoldDto resolve(AccountHold hold, HoldStatus status) {
+        hold.setStatus(status);
+        hold.setResolvedAt(LocalDateTime.now());
+        holdExpiryWheel.cancel(hold.getId());
+        return HoldDto.fromHold(hold);
+    }
+}
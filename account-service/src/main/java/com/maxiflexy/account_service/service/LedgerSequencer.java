@@ -0,0 +1,204 @@
+package com.maxiflexy.account_service.service;
+
+import com.maxiflexy.account_service.enums.JournalEntryType;
+import com.maxiflexy.account_service.enums.LockingMode;
+import com.maxiflexy.account_service.exception.BalanceOutcomeUnknownException;
+import com.maxiflexy.account_service.exception.DuplicateReferenceException;
+import com.maxiflexy.account_service.exception.LedgerBusyException;
+import com.maxiflexy.account_service.model.JournalPosting;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Single-writer front end to the ledger for balance mutations. Each mutation is routed by account id
+ * to a shard owned by one thread, so mutations of an account are applied one after another in arrival
+ * order. A shard drains whatever has queued up and commits it as one group through
+ * {@link LedgerService#postGroup}: a hot account's row is locked and written once per group instead
+ * of once per mutation. A group that loses a race with another shard is retried through
+ * {@link ConcurrencyRetryPolicy}.
+ */
+@Slf4j
+@Service
+public class LedgerSequencer {
+
+    private final LedgerService ledgerService;
+    private final TransactionTemplate transactionTemplate;
+    private final ConcurrencyRetryPolicy retryPolicy;
+    private final LockingMode lockingMode;
+    private final Shard[] shards;
+    private final int maxGroupSize;
+    private final long submitTimeoutMs;
+    private final DistributionSummary groupSizes;
+    private volatile boolean running = true;
+
+    public LedgerSequencer(LedgerService ledgerService,
+                           TransactionTemplate transactionTemplate,
+                           ConcurrencyRetryPolicy retryPolicy,
+                           MeterRegistry meterRegistry,
+                           @Value("${app.ledger.locking-mode:PESSIMISTIC}") LockingMode lockingMode,
+                           @Value("${app.sequencer.shards:4}") int shardCount,
+                           @Value("${app.sequencer.queue-capacity:2000}") int queueCapacity,
+                           @Value("${app.sequencer.max-group-size:200}") int maxGroupSize,
+                           @Value("${app.sequencer.submit-timeout-ms:4000}") long submitTimeoutMs) {
+        this.ledgerService = ledgerService;
+        this.transactionTemplate = transactionTemplate;
+        this.retryPolicy = retryPolicy;
+        this.lockingMode = lockingMode;
+        this.maxGroupSize = maxGroupSize;
+        this.submitTimeoutMs = submitTimeoutMs;
+        this.groupSizes = DistributionSummary.builder("ledger.sequencer.group.size")
+                .description("Mutations committed per group")
+                .register(meterRegistry);
+
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(queueCapacity);
+            shards[i].thread = new Thread(shards[i]::run, "ledger-shard-" + i);
+            shards[i].thread.start();
+        }
+
+        Gauge.builder("ledger.sequencer.queued", this, LedgerSequencer::queuedMutations)
+                .description("Balance mutations waiting for their shard")
+                .register(meterRegistry);
+    }
+
+    // Posts the entry on the shard that owns routingAccountId and waits for its group to commit.
+    // Route by the account the entry may debit, so its funds check sees every earlier mutation.
+    // Must not be called inside a transaction: the caller would hold a connection the shard may need.
+    public LedgerService.PostingResult post(Long routingAccountId, JournalEntryType entryType, String reference,
+                                            String description, List<JournalPosting> postings) {
+        Mutation mutation = new Mutation(new LedgerService.GroupedEntry(entryType, reference, description, postings),
+                new CompletableFuture<>());
+        Shard shard = shards[Math.floorMod(routingAccountId.hashCode(), shards.length)];
+        if (!running || !shard.queue.offer(mutation)) {
+            throw new LedgerBusyException("Too many balance updates are queued for this account. Please try again later.");
+        }
+
+        try {
+            return mutation.result().get(submitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Balance update failed", e.getCause());
+        } catch (TimeoutException e) {
+            // The mutation is still queued or committing, so it may yet apply: the caller has to find out by reference
+            throw new BalanceOutcomeUnknownException("The balance update did not finish in time and may still apply; " +
+                    "check its outcome before retrying");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BalanceOutcomeUnknownException("Interrupted waiting for the balance update, which may still apply; " +
+                    "check its outcome before retrying");
+        }
+    }
+
+    private void commit(List<Mutation> group) {
+        List<LedgerService.GroupedEntry> entries = group.stream().map(Mutation::entry).toList();
+        List<LedgerService.GroupOutcome> outcomes;
+        try {
+            // Each attempt is its own transaction. In optimistic mode the last attempt locks instead,
+            // so a group that keeps losing races on a busy account still gets through.
+            outcomes = retryPolicy.execute("group-commit", attempt -> transactionTemplate.execute(status ->
+                    ledgerService.postGroup(entries, attempt < retryPolicy.maxAttempts() ? lockingMode : LockingMode.PESSIMISTIC)));
+        } catch (Exception e) {
+            if (group.size() == 1) {
+                Mutation mutation = group.get(0);
+                // A reference committed by another shard after postGroup checked for it
+                if (e instanceof DataIntegrityViolationException && mutation.entry().reference() != null) {
+                    mutation.result().completeExceptionally(new DuplicateReferenceException(
+                            "Reference " + mutation.entry().reference() + " has already been posted"));
+                } else {
+                    mutation.result().completeExceptionally(e);
+                }
+                return;
+            }
+            // Something only one entry can cause (a reference racing in from another shard, say) fails the
+            // whole group, so fall back to committing the entries one by one to confine the failure to that entry
+            log.warn("Group commit of {} mutations failed, retrying them singly: {}", group.size(), e.getMessage());
+            for (Mutation mutation : group) {
+                commit(List.of(mutation));
+            }
+            return;
+        }
+
+        groupSizes.record(group.size());
+        for (int i = 0; i < group.size(); i++) {
+            LedgerService.GroupOutcome outcome = outcomes.get(i);
+            if (outcome.rejection() != null) {
+                group.get(i).result().completeExceptionally(outcome.rejection());
+            } else {
+                group.get(i).result().complete(outcome.result());
+            }
+        }
+    }
+
+    private double queuedMutations() {
+        int queued = 0;
+        for (Shard shard : shards) {
+            queued += shard.queue.size();
+        }
+        return queued;
+    }
+
+    // Stops taking new mutations and lets every shard commit what it already holds
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        for (Shard shard : shards) {
+            shard.thread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    private record Mutation(LedgerService.GroupedEntry entry, CompletableFuture<LedgerService.PostingResult> result) {
+    }
+
+    private class Shard {
+        private final BlockingQueue<Mutation> queue;
+        private Thread thread;
+
+        Shard(int queueCapacity) {
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        }
+
+        void run() {
+            List<Mutation> group = new ArrayList<>(maxGroupSize);
+            while (running || !queue.isEmpty()) {
+                try {
+                    Mutation first = queue.poll(100, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    group.add(first);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                queue.drainTo(group, maxGroupSize - 1);
+                try {
+                    commit(group);
+                } catch (Exception e) {
+                    // Never let one group take the shard thread down
+                    log.error("Unexpected error committing a ledger group: {}", e.getMessage(), e);
+                    group.forEach(mutation -> mutation.result().completeExceptionally(e));
+                }
+                group.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,537 @@
+package com.maxiflexy.account_service.service;
+
+import com.maxiflexy.account_service.enums.JournalEntryType;
+import com.maxiflexy.account_service.enums.LedgerAccount;
+import com.maxiflexy.account_service.enums.LockingMode;
+import com.maxiflexy.account_service.exception.DuplicateReferenceException;
+import com.maxiflexy.account_service.exception.InsufficientFundsException;
+import com.maxiflexy.account_service.exception.ResourceNotFoundException;
+import com.maxiflexy.account_service.model.JournalEntry;
+import com.maxiflexy.account_service.model.JournalPosting;
+import com.maxiflexy.account_service.repository.AccountRepository;
+import com.maxiflexy.account_service.repository.JournalEntryRepository;
+import com.maxiflexy.account_service.repository.JournalPostingRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+@Slf4j
+@Service
+public class LedgerService {
+
+    private static final String INSERT_POSTING_SQL = "INSERT INTO journal_postings " +
+            "(entry_id, ledger_account, account_id, direction, amount, balance_after, created_at) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    // Moves the balance projection by a signed delta, refusing to take it below the funds held for pending payments
+    private static final String APPLY_DELTA_SQL = "UPDATE accounts SET balance = balance + ?, version = version + 1, updated_at = now() " +
+            "WHERE id = ? AND balance + ? >= held_amount RETURNING balance";
+
+    private static final String LOCK_ACCOUNTS_SQL =
+            "SELECT id FROM accounts WHERE id = ANY (?) ORDER BY id FOR UPDATE";
+
+    private static final String APPLY_CREDITS_SQL = "UPDATE accounts a SET balance = a.balance + c.amount, version = a.version + 1, updated_at = now() " +
+            "FROM unnest(?::bigint[], ?::numeric[]) AS c(id, amount) WHERE a.id = c.id RETURNING a.id, a.balance";
+
+    private static final String READ_HELD_AMOUNTS_SQL = "SELECT id, held_amount FROM accounts WHERE id = ANY (?)";
+
+    private static final String READ_BALANCES_SQL =
+            "SELECT id, balance, held_amount, version FROM accounts WHERE id = ANY (?) ORDER BY id";
+
+    // Writes a balance only over the version it was computed from; under pessimistic locking that always holds
+    private static final String SET_BALANCES_SQL = "UPDATE accounts a SET balance = c.balance, version = a.version + 1, updated_at = now() " +
+            "FROM unnest(?::bigint[], ?::numeric[], ?::bigint[]) AS c(id, balance, version) WHERE a.id = c.id AND a.version = c.version";
+
+    private static final String NEXT_ENTRY_IDS_SQL =
+            "SELECT nextval(pg_get_serial_sequence('journal_entries', 'id')) FROM generate_series(1, ?)";
+
+    private static final String INSERT_ENTRY_SQL =
+            "INSERT INTO journal_entries (id, entry_type, reference, description, created_at) VALUES (?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JournalEntryRepository journalEntryRepository;
+
+    @Autowired
+    private JournalPostingRepository journalPostingRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BalanceSlotService balanceSlotService;
+
+    @Value("${app.ledger.bulk-chunk-size:500}")
+    private int bulkChunkSize;
+
+    // The resulting balance of every customer account the entry touched, and the funds held on it at that point
+    public record PostingResult(Long entryId, Map<Long, BigDecimal> balances, Map<Long, BigDecimal> heldAmounts) {
+    }
+
+    public record GroupedEntry(JournalEntryType entryType, String reference, String description, List<JournalPosting> postings) {
+    }
+
+    // Exactly one of result and rejection is set
+    public record GroupOutcome(PostingResult result, RuntimeException rejection) {
+    }
+
+    // Appends one balanced journal entry and moves the balance projection of every customer account
+    // it touches, all in the caller's transaction. Callers are responsible for ownership checks.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public PostingResult post(JournalEntryType entryType, String reference, String description, List<JournalPosting> postings) {
+        verifyBalanced(postings);
+
+        // The deltas are ordered by account id, which fixes the lock order; hot accounts' slot rows come after every account row
+        Map<Long, BigDecimal> balances = new HashMap<>();
+        Map<Long, BigDecimal> deltas = netCustomerDeltas(postings);
+        Set<Long> hot = balanceSlotService.hotAmong(deltas.keySet());
+        Set<Long> rowDebits = routeHotDebits(deltas, hot);
+        for (Map.Entry<Long, BigDecimal> delta : deltas.entrySet()) {
+            if (!hot.contains(delta.getKey())) {
+                balances.put(delta.getKey(), applyGuardedDelta(delta.getKey(), delta.getValue()));
+            }
+        }
+        for (Long accountId : hot) {
+            applyHotDelta(accountId, deltas.get(accountId));
+            balances.put(accountId, balanceSlotService.totalBalance(accountId));
+        }
+        addSlotBalances(balances, rowDebits);
+
+        Long entryId = appendEntry(entryType, reference, description, postings, balances);
+        return new PostingResult(entryId, balances, readHeldAmounts(balances.keySet()));
+    }
+
+    // Same as post, for entries that touch many accounts such as batch transfers. Every account is
+    // locked up front in id order, debits keep the per-row funds guard and credits are applied
+    // set-based, one statement per chunk. Returns the resulting balance of every account touched.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public PostingResult postBulk(JournalEntryType entryType, String reference, String description, List<JournalPosting> postings) {
+        verifyBalanced(postings);
+
+        Map<Long, BigDecimal> deltas = netCustomerDeltas(postings);
+        Set<Long> hot = balanceSlotService.hotAmong(deltas.keySet());
+        Set<Long> rowDebits = routeHotDebits(deltas, hot);
+        List<Long> accountIds = deltas.keySet().stream().filter(id -> !hot.contains(id)).toList();
+        for (int from = 0; from < accountIds.size(); from += bulkChunkSize) {
+            List<Long> chunk = accountIds.subList(from, Math.min(from + bulkChunkSize, accountIds.size()));
+            int locked = lockAccounts(chunk);
+            if (locked != chunk.size()) {
+                throw new ResourceNotFoundException("One or more accounts in the entry were not found");
+            }
+        }
+
+        Map<Long, BigDecimal> balances = new HashMap<>();
+        List<Long> creditIds = new ArrayList<>();
+        for (Map.Entry<Long, BigDecimal> delta : deltas.entrySet()) {
+            if (hot.contains(delta.getKey())) {
+                continue;
+            }
+            if (delta.getValue().signum() < 0) {
+                balances.put(delta.getKey(), applyGuardedDelta(delta.getKey(), delta.getValue()));
+            } else {
+                creditIds.add(delta.getKey());
+            }
+        }
+        for (int from = 0; from < creditIds.size(); from += bulkChunkSize) {
+            List<Long> chunk = creditIds.subList(from, Math.min(from + bulkChunkSize, creditIds.size()));
+            BigDecimal[] amounts = chunk.stream().map(deltas::get).toArray(BigDecimal[]::new);
+            balances.putAll(applyCredits(chunk, amounts));
+        }
+        balances.putAll(applyHotDeltas(deltas, hot));
+        addSlotBalances(balances, rowDebits);
+
+        Long entryId = appendEntry(entryType, reference, description, postings, balances);
+        return new PostingResult(entryId, balances, readHeldAmounts(balances.keySet()));
+    }
+
+    // Group commit for the sequencer: applies the entries in order against balances read once, then writes
+    // each touched balance once and all entries and postings as JDBC batches. An entry that would overdraw
+    // or names a missing account is rejected on its own; the rest of the group still posts.
+    // PESSIMISTIC locks the rows as it reads them, lowest id first. OPTIMISTIC reads without locks and
+    // throws OptimisticLockingFailureException if any row was written in between; the caller retries.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<GroupOutcome> postGroup(List<GroupedEntry> group, LockingMode lockingMode) {
+        Set<Long> accountIds = new TreeSet<>();
+        for (GroupedEntry entry : group) {
+            accountIds.addAll(netCustomerDeltas(entry.postings()).keySet());
+        }
+        // Hot accounts are not read or locked here; their slots are written entry by entry below. A hot account
+        // with a debit no single slot covers is handled like any other row for the whole group.
+        Set<Long> hot = balanceSlotService.hotAmong(accountIds);
+        Map<Long, BigDecimal> hotDebits = new HashMap<>();
+        for (GroupedEntry entry : group) {
+            netCustomerDeltas(entry.postings()).forEach((accountId, delta) -> {
+                if (hot.contains(accountId) && delta.signum() < 0) {
+                    hotDebits.merge(accountId, delta.negate(), BigDecimal::max);
+                }
+            });
+        }
+        Set<Long> rowDebits = balanceSlotService.uncoveredDebits(hotDebits);
+        hot.removeAll(rowDebits);
+        accountIds.removeAll(hot);
+        Map<Long, BigDecimal> slotBalances = new HashMap<>();
+        for (Long accountId : rowDebits) {
+            slotBalances.put(accountId, balanceSlotService.slotBalance(accountId));
+        }
+        Map<Long, BigDecimal> balances = new HashMap<>();
+        Map<Long, BigDecimal> held = new HashMap<>();
+        Map<Long, Long> versions = new HashMap<>();
+        List<Long> orderedIds = new ArrayList<>(accountIds);
+        for (int from = 0; from < orderedIds.size(); from += bulkChunkSize) {
+            readBalances(orderedIds.subList(from, Math.min(from + bulkChunkSize, orderedIds.size())),
+                    lockingMode, balances, held, versions);
+        }
+
+        // References already in the journal, plus those of entries accepted earlier in this group
+        Set<String> usedReferences = new HashSet<>();
+        List<String> references = group.stream().map(GroupedEntry::reference).filter(Objects::nonNull).toList();
+        if (!references.isEmpty()) {
+            usedReferences.addAll(journalEntryRepository.findExistingReferences(references));
+        }
+
+        GroupOutcome[] outcomes = new GroupOutcome[group.size()];
+        List<Integer> accepted = new ArrayList<>();
+        List<Map<Long, BigDecimal>> acceptedBalances = new ArrayList<>();
+        Set<Long> changed = new TreeSet<>();
+        for (int i = 0; i < group.size(); i++) {
+            GroupedEntry entry = group.get(i);
+            Map<Long, BigDecimal> after = new HashMap<>();
+            Map<Long, BigDecimal> hotBalances = Map.of();
+            RuntimeException rejection = null;
+            try {
+                // Rejected here rather than by the unique constraint, which would fail the whole group
+                if (entry.reference() != null && usedReferences.contains(entry.reference())) {
+                    throw new DuplicateReferenceException("Reference " + entry.reference() + " has already been posted");
+                }
+                verifyBalanced(entry.postings());
+                Map<Long, BigDecimal> deltas = netCustomerDeltas(entry.postings());
+                for (Map.Entry<Long, BigDecimal> delta : deltas.entrySet()) {
+                    if (hot.contains(delta.getKey())) {
+                        continue;
+                    }
+                    BigDecimal current = balances.get(delta.getKey());
+                    if (current == null) {
+                        throw new ResourceNotFoundException("Account not found with ID: " + delta.getKey());
+                    }
+                    BigDecimal next = current.add(delta.getValue());
+                    if (next.compareTo(held.get(delta.getKey())) < 0) {
+                        throw new InsufficientFundsException("Insufficient funds");
+                    }
+                    after.put(delta.getKey(), next);
+                }
+                // Only once the other accounts check out, so a rejected entry leaves no slot writes behind.
+                // Slots are written in entry order, after every row; a slot deadlock between groups is retried.
+                hotBalances = applyHotDeltas(deltas, hot);
+            } catch (RuntimeException e) {
+                rejection = e;
+            }
+            if (rejection != null) {
+                outcomes[i] = new GroupOutcome(null, rejection);
+                continue;
+            }
+            if (entry.reference() != null) {
+                usedReferences.add(entry.reference());
+            }
+            balances.putAll(after);
+            changed.addAll(after.keySet());
+            // Reported balances of row-debited hot accounts include their slots
+            slotBalances.forEach((accountId, slotBalance) -> after.computeIfPresent(accountId, (id, row) -> row.add(slotBalance)));
+            after.putAll(hotBalances);
+            accepted.add(i);
+            acceptedBalances.add(after);
+        }
+
+        if (!accepted.isEmpty()) {
+            writeBalances(changed, balances, versions);
+            List<Long> entryIds = appendEntries(group, accepted, acceptedBalances);
+            // Rows were read under their lock or version check above; hot accounts' rows were not read at all
+            Set<Long> unread = new TreeSet<>();
+            acceptedBalances.forEach(after -> after.keySet().stream().filter(id -> !held.containsKey(id)).forEach(unread::add));
+            if (!unread.isEmpty()) {
+                held.putAll(readHeldAmounts(unread));
+            }
+            for (int n = 0; n < accepted.size(); n++) {
+                Map<Long, BigDecimal> after = acceptedBalances.get(n);
+                Map<Long, BigDecimal> entryHeld = new HashMap<>();
+                after.keySet().forEach(id -> entryHeld.put(id, held.get(id)));
+                outcomes[accepted.get(n)] = new GroupOutcome(new PostingResult(entryIds.get(n), after, entryHeld), null);
+            }
+        }
+        return Arrays.asList(outcomes);
+    }
+
+    // Nightly check that the balance projection still matches the journal
+    @Scheduled(cron = "${app.ledger.reconciliation-cron:0 30 1 * * *}")
+    public void reconcileBalances() {
+        try {
+            List<Long> mismatched = journalPostingRepository.findAccountsOutOfBalance();
+            if (mismatched.isEmpty()) {
+                log.info("Ledger reconciliation passed at {}", LocalDateTime.now());
+            } else {
+                log.error("Ledger reconciliation found {} accounts whose balance differs from the journal: {}",
+                        mismatched.size(), mismatched);
+            }
+        } catch (Exception e) {
+            log.error("Error reconciling ledger: {}", e.getMessage(), e);
+        }
+    }
+
+    // Net the postings per customer account, ordered by account id
+    private Map<Long, BigDecimal> netCustomerDeltas(List<JournalPosting> postings) {
+        Map<Long, BigDecimal> deltas = new TreeMap<>();
+        for (JournalPosting posting : postings) {
+            if (posting.getLedgerAccount() == LedgerAccount.CUSTOMER) {
+                deltas.merge(posting.getAccountId(), posting.signedAmount(), BigDecimal::add);
+            }
+        }
+        return deltas;
+    }
+
+    // Plain JDBC rather than an entity query: Hibernate would hand back an already loaded Account with its old balance
+    private BigDecimal applyGuardedDelta(Long accountId, BigDecimal delta) {
+        List<BigDecimal> balance = jdbcTemplate.queryForList(APPLY_DELTA_SQL, BigDecimal.class, delta, accountId, delta);
+        if (!balance.isEmpty()) {
+            return balance.get(0);
+        }
+        // The guarded update matched nothing, so only now check which condition failed
+        if (delta.signum() < 0 && accountRepository.existsById(accountId)) {
+            throw new InsufficientFundsException("Insufficient funds");
+        }
+        throw new ResourceNotFoundException("Account not found with ID: " + accountId);
+    }
+
+    // Takes out of hot the accounts whose debit no single slot covers and returns them: their debit goes
+    // against the accounts row, which is then locked in id order along with the other rows
+    private Set<Long> routeHotDebits(Map<Long, BigDecimal> deltas, Set<Long> hot) {
+        Map<Long, BigDecimal> debits = new HashMap<>();
+        for (Long accountId : hot) {
+            if (deltas.get(accountId).signum() < 0) {
+                debits.put(accountId, deltas.get(accountId).negate());
+            }
+        }
+        Set<Long> rowDebits = balanceSlotService.uncoveredDebits(debits);
+        hot.removeAll(rowDebits);
+        return rowDebits;
+    }
+
+    // A row-debited hot account's balance is its row plus its slots
+    private void addSlotBalances(Map<Long, BigDecimal> balances, Set<Long> rowDebits) {
+        for (Long accountId : rowDebits) {
+            balances.computeIfPresent(accountId, (id, row) -> row.add(balanceSlotService.slotBalance(id)));
+        }
+    }
+
+    // Hot accounts take their deltas in their slot rows, in account id order after every accounts row.
+    // A failing debit undoes the ones already applied, so the entry can be rejected without rolling back the transaction.
+    private Map<Long, BigDecimal> applyHotDeltas(Map<Long, BigDecimal> deltas, Set<Long> hot) {
+        List<Long> ordered = hot.stream()
+                .filter(deltas::containsKey)
+                .sorted()
+                .toList();
+        List<Long> applied = new ArrayList<>();
+        try {
+            for (Long accountId : ordered) {
+                applyHotDelta(accountId, deltas.get(accountId));
+                applied.add(accountId);
+            }
+        } catch (RuntimeException e) {
+            for (Long accountId : applied) {
+                applyHotDelta(accountId, deltas.get(accountId).negate());
+            }
+            throw e;
+        }
+
+        Map<Long, BigDecimal> balances = new HashMap<>();
+        for (Long accountId : applied) {
+            balances.put(accountId, balanceSlotService.totalBalance(accountId));
+        }
+        return balances;
+    }
+
+    private void applyHotDelta(Long accountId, BigDecimal delta) {
+        if (delta.signum() > 0) {
+            if (!balanceSlotService.credit(accountId, delta)) {
+                // No slots any more: the account has just left hot mode
+                applyGuardedDelta(accountId, delta);
+            }
+        } else if (delta.signum() < 0 && !balanceSlotService.debit(accountId, delta.negate())) {
+            if (!accountRepository.existsById(accountId)) {
+                throw new ResourceNotFoundException("Account not found with ID: " + accountId);
+            }
+            throw new InsufficientFundsException("Insufficient funds");
+        }
+    }
+
+    private int lockAccounts(List<Long> accountIds) {
+        return jdbcTemplate.execute((Connection connection) -> {
+            try (PreparedStatement ps = connection.prepareStatement(LOCK_ACCOUNTS_SQL)) {
+                ps.setArray(1, connection.createArrayOf("bigint", accountIds.toArray()));
+                int locked = 0;
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        locked++;
+                    }
+                }
+                return locked;
+            }
+        });
+    }
+
+    private Map<Long, BigDecimal> applyCredits(List<Long> accountIds, BigDecimal[] amounts) {
+        return jdbcTemplate.execute((Connection connection) -> {
+            try (PreparedStatement ps = connection.prepareStatement(APPLY_CREDITS_SQL)) {
+                ps.setArray(1, connection.createArrayOf("bigint", accountIds.toArray()));
+                ps.setArray(2, connection.createArrayOf("numeric", amounts));
+                Map<Long, BigDecimal> balances = new HashMap<>();
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        balances.put(rs.getLong(1), rs.getBigDecimal(2));
+                    }
+                }
+                return balances;
+            }
+        });
+    }
+
+    // Held amounts as this transaction sees them. The rows it has written stay locked, so they are still current.
+    private Map<Long, BigDecimal> readHeldAmounts(Collection<Long> accountIds) {
+        Map<Long, BigDecimal> held = new HashMap<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(READ_HELD_AMOUNTS_SQL);
+            ps.setArray(1, connection.createArrayOf("bigint", accountIds.toArray()));
+            return ps;
+        }, rs -> {
+            held.put(rs.getLong(1), rs.getBigDecimal(2));
+        });
+        return held;
+    }
+
+    // Fills in the balance, held amount and version of each account. Under PESSIMISTIC the rows stay
+    // locked until the transaction ends, taken in id order so concurrent groups cannot deadlock.
+    private void readBalances(List<Long> accountIds, LockingMode lockingMode, Map<Long, BigDecimal> balances,
+                              Map<Long, BigDecimal> held, Map<Long, Long> versions) {
+        String sql = lockingMode == LockingMode.PESSIMISTIC ? READ_BALANCES_SQL + " FOR UPDATE" : READ_BALANCES_SQL;
+        jdbcTemplate.execute((Connection connection) -> {
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                ps.setArray(1, connection.createArrayOf("bigint", accountIds.toArray()));
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        balances.put(rs.getLong(1), rs.getBigDecimal(2));
+                        held.put(rs.getLong(1), rs.getBigDecimal(3));
+                        versions.put(rs.getLong(1), rs.getLong(4));
+                    }
+                }
+                return null;
+            }
+        });
+    }
+
+    private void writeBalances(Set<Long> accountIds, Map<Long, BigDecimal> balances, Map<Long, Long> versions) {
+        List<Long> ids = new ArrayList<>(accountIds);
+        for (int from = 0; from < ids.size(); from += bulkChunkSize) {
+            List<Long> chunk = ids.subList(from, Math.min(from + bulkChunkSize, ids.size()));
+            BigDecimal[] values = chunk.stream().map(balances::get).toArray(BigDecimal[]::new);
+            Long[] expectedVersions = chunk.stream().map(versions::get).toArray(Long[]::new);
+            int written = jdbcTemplate.execute((Connection connection) -> {
+                try (PreparedStatement ps = connection.prepareStatement(SET_BALANCES_SQL)) {
+                    ps.setArray(1, connection.createArrayOf("bigint", chunk.toArray()));
+                    ps.setArray(2, connection.createArrayOf("numeric", values));
+                    ps.setArray(3, connection.createArrayOf("bigint", expectedVersions));
+                    return ps.executeUpdate();
+                }
+            });
+            if (written != chunk.size()) {
+                // Rolls back the whole group, including rows already written
+                throw new OptimisticLockingFailureException((chunk.size() - written) + " account balances changed during group commit");
+            }
+        }
+    }
+
+    // Entry ids are drawn from the identity sequence up front so entries and postings can both go out as batches
+    private List<Long> appendEntries(List<GroupedEntry> group, List<Integer> accepted, List<Map<Long, BigDecimal>> acceptedBalances) {
+        List<Long> entryIds = jdbcTemplate.queryForList(NEXT_ENTRY_IDS_SQL, Long.class, accepted.size());
+        Timestamp createdAt = Timestamp.valueOf(LocalDateTime.now());
+
+        List<Object[]> entryRows = new ArrayList<>(accepted.size());
+        List<Object[]> postingRows = new ArrayList<>();
+        for (int n = 0; n < accepted.size(); n++) {
+            GroupedEntry entry = group.get(accepted.get(n));
+            Long entryId = entryIds.get(n);
+            entryRows.add(new Object[]{entryId, entry.entryType().name(), entry.reference(), entry.description(), createdAt});
+            for (JournalPosting posting : entry.postings()) {
+                BigDecimal balanceAfter = posting.getAccountId() == null ? null : acceptedBalances.get(n).get(posting.getAccountId());
+                postingRows.add(new Object[]{entryId, posting.getLedgerAccount().name(), posting.getAccountId(),
+                        posting.getDirection().name(), posting.getAmount(), balanceAfter, createdAt});
+            }
+        }
+        jdbcTemplate.batchUpdate(INSERT_ENTRY_SQL, entryRows);
+        jdbcTemplate.batchUpdate(INSERT_POSTING_SQL, postingRows);
+        return entryIds;
+    }
+
+    private Long appendEntry(JournalEntryType entryType, String reference, String description,
+                             List<JournalPosting> postings, Map<Long, BigDecimal> balances) {
+        JournalEntry entry = new JournalEntry();
+        entry.setEntryType(entryType);
+        entry.setReference(reference);
+        entry.setDescription(description);
+        JournalEntry savedEntry = journalEntryRepository.save(entry);
+
+        // All postings of the entry go to the database as one batch
+        Timestamp createdAt = Timestamp.valueOf(savedEntry.getCreatedAt());
+        jdbcTemplate.batchUpdate(INSERT_POSTING_SQL, postings, postings.size(), (ps, posting) -> {
+            ps.setLong(1, savedEntry.getId());
+            ps.setString(2, posting.getLedgerAccount().name());
+            ps.setObject(3, posting.getAccountId());
+            ps.setString(4, posting.getDirection().name());
+            ps.setBigDecimal(5, posting.getAmount());
+            ps.setBigDecimal(6, posting.getAccountId() == null ? null : balances.get(posting.getAccountId()));
+            ps.setTimestamp(7, createdAt);
+        });
+        return savedEntry.getId();
+    }
+
+    private void verifyBalanced(List<JournalPosting> postings) {
+        if (postings.size() < 2) {
+            throw new IllegalArgumentException("A journal entry needs at least two postings");
+        }
+        BigDecimal net = BigDecimal.ZERO;
+        for (JournalPosting posting : postings) {
+            if (posting.getAmount() == null || posting.getAmount().signum() <= 0) {
+                throw new IllegalArgumentException("Posting amounts must be positive");
+            }
+            if ((posting.getLedgerAccount() == LedgerAccount.CUSTOMER) != (posting.getAccountId() != null)) {
+                throw new IllegalArgumentException("Only customer postings carry an account id");
+            }
+            net = net.add(posting.signedAmount());
+        }
+        if (net.signum() != 0) {
+            throw new IllegalArgumentException("Journal entry is not balanced: debits and credits differ by " + net.abs());
+        }
+    }
+}
@@ -1,41 +1,102 @@
 package com.maxiflexy.account_service.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.maxiflexy.account_service.exception.UserDirectoryUnavailableException;
+import com.maxiflexy.account_service.repository.KnownUserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
-import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+
+/**
+ * Answers whether a user exists without depending on auth-service being up. The known_users replica,
+ * fed by auth-service's user-created events, answers for almost every user; only users whose event
+ * has not arrived yet fall back to asking auth-service over HTTP. Answers are cached briefly, a
+ * "no" for much less time than a "yes" since a user may register a moment later.
+ */
 @Service
 public class UserValidationService {
 
     private static final Logger logger = LoggerFactory.getLogger(UserValidationService.class);
 
+    private final KnownUserRepository knownUserRepository;
+    private final WebClient authServiceClient;
+    private final Duration fallbackTimeout;
+    private final Cache<Long, Boolean> knownUsers;
+    private final Cache<Long, Boolean> unknownUsers;
+
     @Autowired
-    private WebClient.Builder webClientBuilder;
+    public UserValidationService(KnownUserRepository knownUserRepository,
+                                 WebClient.Builder webClientBuilder,
+                                 @Value("${app.user-directory.fallback-timeout-ms:2000}") long fallbackTimeoutMs,
+                                 @Value("${app.user-directory.positive-ttl-seconds:600}") long positiveTtlSeconds,
+                                 @Value("${app.user-directory.negative-ttl-seconds:30}") long negativeTtlSeconds,
+                                 @Value("${app.user-directory.cache-max-size:100000}") long cacheMaxSize) {
+        this.knownUserRepository = knownUserRepository;
+        this.authServiceClient = webClientBuilder.clone().baseUrl("lb://auth-service").build();
+        this.fallbackTimeout = Duration.ofMillis(fallbackTimeoutMs);
+        this.knownUsers = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(positiveTtlSeconds))
+                .build();
+        this.unknownUsers = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(negativeTtlSeconds))
+                .build();
+    }
 
+    // Throws UserDirectoryUnavailableException when the answer depends on auth-service and it cannot give one
     public boolean validateUserExists(Long userId) {
+        if (knownUsers.getIfPresent(userId) != null) {
+            return true;
+        }
+        if (knownUserRepository.existsById(userId)) {
+            knownUsers.put(userId, Boolean.TRUE);
+            return true;
+        }
+        if (unknownUsers.getIfPresent(userId) != null) {
+            return false;
+        }
+
+        boolean exists = askAuthService(userId);
+        if (exists) {
+            // Saves the next lookup of this user, and any instance's, the round trip
+            knownUserRepository.record(userId);
+            knownUsers.put(userId, Boolean.TRUE);
+        } else {
+            unknownUsers.put(userId, Boolean.TRUE);
+        }
+        return exists;
+    }
+
+    private boolean askAuthService(Long userId) {
+        HttpStatusCode status;
         try {
-            return Boolean.TRUE.equals(webClientBuilder.build()
-                    .get()
-                    .uri("lb://auth-service/api/auth/user/{userId}", userId)
-                    .retrieve()
-                    .onStatus(
-                            status -> status.equals(HttpStatus.NOT_FOUND),
-                            clientResponse -> Mono.just(new RuntimeException("User not found"))
-                    )
-                    .bodyToMono(Object.class)
-                    .map(response -> true)
-                    .onErrorResume(e -> {
-                        logger.error("Error validating user: {}", e.getMessage());
-                        return Mono.just(false);
-                    })
-                    .block());
+            status = authServiceClient.get()
+                    .uri("/api/auth/user/{userId}", userId)
+                    .exchangeToMono(response -> response.releaseBody().thenReturn(response.statusCode()))
+                    .timeout(fallbackTimeout)
+                    .block();
         } catch (Exception e) {
-            logger.error("Failed to validate user: {}", e.getMessage());
+            logger.error("Failed to validate user {} with auth-service: {}", userId, e.getMessage());
+            throw new UserDirectoryUnavailableException("Unable to verify the user right now. Please try again later.");
+        }
+
+        if (status != null && status.is2xxSuccessful()) {
+            return true;
+        }
+        if (status != null && status.isSameCodeAs(HttpStatus.NOT_FOUND)) {
             return false;
         }
+        // Anything else says nothing about whether the user exists
+        logger.error("Unexpected status {} validating user {} with auth-service", status, userId);
+        throw new UserDirectoryUnavailableException("Unable to verify the user right now. Please try again later.");
     }
 }
@@ -0,0 +1,14 @@
+-- Table previously created by Hibernate (ddl-auto: update). IF NOT EXISTS lets this run
+-- both on a fresh database and on one that Hibernate already populated.
+
+CREATE TABLE IF NOT EXISTS accounts (
+    id             BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id        BIGINT         NOT NULL,
+    account_number VARCHAR(255)   NOT NULL UNIQUE,
+    balance        NUMERIC(38, 2) NOT NULL,
+    account_type   SMALLINT       NOT NULL,
+    full_name      VARCHAR(255)   NOT NULL,
+    email          VARCHAR(255)   NOT NULL,
+    created_at     TIMESTAMP(6)   NOT NULL,
+    updated_at     TIMESTAMP(6)   NOT NULL
+);
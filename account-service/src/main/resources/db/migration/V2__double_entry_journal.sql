@@ -0,0 +1,40 @@
+-- Append-only double-entry journal. Every money movement is one journal entry whose postings
+-- balance (sum of debits = sum of credits); accounts.balance is the projection of CUSTOMER postings.
+
+CREATE TABLE journal_entries (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    entry_type  VARCHAR(255) NOT NULL,
+    reference   VARCHAR(255),
+    description VARCHAR(255),
+    created_at  TIMESTAMP(6) NOT NULL
+);
+
+CREATE TABLE journal_postings (
+    id             BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    entry_id       BIGINT         NOT NULL REFERENCES journal_entries (id),
+    ledger_account VARCHAR(255)   NOT NULL,
+    account_id     BIGINT,
+    direction      VARCHAR(255)   NOT NULL,
+    amount         NUMERIC(38, 2) NOT NULL CHECK (amount > 0),
+    created_at     TIMESTAMP(6)   NOT NULL
+);
+
+CREATE INDEX idx_journal_postings_entry ON journal_postings (entry_id);
+CREATE INDEX idx_journal_postings_account ON journal_postings (account_id, id) WHERE account_id IS NOT NULL;
+
+-- Seed the journal with the balances accounts already hold, so the projection reconciles from day one
+DO $$
+DECLARE
+    acc      RECORD;
+    entry_id BIGINT;
+BEGIN
+    FOR acc IN SELECT id, balance FROM accounts WHERE balance > 0 ORDER BY id LOOP
+        INSERT INTO journal_entries (entry_type, reference, description, created_at)
+        VALUES ('OPENING_BALANCE', 'account:' || acc.id, 'Opening balance', now())
+        RETURNING id INTO entry_id;
+
+        INSERT INTO journal_postings (entry_id, ledger_account, account_id, direction, amount, created_at)
+        VALUES (entry_id, 'CASH_SETTLEMENT', NULL, 'DEBIT', acc.balance, now()),
+               (entry_id, 'CUSTOMER', acc.id, 'CREDIT', acc.balance, now());
+    END LOOP;
+END $$;
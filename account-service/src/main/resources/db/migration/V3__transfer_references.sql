@@ -0,0 +1,5 @@
+-- A reference can be applied only once, which makes referenced transfers safe to retry
+CREATE UNIQUE INDEX uk_journal_entries_reference ON journal_entries (reference) WHERE reference IS NOT NULL;
+
+-- Resulting balance on customer postings, so a replayed transfer reports what it originally produced
+ALTER TABLE journal_postings ADD COLUMN balance_after NUMERIC(38, 2);
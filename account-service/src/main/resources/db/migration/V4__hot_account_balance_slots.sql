@@ -0,0 +1,10 @@
+-- Hot accounts keep part of their balance in slot rows so concurrent credits do not all update the
+-- same accounts row. An account's balance is accounts.balance plus the sum of its slots.
+ALTER TABLE accounts ADD COLUMN hot BOOLEAN NOT NULL DEFAULT FALSE;
+
+CREATE TABLE account_balance_slots (
+    account_id BIGINT         NOT NULL REFERENCES accounts (id),
+    slot       INTEGER        NOT NULL,
+    balance    NUMERIC(38, 2) NOT NULL DEFAULT 0 CHECK (balance >= 0),
+    PRIMARY KEY (account_id, slot)
+);
@@ -0,0 +1,24 @@
+-- Funds reserved by active holds, maintained alongside the holds themselves. Debits may not take the
+-- balance below it, so balance - held_amount is the available balance without reading account_holds.
+-- For hot accounts the held funds always sit in the accounts row, never in a slot.
+ALTER TABLE accounts ADD COLUMN held_amount NUMERIC(38, 2) NOT NULL DEFAULT 0 CHECK (held_amount >= 0);
+
+CREATE TABLE account_holds (
+    id              BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    account_id      BIGINT         NOT NULL REFERENCES accounts (id),
+    amount          NUMERIC(38, 2) NOT NULL CHECK (amount > 0),
+    captured_amount NUMERIC(38, 2),
+    status          VARCHAR(255)   NOT NULL,
+    reference       VARCHAR(255),
+    created_at      TIMESTAMP(6)   NOT NULL,
+    expires_at      TIMESTAMP(6)   NOT NULL,
+    resolved_at     TIMESTAMP(6)
+);
+
+-- A caller's reference identifies its hold, so placing it again returns the same hold
+CREATE UNIQUE INDEX uq_account_holds_reference ON account_holds (reference) WHERE reference IS NOT NULL;
+
+CREATE INDEX idx_account_holds_account_active ON account_holds (account_id) WHERE status = 'ACTIVE';
+
+-- Backs the fallback sweep for holds the in-memory expiry wheel does not know about
+CREATE INDEX idx_account_holds_expiry ON account_holds (expires_at) WHERE status = 'ACTIVE';
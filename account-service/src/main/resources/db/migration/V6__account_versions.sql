@@ -0,0 +1,3 @@
+-- Optimistic locking for accounts. Every statement that writes an accounts row bumps the version,
+-- so a write made against a balance read without a lock can tell whether the row moved since.
+ALTER TABLE accounts ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
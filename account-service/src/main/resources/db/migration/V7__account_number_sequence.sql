@@ -0,0 +1,3 @@
+-- Source of account numbers; see SequenceBlockAccountNumberGenerator. Values stay below 10^11, so the
+-- 12-digit body of a generated number always starts with 0 and can never equal an older "ACC" + millis number.
+CREATE SEQUENCE account_number_seq START WITH 1 MAXVALUE 99999999999;
@@ -0,0 +1,6 @@
+-- Local replica of the user ids registered in auth-service, fed by its user-events topic and by
+-- successful fallback lookups. Rows are only ever added: auth-service does not delete users.
+CREATE TABLE known_users (
+    user_id     BIGINT    PRIMARY KEY,
+    recorded_at TIMESTAMP NOT NULL DEFAULT now()
+);
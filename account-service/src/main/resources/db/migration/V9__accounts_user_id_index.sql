@@ -0,0 +1,3 @@
+-- A user's account ids are read on every account listing instead of being cached, so they are
+-- answered from this index alone
+CREATE INDEX IF NOT EXISTS idx_accounts_user_id ON accounts (user_id, id);
@@ -0,0 +1,91 @@
+package com.maxiflexy.account_service.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ConcurrencyRetryPolicyTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ConcurrencyRetryPolicy retryPolicy;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        // No backoff, so the tests do not sleep
+        retryPolicy = new ConcurrencyRetryPolicy(meterRegistry, 3, 0, 0);
+    }
+
+    @Test
+    void retriesConflictsUntilTheTransactionCommits() {
+        List<Integer> attempts = new ArrayList<>();
+
+        String result = retryPolicy.execute("test", attempt -> {
+            attempts.add(attempt);
+            if (attempt == 1) {
+                throw new OptimisticLockingFailureException("version changed");
+            }
+            if (attempt == 2) {
+                throw new CannotAcquireLockException("deadlock detected");
+            }
+            return "committed";
+        });
+
+        assertEquals("committed", result);
+        assertEquals(List.of(1, 2, 3), attempts);
+        assertEquals(1.0, meterRegistry.get("ledger.concurrency.conflicts")
+                .tag("type", "OptimisticLockingFailureException").counter().count());
+        assertEquals(1.0, meterRegistry.get("ledger.concurrency.conflicts")
+                .tag("type", "CannotAcquireLockException").counter().count());
+        assertEquals(3.0, meterRegistry.get("ledger.concurrency.attempts").summary().totalAmount());
+    }
+
+    @Test
+    void givesUpAfterTheLastAttempt() {
+        List<Integer> attempts = new ArrayList<>();
+
+        assertThrows(CannotAcquireLockException.class, () -> retryPolicy.execute("test", attempt -> {
+            attempts.add(attempt);
+            throw new CannotAcquireLockException("lock timeout");
+        }));
+
+        assertEquals(List.of(1, 2, 3), attempts);
+        assertEquals(1.0, meterRegistry.get("ledger.concurrency.retries.exhausted").counter().count());
+    }
+
+    @Test
+    void doesNotRetryOtherFailures() {
+        List<Integer> attempts = new ArrayList<>();
+
+        assertThrows(DataIntegrityViolationException.class, () -> retryPolicy.execute("test", attempt -> {
+            attempts.add(attempt);
+            throw new DataIntegrityViolationException("duplicate reference");
+        }));
+
+        assertEquals(List.of(1), attempts);
+    }
+
+    @Test
+    void reportsTheAttemptNumberSoTheLastCanChangeMode() {
+        List<Boolean> lastAttempt = new ArrayList<>();
+
+        retryPolicy.execute("test", attempt -> {
+            lastAttempt.add(attempt == retryPolicy.maxAttempts());
+            if (attempt < retryPolicy.maxAttempts()) {
+                throw new OptimisticLockingFailureException("version changed");
+            }
+            return null;
+        });
+
+        assertEquals(List.of(false, false, true), lastAttempt);
+    }
+}
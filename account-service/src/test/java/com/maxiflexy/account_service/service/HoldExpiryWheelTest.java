@@ -0,0 +1,102 @@
+package com.maxiflexy.account_service.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HoldExpiryWheelTest {
+
+    private static final long TICK_MS = 1000;
+    private static final int WHEEL_SIZE = 8;
+
+    private SimpleMeterRegistry meterRegistry;
+    private HoldExpiryWheel wheel;
+    private long now;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        wheel = new HoldExpiryWheel(meterRegistry, TICK_MS, WHEEL_SIZE);
+        // The wheel starts at the current tick, so drive it from the start of that tick
+        now = System.currentTimeMillis() / TICK_MS * TICK_MS;
+    }
+
+    @Test
+    void holdWithinOneTurnComesDueAtItsDeadline() {
+        wheel.schedule(1L, at(now + 3_500));
+
+        assertEquals(List.of(), wheel.advance(now + 3_000));
+        assertEquals(List.of(1L), wheel.advance(now + 4_000));
+        assertEquals(List.of(), wheel.advance(now + 5_000));
+    }
+
+    @Test
+    void holdBeyondOneTurnComesDueOnceAndNotBefore() {
+        long deadline = now + 100_250;
+        wheel.schedule(1L, at(deadline));
+
+        List<Long> dueAt = new ArrayList<>();
+        for (long millis = now + TICK_MS; millis <= deadline + 2 * TICK_MS; millis += TICK_MS) {
+            if (wheel.advance(millis).contains(1L)) {
+                dueAt.add(millis);
+            }
+        }
+
+        assertEquals(1, dueAt.size());
+        assertTrue(dueAt.get(0) >= deadline, "Expired before its deadline");
+        assertTrue(dueAt.get(0) < deadline + TICK_MS, "Expired more than a tick late");
+    }
+
+    @Test
+    void longPauseReturnsEveryPassedDeadline() {
+        wheel.schedule(1L, at(now + 2_000));
+        wheel.schedule(2L, at(now + 50_000));
+        wheel.schedule(3L, at(now + 7 * 24 * 3_600_000L));
+
+        List<Long> due = wheel.advance(now + 60_000);
+
+        assertEquals(2, due.size());
+        assertTrue(due.containsAll(List.of(1L, 2L)));
+        assertEquals(1.0, meterRegistry.get("holds.expiry.scheduled").gauge().value());
+    }
+
+    @Test
+    void deadlineAlreadyPassedComesDueOnTheNextAdvance() {
+        wheel.schedule(1L, at(now - 10_000));
+
+        assertEquals(List.of(1L), wheel.advance(now + TICK_MS));
+    }
+
+    @Test
+    void cancelledHoldsNeverComeDue() {
+        wheel.schedule(1L, at(now + 2_000));
+        wheel.schedule(2L, at(now + 60_000));
+        wheel.cancel(1L);
+        wheel.cancel(2L);
+
+        assertEquals(List.of(), wheel.advance(now + 120_000));
+        assertEquals(0.0, meterRegistry.get("holds.expiry.scheduled").gauge().value());
+    }
+
+    @Test
+    void reschedulingMovesTheDeadline() {
+        wheel.schedule(1L, at(now + 2_000));
+        wheel.schedule(1L, at(now + 30_000));
+
+        assertEquals(List.of(), wheel.advance(now + 10_000));
+        assertEquals(List.of(1L), wheel.advance(now + 30_000));
+    }
+
+    private static LocalDateTime at(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,92 @@
+package com.maxiflexy.account_service.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SequenceBlockAccountNumberGeneratorTest {
+
+    @Test
+    void luhnCheckDigitMatchesKnownValues() {
+        assertEquals(3, SequenceBlockAccountNumberGenerator.luhnCheckDigit("7992739871"));
+        assertEquals(0, SequenceBlockAccountNumberGenerator.luhnCheckDigit("000000000000"));
+        assertEquals(8, SequenceBlockAccountNumberGenerator.luhnCheckDigit("000000000001"));
+        assertEquals(1, SequenceBlockAccountNumberGenerator.luhnCheckDigit("000000000009"));
+    }
+
+    @Test
+    void luhnCheckDigitCatchesEverySingleDigitMistake() {
+        String body = "123456789012";
+        int check = SequenceBlockAccountNumberGenerator.luhnCheckDigit(body);
+        for (int i = 0; i < body.length(); i++) {
+            for (char digit = '0'; digit <= '9'; digit++) {
+                if (digit == body.charAt(i)) {
+                    continue;
+                }
+                String mistyped = body.substring(0, i) + digit + body.substring(i + 1);
+                assertFalse(SequenceBlockAccountNumberGenerator.luhnCheckDigit(mistyped) == check,
+                        "Mistyping position " + i + " as " + digit + " went unnoticed");
+            }
+        }
+    }
+
+    @Test
+    void luhnCheckDigitCatchesSwappedNeighbours() {
+        String body = "102938475612";
+        int check = SequenceBlockAccountNumberGenerator.luhnCheckDigit(body);
+        for (int i = 0; i < body.length() - 1; i++) {
+            char left = body.charAt(i);
+            char right = body.charAt(i + 1);
+            // Luhn cannot tell 09 from 90, and swapping equal digits changes nothing
+            if (left == right || (left == '0' && right == '9') || (left == '9' && right == '0')) {
+                continue;
+            }
+            String swapped = body.substring(0, i) + right + left + body.substring(i + 2);
+            assertFalse(SequenceBlockAccountNumberGenerator.luhnCheckDigit(swapped) == check,
+                    "Swapping positions " + i + " and " + (i + 1) + " went unnoticed");
+        }
+    }
+
+    @Test
+    void nextIssuesPaddedNumbersWithCheckDigitFromOneBlock() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq(2))).thenReturn(List.of(1L, 987654321L));
+        SequenceBlockAccountNumberGenerator generator = new SequenceBlockAccountNumberGenerator(jdbcTemplate, 2);
+
+        String first = generator.next();
+        String second = generator.next();
+
+        assertEquals("ACC0000000000018", first);
+        assertEquals("ACC0009876543217", second);
+        assertTrue(isValidLuhn(first.substring(3)));
+        assertTrue(isValidLuhn(second.substring(3)));
+        verify(jdbcTemplate, times(1)).queryForList(anyString(), eq(Long.class), eq(2));
+    }
+
+    // Standard Luhn validation of a number that ends in its check digit
+    private static boolean isValidLuhn(String number) {
+        int sum = 0;
+        for (int i = number.length() - 1, position = 0; i >= 0; i--, position++) {
+            int digit = number.charAt(i) - '0';
+            if (position % 2 == 1) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+        }
+        return sum % 10 == 0;
+    }
+}
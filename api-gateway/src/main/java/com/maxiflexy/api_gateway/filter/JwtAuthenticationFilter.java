@@ -1,8 +1,19 @@
 package com.maxiflexy.api_gateway.filter;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.maxiflexy.api_gateway.security.RevocationRegistry;
+import com.maxiflexy.api_gateway.security.SigningKeyCache;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.MalformedJwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
@@ -16,22 +27,79 @@ import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
-import javax.crypto.SecretKey;
-import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtAuthenticationFilter implements GatewayFilter {
 
-    @Value("${app.auth.tokenSecret}")
-    private String tokenSecret;
+    private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
 
     private final WebClient.Builder webClientBuilder;
 
+    private final RevocationRegistry revocationRegistry;
+
+    private final SigningKeyCache signingKeyCache;
+
+    // Built once: JwtParser is immutable and safe to share between requests
+    private final JwtParser jwtParser;
+
+    // Claims of tokens whose signature already checked out, by digest of the token; each entry expires with it
+    private final Cache<String, VerifiedClaims> verifiedClaims;
+
+    private final Timer cachedVerifications;
+    private final Timer signatureVerifications;
+
     // Cookie name (must match with AuthController)
     private static final String ACCESS_TOKEN_COOKIE = "accessToken";
 
-    public JwtAuthenticationFilter(WebClient.Builder webClientBuilder) {
+    private record VerifiedClaims(String tokenId, Long userId, String subject, String email,
+                                  long issuedAtSeconds, long expiresAtMillis) {
+    }
+
+    public JwtAuthenticationFilter(WebClient.Builder webClientBuilder,
+                                   RevocationRegistry revocationRegistry,
+                                   SigningKeyCache signingKeyCache,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${app.auth.claims-cache.max-size:10000}") long claimsCacheMaxSize) {
         this.webClientBuilder = webClientBuilder;
+        this.revocationRegistry = revocationRegistry;
+        this.signingKeyCache = signingKeyCache;
+        // Verifies with auth-service's published keys, chosen by each token's kid
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKeyResolver(signingKeyCache)
+                .build();
+        this.verifiedClaims = Caffeine.newBuilder()
+                .maximumSize(claimsCacheMaxSize)
+                .expireAfter(new Expiry<String, VerifiedClaims>() {
+                    @Override
+                    public long expireAfterCreate(String tokenDigest, VerifiedClaims claims, long currentTime) {
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, claims.expiresAtMillis() - System.currentTimeMillis()));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String tokenDigest, VerifiedClaims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String tokenDigest, VerifiedClaims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedClaims, "gateway.verified-claims");
+
+        // Compare the two to see what the cache saves per request
+        this.cachedVerifications = Timer.builder("gateway.jwt.verification")
+                .description("Time to authenticate a token, by whether its claims were already verified")
+                .tag("cache", "hit")
+                .register(meterRegistry);
+        this.signatureVerifications = Timer.builder("gateway.jwt.verification")
+                .description("Time to authenticate a token, by whether its claims were already verified")
+                .tag("cache", "miss")
+                .register(meterRegistry);
     }
 
     @Override
@@ -42,43 +110,108 @@ public class JwtAuthenticationFilter implements GatewayFilter {
         String token = getTokenFromCookie(request, ACCESS_TOKEN_COOKIE);
 
         if (token == null) {
-            System.out.println("No access token cookie found");
+            logger.debug("No access token cookie found");
             return onError(exchange, "Authentication required. Please login.", HttpStatus.UNAUTHORIZED);
         }
 
-        System.out.println("Processing access token from cookie");
+        logger.debug("Processing access token from cookie");
 
-        // Validate token format first
-        if (!isJwtValid(token)) {
-            System.out.println("Invalid token format!");
-            return onError(exchange, "Invalid authentication token", HttpStatus.UNAUTHORIZED);
+        String tokenDigest = RevocationRegistry.sha256Hex(token);
+        return verify(tokenDigest, token)
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(claims -> {
+                    if (claims.isEmpty()) {
+                        logger.debug("Invalid token format");
+                        return onError(exchange, "Invalid authentication token", HttpStatus.UNAUTHORIZED);
+                    }
+                    return authorize(exchange, chain, token, claims.get());
+                });
+    }
+
+    private Mono<Void> authorize(ServerWebExchange exchange, GatewayFilterChain chain, String token,
+                                 VerifiedClaims claims) {
+        if (revocationRegistry.isRevoked(claims.tokenId())
+                || revocationRegistry.isBeforeSessionEpoch(claims.userId(), claims.issuedAtSeconds())) {
+            logger.debug("Token {} is revoked", claims.tokenId());
+            return onError(exchange, "Authentication expired. Please login again.", HttpStatus.UNAUTHORIZED);
+        }
+
+        // Signature and expiry are already checked, so an up-to-date revocation set settles it locally
+        if (!revocationRegistry.isStale()) {
+            return forwardAuthenticated(exchange, chain, claims);
         }
 
-        // Check if token is blacklisted by calling auth service
+        // The revocation set may be missing recent logouts, so check with auth service
         return checkTokenBlacklist(token)
                 .flatMap(isBlacklisted -> {
                     if (isBlacklisted) {
-                        System.out.println("Token is blacklisted!");
+                        logger.debug("Token {} is blacklisted", claims.tokenId());
                         return onError(exchange, "Authentication expired. Please login again.", HttpStatus.UNAUTHORIZED);
                     }
-
-                    // Add user id and email to request headers
-                    Claims claims = getClaims(token);
-                    System.out.println("Authenticated user ID: " + claims.getSubject());
-
-                    ServerHttpRequest modifiedRequest = request.mutate()
-                            .header("X-User-Id", claims.getSubject())
-                            .header("X-User-Email", claims.get("email", String.class))
-                            .build();
-
-                    return chain.filter(exchange.mutate().request(modifiedRequest).build());
+                    return forwardAuthenticated(exchange, chain, claims);
                 })
                 .onErrorResume(throwable -> {
-                    System.out.println("Error during token validation: " + throwable.getMessage());
+                    logger.warn("Error during token validation: {}", throwable.getMessage());
                     return onError(exchange, "Authentication failed", HttpStatus.UNAUTHORIZED);
                 });
     }
 
+    private Mono<Void> forwardAuthenticated(ServerWebExchange exchange, GatewayFilterChain chain, VerifiedClaims claims) {
+        // Add user id and email to request headers
+        logger.debug("Authenticated user ID: {}", claims.subject());
+
+        ServerHttpRequest modifiedRequest = exchange.getRequest().mutate()
+                .header("X-User-Id", claims.subject())
+                .header("X-User-Email", claims.email())
+                .build();
+
+        return chain.filter(exchange.mutate().request(modifiedRequest).build());
+    }
+
+    // Empty for a token with a bad signature, a malformed token or an expired one
+    private Mono<VerifiedClaims> verify(String tokenDigest, String token) {
+        long startedAt = System.nanoTime();
+        VerifiedClaims cached = verifiedClaims.getIfPresent(tokenDigest);
+        if (cached != null) {
+            cachedVerifications.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            return Mono.just(cached);
+        }
+
+        try {
+            VerifiedClaims verified = parse(tokenDigest, token);
+            signatureVerifications.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            return Mono.just(verified);
+        } catch (SigningKeyCache.UnknownSigningKeyException ex) {
+            // Signed with a key this instance has not fetched yet; fetch the key set and try once more.
+            // Timed once the retry is done, so the sample includes the key set fetch.
+            return signingKeyCache.refreshForUnknownKey()
+                    .then(Mono.fromCallable(() -> parse(tokenDigest, token)))
+                    .onErrorResume(e -> {
+                        logger.debug("Token validation error: {}", e.getMessage());
+                        return Mono.empty();
+                    })
+                    .doFinally(signal -> signatureVerifications.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS));
+        } catch (Exception ex) {
+            signatureVerifications.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            logger.debug("Token validation error: {}", ex.getMessage());
+            return Mono.empty();
+        }
+    }
+
+    private VerifiedClaims parse(String tokenDigest, String token) {
+        Claims claims = jwtParser.parseClaimsJws(token).getBody();
+        // Without a jti or an iat the token could not be revoked
+        if (claims.getId() == null || claims.getIssuedAt() == null) {
+            throw new MalformedJwtException("Token has no jti or iat");
+        }
+        VerifiedClaims verified = new VerifiedClaims(RevocationRegistry.tokenId(claims.getId()),
+                Long.valueOf(claims.getSubject()), claims.getSubject(), claims.get("email", String.class),
+                claims.getIssuedAt().getTime() / 1000, claims.getExpiration().getTime());
+        verifiedClaims.put(tokenDigest, verified);
+        return verified;
+    }
+
     private String getTokenFromCookie(ServerHttpRequest request, String cookieName) {
         MultiValueMap<String, HttpCookie> cookies = request.getCookies();
         if (cookies != null && cookies.containsKey(cookieName)) {
@@ -117,27 +250,7 @@ public class JwtAuthenticationFilter implements GatewayFilter {
         response.getHeaders().add("Access-Control-Allow-Origin", "*");
         response.getHeaders().add("Access-Control-Allow-Credentials", "true");
 
-        System.out.println("Authentication error: " + err);
+        logger.debug("Authentication error: {}", err);
         return response.setComplete();
     }
-
-    private boolean isJwtValid(String token) {
-        try {
-            SecretKey key = Keys.hmacShaKeyFor(tokenSecret.getBytes(StandardCharsets.UTF_8));
-            getClaims(token);
-            return true;
-        } catch (Exception ex) {
-            System.out.println("Token validation error: " + ex.getMessage());
-            return false;
-        }
-    }
-
-    private Claims getClaims(String token) {
-        SecretKey key = Keys.hmacShaKeyFor(tokenSecret.getBytes(StandardCharsets.UTF_8));
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-    }
 }
\ No newline at end of file
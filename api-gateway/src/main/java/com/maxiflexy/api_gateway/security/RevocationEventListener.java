@@ -0,0 +1,63 @@
+package com.maxiflexy.api_gateway.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.TopicPartition;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Component;
+
+// Applies auth-service's revocation and session epoch events to this instance's revocation set
+// Both topics have a single partition, which every instance assigns itself rather than sharing it through
+// a consumer group, so each instance sees every event
+@Component
+public class RevocationEventListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(RevocationEventListener.class);
+
+    private final RevocationRegistry revocationRegistry;
+    private final ObjectMapper objectMapper;
+
+    public RevocationEventListener(RevocationRegistry revocationRegistry, ObjectMapper objectMapper) {
+        this.revocationRegistry = revocationRegistry;
+        this.objectMapper = objectMapper;
+    }
+
+    @KafkaListener(topicPartitions = @TopicPartition(topic = "token-revocations", partitions = "0"),
+            groupId = "${spring.kafka.consumer.group-id}")
+    public void onRevocation(@Payload String payload) {
+        try {
+            JsonNode event = objectMapper.readTree(payload);
+            JsonNode tokenId = event.get("tokenId");
+            JsonNode expiresAt = event.get("expiresAt");
+            if (tokenId == null || expiresAt == null || !expiresAt.canConvertToLong()) {
+                logger.warn("Skipping malformed revocation event: {}", payload);
+                return;
+            }
+            revocationRegistry.revoke(tokenId.asText(), expiresAt.asLong());
+        } catch (Exception e) {
+            // A revocation missed here arrives with the next snapshot resync
+            logger.error("Error processing revocation event: {}", e.getMessage(), e);
+        }
+    }
+
+    @KafkaListener(topicPartitions = @TopicPartition(topic = "session-epochs", partitions = "0"),
+            groupId = "${spring.kafka.consumer.group-id}")
+    public void onSessionEpoch(@Payload String payload) {
+        try {
+            JsonNode event = objectMapper.readTree(payload);
+            JsonNode userId = event.get("userId");
+            JsonNode notBefore = event.get("notBefore");
+            if (userId == null || !userId.canConvertToLong() || notBefore == null || !notBefore.canConvertToLong()) {
+                logger.warn("Skipping malformed session epoch event: {}", payload);
+                return;
+            }
+            revocationRegistry.advanceSessionEpoch(userId.asLong(), notBefore.asLong());
+        } catch (Exception e) {
+            // An epoch missed here arrives with the next snapshot resync
+            logger.error("Error processing session epoch event: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.maxiflexy.api_gateway.security;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory replica of auth-service's revoked tokens, keyed by token id (the SHA-256 of its jti)
+ * and holding each token's expiry so it can be forgotten once the token would be rejected anyway,
+ * and of its per-user session epochs: a user who logged out everywhere has every token whose iat falls
+ * in an earlier second than the epoch rejected.
+ * <p>
+ * Revocation events from Kafka make a logout effective on this instance as soon as they arrive. A
+ * periodic resync from auth-service's snapshot bootstraps the set and repairs any event this instance
+ * missed. Until the first resync succeeds, or once the last one is older than the allowed staleness,
+ * the replica reports itself stale and the filter checks tokens with auth-service as before.
+ */
+@Component
+public class RevocationRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(RevocationRegistry.class);
+
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+    // User id to epoch millis
+    private final Map<Long, Long> sessionEpochs = new ConcurrentHashMap<>();
+    private final WebClient authServiceClient;
+    private final long maxStalenessMs;
+    private final long maxTokenLifetimeMs;
+    private final Duration fetchTimeout;
+    // When the last successful resync was requested; 0 until the first one
+    private volatile long syncedAt;
+
+    public record Revocation(String tokenId, long expiresAt) {
+    }
+
+    public record SessionEpoch(Long userId, long notBefore) {
+    }
+
+    public record RevocationSnapshot(List<Revocation> revocations, List<SessionEpoch> sessionEpochs) {
+    }
+
+    public RevocationRegistry(WebClient.Builder webClientBuilder,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.auth.revocations.max-staleness-ms:120000}") long maxStalenessMs,
+                              @Value("${app.auth.revocations.fetch-timeout-ms:5000}") long fetchTimeoutMs,
+                              @Value("${app.auth.revocations.max-token-lifetime-ms:1200000}") long maxTokenLifetimeMs) {
+        this.authServiceClient = webClientBuilder.clone().baseUrl("lb://auth-service").build();
+        this.maxStalenessMs = maxStalenessMs;
+        this.maxTokenLifetimeMs = maxTokenLifetimeMs;
+        this.fetchTimeout = Duration.ofMillis(fetchTimeoutMs);
+        Gauge.builder("gateway.revocations.size", revoked, Map::size)
+                .description("Revoked tokens held in memory")
+                .register(meterRegistry);
+    }
+
+    public boolean isRevoked(String tokenId) {
+        return revoked.containsKey(tokenId);
+    }
+
+    public void revoke(String tokenId, long expiresAt) {
+        if (expiresAt > System.currentTimeMillis()) {
+            revoked.put(tokenId, expiresAt);
+        }
+    }
+
+    public boolean isBeforeSessionEpoch(Long userId, long issuedAtSeconds) {
+        Long notBefore = sessionEpochs.get(userId);
+        // iat is in whole seconds: a token from the epoch's own second may be a login just after it
+        return notBefore != null && issuedAtSeconds < notBefore / 1000;
+    }
+
+    public void advanceSessionEpoch(Long userId, long notBefore) {
+        sessionEpochs.merge(userId, notBefore, Math::max);
+    }
+
+    public boolean isStale() {
+        return System.currentTimeMillis() - syncedAt > maxStalenessMs;
+    }
+
+    // Merges rather than replaces: a revocation is final, and an event may be newer than the snapshot
+    @Scheduled(initialDelay = 0, fixedDelayString = "${app.auth.revocations.refresh-interval-ms:30000}")
+    public void resync() {
+        long requestedAt = System.currentTimeMillis();
+        revoked.values().removeIf(expiresAt -> expiresAt <= requestedAt);
+        // Every token issued at or before such an epoch has expired by now
+        long oldestRelevantEpoch = requestedAt - maxTokenLifetimeMs;
+        sessionEpochs.values().removeIf(notBefore -> notBefore <= oldestRelevantEpoch);
+
+        authServiceClient.get()
+                .uri("/internal/auth/revocations")
+                .retrieve()
+                .bodyToMono(RevocationSnapshot.class)
+                .timeout(fetchTimeout)
+                .subscribe(snapshot -> {
+                    snapshot.revocations().forEach(revocation -> revoke(revocation.tokenId(), revocation.expiresAt()));
+                    if (snapshot.sessionEpochs() != null) {
+                        snapshot.sessionEpochs().forEach(epoch -> advanceSessionEpoch(epoch.userId(), epoch.notBefore()));
+                    }
+                    syncedAt = requestedAt;
+                }, e -> logger.warn("Failed to resync revoked tokens from auth-service: {}", e.getMessage()));
+    }
+
+    // Must match how auth-service derives the id it publishes
+    public static String tokenId(String jti) {
+        return sha256Hex(jti);
+    }
+
+    public static String sha256Hex(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
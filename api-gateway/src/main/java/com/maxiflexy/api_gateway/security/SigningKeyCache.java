@@ -0,0 +1,155 @@
+package com.maxiflexy.api_gateway.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.UnsupportedJwtException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.math.BigInteger;
+import java.security.AlgorithmParameters;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPublicKeySpec;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * auth-service's public token verification keys, fetched from its JWKS endpoint and looked up by the
+ * kid header of each token. The set is refreshed in the background; auth-service publishes a key well
+ * before it starts signing and keeps a retired one published while its tokens can still be live, so
+ * the background refresh alone normally covers a rotation. A kid that is still unknown (right after
+ * this instance started, say) triggers an on-demand refresh, at most one per min-refresh-interval.
+ * <p>
+ * A failed refresh keeps the keys already held.
+ */
+@Component
+public class SigningKeyCache extends SigningKeyResolverAdapter {
+
+    private static final Logger logger = LoggerFactory.getLogger(SigningKeyCache.class);
+
+    private final WebClient authServiceClient;
+    private final Duration fetchTimeout;
+    private final long minRefreshIntervalMs;
+    private final ECParameterSpec p256;
+    private volatile Map<String, ECPublicKey> keys = Map.of();
+    private Mono<Void> lastOnDemandRefresh = Mono.empty();
+    private long lastOnDemandRefreshAt;
+
+    public static class UnknownSigningKeyException extends JwtException {
+        public UnknownSigningKeyException(String kid) {
+            super("Unknown signing key: " + kid);
+        }
+    }
+
+    public record Jwk(String kty, String crv, String kid, String x, String y) {
+    }
+
+    public record JwkSet(List<Jwk> keys) {
+    }
+
+    public SigningKeyCache(WebClient.Builder webClientBuilder,
+                           @Value("${app.auth.jwks.fetch-timeout-ms:5000}") long fetchTimeoutMs,
+                           @Value("${app.auth.jwks.min-refresh-interval-ms:10000}") long minRefreshIntervalMs) {
+        this.authServiceClient = webClientBuilder.clone().baseUrl("lb://auth-service").build();
+        this.fetchTimeout = Duration.ofMillis(fetchTimeoutMs);
+        this.minRefreshIntervalMs = minRefreshIntervalMs;
+        try {
+            AlgorithmParameters parameters = AlgorithmParameters.getInstance("EC");
+            parameters.init(new ECGenParameterSpec("secp256r1"));
+            this.p256 = parameters.getParameterSpec(ECParameterSpec.class);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("P-256 is not available", e);
+        }
+    }
+
+    @Override
+    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+        // Only ES256 is issued; refusing anything else also rules out algorithm substitution
+        if (!SignatureAlgorithm.ES256.getValue().equals(header.getAlgorithm())) {
+            throw new UnsupportedJwtException("Unsupported signing algorithm: " + header.getAlgorithm());
+        }
+        ECPublicKey key = keys.get(header.getKeyId());
+        if (key == null) {
+            throw new UnknownSigningKeyException(header.getKeyId());
+        }
+        return key;
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${app.auth.jwks.refresh-interval-ms:300000}")
+    public void scheduledRefresh() {
+        refresh().subscribe();
+    }
+
+    // Requests that arrive while a refresh is running, or shortly after, share it instead of starting another
+    public synchronized Mono<Void> refreshForUnknownKey() {
+        long now = System.currentTimeMillis();
+        if (now - lastOnDemandRefreshAt >= minRefreshIntervalMs) {
+            lastOnDemandRefreshAt = now;
+            lastOnDemandRefresh = refresh().cache();
+        }
+        return lastOnDemandRefresh;
+    }
+
+    private Mono<Void> refresh() {
+        return authServiceClient.get()
+                .uri("/.well-known/jwks.json")
+                .retrieve()
+                .bodyToMono(JwkSet.class)
+                .timeout(fetchTimeout)
+                .doOnNext(jwks -> {
+                    Map<String, ECPublicKey> fetched = toKeys(jwks);
+                    if (fetched.isEmpty()) {
+                        logger.warn("auth-service published no usable signing keys; keeping the {} held", keys.size());
+                        return;
+                    }
+                    keys = fetched;
+                })
+                .onErrorResume(e -> {
+                    logger.warn("Failed to refresh signing keys from auth-service: {}", e.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    Map<String, ECPublicKey> toKeys(JwkSet jwks) {
+        Map<String, ECPublicKey> fetched = new HashMap<>();
+        if (jwks.keys() == null) {
+            return fetched;
+        }
+        for (Jwk jwk : jwks.keys()) {
+            if (!"EC".equals(jwk.kty()) || !"P-256".equals(jwk.crv()) || jwk.kid() == null
+                    || jwk.x() == null || jwk.y() == null) {
+                continue;
+            }
+            try {
+                ECPoint point = new ECPoint(decodeCoordinate(jwk.x()), decodeCoordinate(jwk.y()));
+                fetched.put(jwk.kid(), (ECPublicKey) KeyFactory.getInstance("EC")
+                        .generatePublic(new ECPublicKeySpec(point, p256)));
+            } catch (GeneralSecurityException | IllegalArgumentException e) {
+                logger.warn("Skipping unreadable signing key {}: {}", jwk.kid(), e.getMessage());
+            }
+        }
+        return Map.copyOf(fetched);
+    }
+
+    static BigInteger decodeCoordinate(String coordinate) {
+        return new BigInteger(1, Base64.getUrlDecoder().decode(coordinate));
+    }
+}
@@ -0,0 +1,81 @@
+package com.maxiflexy.api_gateway.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.maxiflexy.api_gateway.security.RevocationRegistry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.security.KeyPair;
+import java.util.Date;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Compares the two ways JwtAuthenticationFilter authenticates a token: a lookup of already verified claims
+// by the token's digest, and a full ES256 signature check. Timing depends on the machine, so it only runs
+// when asked for: mvn test -Dbenchmarks=true -Dtest=JwtVerificationBenchmarkTest
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class JwtVerificationBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwtVerificationBenchmarkTest.class);
+
+    private static final int WARMUP_ITERATIONS = 20_000;
+    private static final int MEASURED_ITERATIONS = 50_000;
+
+    private String token;
+    private JwtParser jwtParser;
+    private Cache<String, Claims> verifiedClaims;
+
+    @BeforeEach
+    void setUp() {
+        KeyPair keyPair = Keys.keyPairFor(SignatureAlgorithm.ES256);
+        token = Jwts.builder()
+                .setHeaderParam("kid", "benchmark")
+                .setId(UUID.randomUUID().toString())
+                .setSubject("42")
+                .claim("email", "user@example.com")
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + 3_600_000))
+                .signWith(keyPair.getPrivate(), SignatureAlgorithm.ES256)
+                .compact();
+        jwtParser = Jwts.parserBuilder().setSigningKey(keyPair.getPublic()).build();
+        verifiedClaims = Caffeine.newBuilder().maximumSize(10_000).build();
+        verifiedClaims.put(RevocationRegistry.sha256Hex(token), jwtParser.parseClaimsJws(token).getBody());
+    }
+
+    @Test
+    void cacheHitIsCheaperThanFullParse() {
+        // Both paths digest the token first, as the filter does
+        double hitNanos = measure(() -> verifiedClaims.getIfPresent(RevocationRegistry.sha256Hex(token)));
+        double parseNanos = measure(() -> {
+            RevocationRegistry.sha256Hex(token);
+            return jwtParser.parseClaimsJws(token).getBody();
+        });
+
+        logger.info("Cache hit: {} ns/op, full parse: {} ns/op ({}x)",
+                Math.round(hitNanos), Math.round(parseNanos), Math.round(parseNanos / hitNanos));
+        assertTrue(hitNanos < parseNanos, "A cache hit should cost less than verifying the signature");
+    }
+
+    private double measure(Supplier<Claims> operation) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            assertNotNull(operation.get());
+        }
+        long startedAt = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            assertNotNull(operation.get());
+        }
+        return (double) (System.nanoTime() - startedAt) / MEASURED_ITERATIONS;
+    }
+}
@@ -0,0 +1,48 @@
+package com.maxiflexy.api_gateway.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RevocationRegistryTest {
+
+    private final RevocationRegistry revocationRegistry =
+            new RevocationRegistry(WebClient.builder(), new SimpleMeterRegistry(), 120_000, 5_000, 1_200_000);
+
+    @Test
+    void tokensIssuedInAnEarlierSecondAreRejected() {
+        revocationRegistry.advanceSessionEpoch(7L, 1_000_500L);
+
+        assertTrue(revocationRegistry.isBeforeSessionEpoch(7L, 999L));
+        // The epoch's own second may hold a login just after it
+        assertFalse(revocationRegistry.isBeforeSessionEpoch(7L, 1_000L));
+        assertFalse(revocationRegistry.isBeforeSessionEpoch(7L, 1_001L));
+        assertFalse(revocationRegistry.isBeforeSessionEpoch(8L, 0L));
+    }
+
+    @Test
+    void anOlderEpochNeverMovesItBack() {
+        revocationRegistry.advanceSessionEpoch(7L, 2_000_000L);
+        revocationRegistry.advanceSessionEpoch(7L, 1_000_000L);
+
+        assertTrue(revocationRegistry.isBeforeSessionEpoch(7L, 1_999L));
+        assertFalse(revocationRegistry.isBeforeSessionEpoch(7L, 2_000L));
+    }
+
+    @Test
+    void expiredRevocationsAreNotKept() {
+        revocationRegistry.revoke("expired", System.currentTimeMillis() - 1);
+        revocationRegistry.revoke("live", System.currentTimeMillis() + 60_000);
+
+        assertFalse(revocationRegistry.isRevoked("expired"));
+        assertTrue(revocationRegistry.isRevoked("live"));
+    }
+
+    @Test
+    void staleUntilTheFirstResync() {
+        assertTrue(revocationRegistry.isStale());
+    }
+}
@@ -0,0 +1,84 @@
+package com.maxiflexy.api_gateway.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.math.BigInteger;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SigningKeyCacheTest {
+
+    private final SigningKeyCache signingKeyCache = new SigningKeyCache(WebClient.builder(), 5000, 10000);
+
+    @Test
+    void decodesUnsignedBigEndianCoordinates() {
+        // A leading byte with the high bit set must not make the coordinate negative
+        byte[] bytes = new byte[32];
+        bytes[0] = (byte) 0x80;
+        bytes[31] = 0x01;
+
+        BigInteger decoded = SigningKeyCache.decodeCoordinate(Base64.getUrlEncoder().withoutPadding().encodeToString(bytes));
+
+        assertEquals(1, decoded.signum());
+        assertEquals(new BigInteger(1, bytes), decoded);
+    }
+
+    @Test
+    void rebuildsPublishedKeysFromTheirCoordinates() throws Exception {
+        ECPublicKey published = generateKey();
+
+        Map<String, ECPublicKey> keys = signingKeyCache.toKeys(new SigningKeyCache.JwkSet(List.of(
+                new SigningKeyCache.Jwk("EC", "P-256", "kid-1", encode(published.getW().getAffineX()),
+                        encode(published.getW().getAffineY())))));
+
+        assertEquals(1, keys.size());
+        assertEquals(published.getW(), keys.get("kid-1").getW());
+    }
+
+    @Test
+    void skipsKeysItCannotUse() throws Exception {
+        ECPublicKey published = generateKey();
+        String x = encode(published.getW().getAffineX());
+        String y = encode(published.getW().getAffineY());
+
+        Map<String, ECPublicKey> keys = signingKeyCache.toKeys(new SigningKeyCache.JwkSet(List.of(
+                new SigningKeyCache.Jwk("RSA", "P-256", "rsa", x, y),
+                new SigningKeyCache.Jwk("EC", "P-384", "p384", x, y),
+                new SigningKeyCache.Jwk("EC", "P-256", null, x, y),
+                new SigningKeyCache.Jwk("EC", "P-256", "no-y", x, null),
+                new SigningKeyCache.Jwk("EC", "P-256", "bad-base64", "not base64!", y),
+                new SigningKeyCache.Jwk("EC", "P-256", "good", x, y))));
+
+        assertEquals(Set.of("good"), keys.keySet());
+        assertEquals(published.getW(), keys.get("good").getW());
+    }
+
+    @Test
+    void emptyKeySetYieldsNoKeys() {
+        assertTrue(signingKeyCache.toKeys(new SigningKeyCache.JwkSet(null)).isEmpty());
+    }
+
+    private static ECPublicKey generateKey() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        return (ECPublicKey) generator.generateKeyPair().getPublic();
+    }
+
+    // As auth-service publishes them: unsigned, big-endian, left-padded to 32 bytes, Base64url without padding
+    private static String encode(BigInteger coordinate) {
+        byte[] bytes = coordinate.toByteArray();
+        byte[] fixed = new byte[32];
+        int length = Math.min(bytes.length, 32);
+        System.arraycopy(bytes, bytes.length - length, fixed, 32 - length, length);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(fixed);
+    }
+}
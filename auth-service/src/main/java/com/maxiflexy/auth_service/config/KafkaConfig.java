@@ -1,7 +1,9 @@
 package com.maxiflexy.auth_service.config;
 
+import org.apache.kafka.clients.admin.NewTopic;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
 import org.springframework.kafka.support.converter.StringJsonMessageConverter;
@@ -13,4 +15,21 @@ public class KafkaConfig {
     public StringJsonMessageConverter jsonConverter() {
         return new StringJsonMessageConverter();
     }
+
+    // Consumers assign partition 0 of these topics directly, so they must stay single-partitioned
+    @Bean
+    public NewTopic tokenRevocationsTopic() {
+        return TopicBuilder.name("token-revocations")
+                .partitions(1)
+                .replicas(1)
+                .build();
+    }
+
+    @Bean
+    public NewTopic sessionEpochsTopic() {
+        return TopicBuilder.name("session-epochs")
+                .partitions(1)
+                .replicas(1)
+                .build();
+    }
 }
\ No newline at end of file
@@ -15,6 +15,7 @@ import com.maxiflexy.auth_service.model.User;
 import com.maxiflexy.auth_service.repository.UserRepository;
 import com.maxiflexy.auth_service.service.EmailVerificationService;
 import com.maxiflexy.auth_service.service.TokenProvider;
+import com.maxiflexy.auth_service.service.UserEventPublisher;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.servlet.http.Cookie;
@@ -63,6 +64,9 @@ public class AuthController {
     @Autowired
     private EmailVerificationService emailVerificationService;
 
+    @Autowired
+    private UserEventPublisher userEventPublisher;
+
     @Value("${spring.security.oauth2.client.registration.google.client-id}")
     private String googleClientId;
 
@@ -96,6 +100,7 @@ public class AuthController {
         user.setEmailVerified(false);
 
         User savedUser = userRepository.save(user);
+        userEventPublisher.publishUserCreated(savedUser);
         emailVerificationService.sendVerificationEmail(savedUser);
 
         URI location = ServletUriComponentsBuilder
@@ -243,14 +248,14 @@ public class AuthController {
             if (accessToken != null && tokenProvider.validateToken(accessToken)) {
                 Long userId = tokenProvider.getUserIdFromToken(accessToken);
 
-                tokenProvider.blacklistToken(accessToken);
+                tokenProvider.revokeToken(accessToken);
 
                 if (refreshToken != null) {
-                    tokenProvider.blacklistToken(refreshToken);
+                    tokenProvider.revokeToken(refreshToken);
                 }
 
                 if (logoutRequest != null && logoutRequest.isLogoutFromAllDevices()) {
-                    tokenProvider.blacklistAllUserTokens(userId);
+                    tokenProvider.revokeAllUserTokens(userId);
                 }
             }
 
@@ -451,9 +456,8 @@ public class AuthController {
             User user = userRepository.findById(userId)
                     .orElseThrow(() -> new ResourceNotFoundException("User not found"));
 
-            tokenProvider.blacklistToken(refreshToken);
-
-            Map<String, Object> tokens = tokenProvider.createTokens(user);
+            // Also retires the presented refresh token
+            Map<String, Object> tokens = tokenProvider.rotateRefreshToken(refreshToken, user);
 
             setTokenCookies(response,
                     (String) tokens.get("accessToken"),
@@ -550,6 +554,7 @@ public class AuthController {
                 user.setProviderId(googleId);
                 user.setEmailVerified(true);
                 user = userRepository.save(user);
+                userEventPublisher.publishUserCreated(user);
             } else if (user.getProvider() != AuthProvider.GOOGLE) {
                 return ResponseEntity
                         .badRequest()
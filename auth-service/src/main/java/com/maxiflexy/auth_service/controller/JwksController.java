@@ -0,0 +1,30 @@
+package com.maxiflexy.auth_service.controller;
+
+import com.maxiflexy.auth_service.service.SigningKeyService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.Map;
+
+@RestController
+@Tag(name = "Keys", description = "Token verification keys")
+public class JwksController {
+
+    @Autowired
+    private SigningKeyService signingKeyService;
+
+    @GetMapping("/.well-known/jwks.json")
+    @Operation(summary = "JSON Web Key Set", description = "Public keys that verify tokens issued by this service")
+    public ResponseEntity<Map<String, Object>> getJwks() {
+        // Keys are published well before they sign, so a few minutes of caching is safe
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(Duration.ofMinutes(5)).cachePublic())
+                .body(signingKeyService.jwks());
+    }
+}
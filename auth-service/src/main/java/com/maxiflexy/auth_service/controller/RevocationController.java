@@ -0,0 +1,27 @@
+package com.maxiflexy.auth_service.controller;
+
+import com.maxiflexy.auth_service.dto.RevocationSnapshot;
+import com.maxiflexy.auth_service.service.TokenProvider;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+// Service-to-service endpoints; the gateway routes only /api/**, so these are not reachable from outside
+@RestController
+@RequestMapping("/internal/auth")
+@Tag(name = "Internal", description = "Endpoints for other services")
+public class RevocationController {
+
+    @Autowired
+    private TokenProvider tokenProvider;
+
+    @GetMapping("/revocations")
+    @Operation(summary = "Active revocations", description = "Ids and expiries of revoked tokens that have not expired yet")
+    public ResponseEntity<RevocationSnapshot> getRevocations() {
+        return ResponseEntity.ok(tokenProvider.getActiveRevocations());
+    }
+}
@@ -0,0 +1,18 @@
+package com.maxiflexy.auth_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Every revoked token that has not expired yet, and every session epoch recent enough to still reject a
+// token; verifiers bootstrap and resync their revocation sets from it
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevocationSnapshot {
+    private List<TokenRevokedEvent> revocations;
+    private List<SessionEpochEvent> sessionEpochs;
+    private Long generatedAt;
+}
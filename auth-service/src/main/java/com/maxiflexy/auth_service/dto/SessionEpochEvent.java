@@ -0,0 +1,15 @@
+package com.maxiflexy.auth_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Published on the session-epochs topic when a user logs out everywhere: tokens of the user issued before
+// notBefore (epoch millis; an iat is compared with its second) are no longer valid
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SessionEpochEvent {
+    private Long userId;
+    private Long notBefore;
+}
@@ -0,0 +1,15 @@
+package com.maxiflexy.auth_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Published on the token-revocations topic when an access token is revoked. tokenId is the SHA-256 of
+// the token's jti; expiresAt (epoch millis) lets verifiers forget it once the token has expired.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TokenRevokedEvent {
+    private String tokenId;
+    private Long expiresAt;
+}
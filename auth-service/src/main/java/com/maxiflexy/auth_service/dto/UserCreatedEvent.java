@@ -0,0 +1,17 @@
+package com.maxiflexy.auth_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Published on the user-events topic whenever a user is registered; services keep local replicas from it
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserCreatedEvent {
+    private Long userId;
+    private String email;
+    private LocalDateTime createdAt;
+}
@@ -1,6 +0,0 @@
-package com.maxiflexy.auth_service.enums;
-
-public enum TokenType {
-    ACCESS_TOKEN,
-    REFRESH_TOKEN
-}
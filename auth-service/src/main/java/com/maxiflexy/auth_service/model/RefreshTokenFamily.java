@@ -1,38 +1,36 @@
 package com.maxiflexy.auth_service.model;
 
-import com.maxiflexy.auth_service.enums.TokenType;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
+// One per login. Each refresh replaces the family's refresh token, so only the latest one is accepted.
 @Entity
-@Table(name = "tokens")
+@Table(name = "refresh_token_families", indexes = @Index(name = "idx_refresh_token_families_user_id", columnList = "userId"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-public class Token {
+public class RefreshTokenFamily {
 
+    // Carried in the fid claim of the family's refresh tokens
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    private Long id;
-
-    @Column(nullable = false, unique = true, length = 500)
-    private String tokenValue;
-
-    @Column(nullable = false)
-    @Enumerated(EnumType.STRING)
-    private TokenType tokenType;
+    @Column(length = 36)
+    private String id;
 
     @Column(nullable = false)
     private Long userId;
 
+    // SHA-256 of the jti of the refresh token that may be used next, hex encoded
+    @Column(nullable = false, length = 64, columnDefinition = "CHAR(64)")
+    private String currentTokenId;
+
     @Column(nullable = false)
-    private LocalDateTime expiryDate;
+    private LocalDateTime expiresAt;
 
     @Column(nullable = false)
-    private Boolean isBlacklisted = false;
+    private Boolean revoked = false;
 
     @Column(nullable = false)
     private LocalDateTime createdAt;
@@ -50,5 +48,4 @@ public class Token {
     protected void onUpdate() {
         updatedAt = LocalDateTime.now();
     }
-
-}
\ No newline at end of file
+}
@@ -0,0 +1,24 @@
+package com.maxiflexy.auth_service.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "revoked_tokens", indexes = @Index(name = "idx_revoked_tokens_expires_at", columnList = "expiresAt"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevokedToken {
+
+    // SHA-256 of the token's jti, hex encoded
+    @Id
+    @Column(length = 64, columnDefinition = "CHAR(64)")
+    private String tokenId;
+
+    // The row is useless once the token itself has expired
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+}
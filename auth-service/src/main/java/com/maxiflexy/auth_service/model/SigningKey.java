@@ -0,0 +1,43 @@
+package com.maxiflexy.auth_service.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "signing_keys")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SigningKey {
+
+    // Sent as the kid header of every token signed with this key
+    @Id
+    @Column(length = 36)
+    private String kid;
+
+    @Column(nullable = false, length = 10)
+    private String algorithm;
+
+    // X.509 encoded, Base64
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String publicKey;
+
+    // PKCS#8 encoded, Base64, encrypted with the service's encryption key
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String privateKey;
+
+    // Published from creation, signs from here until the next key activates
+    @Column(nullable = false)
+    private LocalDateTime activatesAt;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,22 @@
+package com.maxiflexy.auth_service.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Set by "log out everywhere": the user's tokens issued before notBefore are no longer accepted
+@Entity
+@Table(name = "user_session_epochs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserSessionEpoch {
+
+    @Id
+    private Long userId;
+
+    // Epoch millis, so a login just after the log out is not caught by it
+    @Column(nullable = false)
+    private Long notBefore;
+}
@@ -0,0 +1,36 @@
+package com.maxiflexy.auth_service.repository;
+
+import com.maxiflexy.auth_service.model.RefreshTokenFamily;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface RefreshTokenFamilyRepository extends JpaRepository<RefreshTokenFamily, String> {
+
+    // Updates nothing unless currentTokenId is still the presented token, so a refresh token can be swapped only once
+    @Modifying
+    @Transactional
+    @Query("UPDATE RefreshTokenFamily f SET f.currentTokenId = :nextTokenId, f.expiresAt = :expiresAt, f.updatedAt = :now " +
+            "WHERE f.id = :familyId AND f.currentTokenId = :currentTokenId AND f.revoked = false")
+    int rotate(@Param("familyId") String familyId,
+               @Param("currentTokenId") String currentTokenId,
+               @Param("nextTokenId") String nextTokenId,
+               @Param("expiresAt") LocalDateTime expiresAt,
+               @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE RefreshTokenFamily f SET f.revoked = true, f.updatedAt = :now WHERE f.id = :familyId")
+    void revoke(@Param("familyId") String familyId, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RefreshTokenFamily f WHERE f.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,30 @@
+package com.maxiflexy.auth_service.repository;
+
+import com.maxiflexy.auth_service.model.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+
+    // Revoking the same token twice (logout retried, say) is harmless
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO revoked_tokens (token_id, expires_at) VALUES (:tokenId, :expiresAt) ON CONFLICT DO NOTHING",
+            nativeQuery = true)
+    void record(@Param("tokenId") String tokenId, @Param("expiresAt") LocalDateTime expiresAt);
+
+    List<RevokedToken> findByExpiresAtAfter(LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RevokedToken r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
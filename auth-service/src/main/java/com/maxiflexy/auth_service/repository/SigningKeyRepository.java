@@ -0,0 +1,16 @@
+package com.maxiflexy.auth_service.repository;
+
+import com.maxiflexy.auth_service.model.SigningKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface SigningKeyRepository extends JpaRepository<SigningKey, String> {
+
+    List<SigningKey> findAllByOrderByActivatesAtAsc();
+
+    Optional<SigningKey> findFirstByOrderByActivatesAtDesc();
+}
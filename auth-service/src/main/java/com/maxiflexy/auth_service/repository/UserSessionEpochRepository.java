@@ -0,0 +1,30 @@
+package com.maxiflexy.auth_service.repository;
+
+import com.maxiflexy.auth_service.model.UserSessionEpoch;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface UserSessionEpochRepository extends JpaRepository<UserSessionEpoch, Long> {
+
+    // One row per user; an epoch only ever moves forward
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO user_session_epochs (user_id, not_before) VALUES (:userId, :notBefore) " +
+            "ON CONFLICT (user_id) DO UPDATE SET not_before = GREATEST(user_session_epochs.not_before, EXCLUDED.not_before)",
+            nativeQuery = true)
+    void advance(@Param("userId") Long userId, @Param("notBefore") long notBefore);
+
+    List<UserSessionEpoch> findByNotBeforeGreaterThan(long notBefore);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM UserSessionEpoch e WHERE e.notBefore <= :notBefore")
+    int deleteOlderThan(@Param("notBefore") long notBefore);
+}
@@ -3,6 +3,7 @@ package com.maxiflexy.auth_service.security;
 import com.maxiflexy.auth_service.enums.AuthProvider;
 import com.maxiflexy.auth_service.model.User;
 import com.maxiflexy.auth_service.repository.UserRepository;
+import com.maxiflexy.auth_service.service.UserEventPublisher;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.InternalAuthenticationServiceException;
 import org.springframework.security.oauth2.client.userinfo.DefaultOAuth2UserService;
@@ -20,6 +21,9 @@ public class OAuth2UserService extends DefaultOAuth2UserService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserEventPublisher userEventPublisher;
+
     @Override
     public OAuth2User loadUser(OAuth2UserRequest oAuth2UserRequest) throws OAuth2AuthenticationException {
         OAuth2User oAuth2User = super.loadUser(oAuth2UserRequest);
@@ -77,7 +81,9 @@ public class OAuth2UserService extends DefaultOAuth2UserService {
         user.setImageUrl(imageUrl);
         user.setEmailVerified(true); // Set to true since Google verifies emails
 
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        userEventPublisher.publishUserCreated(savedUser);
+        return savedUser;
     }
 
     private User updateExistingUser(User existingUser, String name, String imageUrl) {
@@ -48,6 +48,10 @@ public class SecurityConfig {
                                 "/api/auth/oauth2/**",
                                 "/api/auth/refresh",
                                 "/api/auth/validate-token",
+                                // Service-to-service endpoints, not routed by the gateway
+                                "/internal/auth/**",
+                                // Public token verification keys
+                                "/.well-known/jwks.json",
                                 // Documentation endpoints
                                 "/api-docs/**",
                                 "/swagger-ui/**",
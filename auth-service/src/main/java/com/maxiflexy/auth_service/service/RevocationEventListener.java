@@ -0,0 +1,43 @@
+package com.maxiflexy.auth_service.service;
+
+import com.maxiflexy.auth_service.dto.SessionEpochEvent;
+import com.maxiflexy.auth_service.dto.TokenRevokedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.TopicPartition;
+import org.springframework.stereotype.Service;
+
+// Brings revocations and session epochs set by other auth-service instances into this one's memory
+// Both topics have a single partition (see KafkaConfig), which every instance assigns itself rather than
+// sharing it through a consumer group, so each instance sees every event
+@Service
+public class RevocationEventListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(RevocationEventListener.class);
+
+    @Autowired
+    private RevocationService revocationService;
+
+    @KafkaListener(topicPartitions = @TopicPartition(topic = "token-revocations", partitions = "0"),
+            groupId = "${spring.kafka.consumer.group-id}")
+    public void onRevocation(TokenRevokedEvent event) {
+        if (event.getTokenId() == null || event.getExpiresAt() == null) {
+            logger.warn("Skipping malformed revocation event: {}", event);
+            return;
+        }
+        // A revocation missed here still arrives with the next resync from the table
+        revocationService.remember(event.getTokenId(), event.getExpiresAt());
+    }
+
+    @KafkaListener(topicPartitions = @TopicPartition(topic = "session-epochs", partitions = "0"),
+            groupId = "${spring.kafka.consumer.group-id}")
+    public void onSessionEpoch(SessionEpochEvent event) {
+        if (event.getUserId() == null || event.getNotBefore() == null) {
+            logger.warn("Skipping malformed session epoch event: {}", event);
+            return;
+        }
+        revocationService.rememberSessionEpoch(event.getUserId(), event.getNotBefore());
+    }
+}
@@ -0,0 +1,48 @@
+package com.maxiflexy.auth_service.service;
+
+import com.maxiflexy.auth_service.dto.SessionEpochEvent;
+import com.maxiflexy.auth_service.dto.TokenRevokedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Service;
+
+@Service
+public class RevocationEventPublisher {
+    private static final Logger logger = LoggerFactory.getLogger(RevocationEventPublisher.class);
+    private static final String REVOCATION_TOPIC = "token-revocations";
+    private static final String SESSION_EPOCH_TOPIC = "session-epochs";
+
+    @Autowired
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    // Best effort: verifiers that miss an event pick the revocation up from their next snapshot resync
+    public void publishRevoked(TokenRevokedEvent event) {
+        send(MessageBuilder
+                .withPayload(event)
+                .setHeader(KafkaHeaders.TOPIC, REVOCATION_TOPIC)
+                .setHeader(KafkaHeaders.KEY, event.getTokenId())
+                .build(), "revocation of token " + event.getTokenId());
+    }
+
+    // Best effort as well: verifiers pick the epoch up from their next snapshot resync
+    public void publishSessionEpoch(SessionEpochEvent event) {
+        send(MessageBuilder
+                .withPayload(event)
+                .setHeader(KafkaHeaders.TOPIC, SESSION_EPOCH_TOPIC)
+                .setHeader(KafkaHeaders.KEY, String.valueOf(event.getUserId()))
+                .build(), "session epoch of user " + event.getUserId());
+    }
+
+    private void send(Message<?> message, String description) {
+        kafkaTemplate.send(message).whenComplete((result, e) -> {
+            if (e != null) {
+                logger.error("Failed to publish {}: {}", description, e.getMessage());
+            }
+        });
+    }
+}
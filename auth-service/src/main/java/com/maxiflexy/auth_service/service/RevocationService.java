@@ -0,0 +1,176 @@
+package com.maxiflexy.auth_service.service;
+
+import com.maxiflexy.auth_service.dto.RevocationSnapshot;
+import com.maxiflexy.auth_service.dto.SessionEpochEvent;
+import com.maxiflexy.auth_service.dto.TokenRevokedEvent;
+import com.maxiflexy.auth_service.repository.RevokedTokenRepository;
+import com.maxiflexy.auth_service.repository.UserSessionEpochRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Revoked access tokens, identified by the SHA-256 of their jti, and per-user session epochs, which
+ * revoke every token a user was issued up to a point in time. The revoked_tokens and
+ * user_session_epochs tables are the record; checks are answered from in-memory copies that are
+ * loaded at startup, updated by every event (this instance's and the others') and resynced from the
+ * tables periodically.
+ * <p>
+ * An epoch only matters while a token issued before it could still be live, so epochs older than the
+ * refresh token lifetime are neither loaded nor published and are deleted by the cleanup.
+ */
+@Service
+public class RevocationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RevocationService.class);
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Autowired
+    private UserSessionEpochRepository userSessionEpochRepository;
+
+    @Autowired
+    private RevocationEventPublisher revocationEventPublisher;
+
+    // The longest any token lives
+    @Value("${app.auth.refreshTokenExpirationMsec}")
+    private long refreshTokenExpirationMsec;
+
+    // Token id to expiry, epoch millis
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+
+    // User id to session epoch, epoch millis
+    private final Map<Long, Long> sessionEpochs = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        resync();
+    }
+
+    @Scheduled(fixedDelayString = "${app.auth.revocations.resync-interval-ms:30000}")
+    public void scheduledResync() {
+        try {
+            resync();
+        } catch (Exception e) {
+            logger.error("Failed to resync revoked tokens: {}", e.getMessage(), e);
+        }
+    }
+
+    public void revoke(String jti, Date expiresAt) {
+        if (expiresAt.getTime() <= System.currentTimeMillis()) {
+            return;
+        }
+        String tokenId = tokenId(jti);
+        revokedTokenRepository.record(tokenId, toLocalDateTime(expiresAt.getTime()));
+        revoked.put(tokenId, expiresAt.getTime());
+        revocationEventPublisher.publishRevoked(new TokenRevokedEvent(tokenId, expiresAt.getTime()));
+    }
+
+    public boolean isRevoked(String jti) {
+        return revoked.containsKey(tokenId(jti));
+    }
+
+    // Log out everywhere: one row write, however many tokens the user holds
+    public void endAllSessions(Long userId) {
+        long notBefore = System.currentTimeMillis();
+        userSessionEpochRepository.advance(userId, notBefore);
+        rememberSessionEpoch(userId, notBefore);
+        revocationEventPublisher.publishSessionEpoch(new SessionEpochEvent(userId, notBefore));
+    }
+
+    // An access token's iat is in whole seconds, so one issued in the epoch's own second cannot be told
+    // apart from a login just after it and is let through; the family it came from is still over.
+    public boolean isBeforeSessionEpoch(Long userId, long issuedAtSeconds) {
+        Long notBefore = sessionEpochs.get(userId);
+        return notBefore != null && issuedAtSeconds < notBefore / 1000;
+    }
+
+    public boolean isStartedBeforeSessionEpoch(Long userId, long startedAtMillis) {
+        Long notBefore = sessionEpochs.get(userId);
+        return notBefore != null && startedAtMillis <= notBefore;
+    }
+
+    public void rememberSessionEpoch(Long userId, long notBefore) {
+        sessionEpochs.merge(userId, notBefore, Math::max);
+    }
+
+    // Applies a revocation made by any instance, this one included
+    public void remember(String tokenId, long expiresAt) {
+        if (expiresAt > System.currentTimeMillis()) {
+            revoked.put(tokenId, expiresAt);
+        }
+    }
+
+    // Read from the table rather than memory, so it includes revocations whose events are still in flight
+    public RevocationSnapshot snapshot() {
+        long generatedAt = System.currentTimeMillis();
+        List<TokenRevokedEvent> revocations = revokedTokenRepository.findByExpiresAtAfter(LocalDateTime.now())
+                .stream()
+                .map(revokedToken -> new TokenRevokedEvent(revokedToken.getTokenId(), toEpochMillis(revokedToken.getExpiresAt())))
+                .toList();
+        List<SessionEpochEvent> epochs = userSessionEpochRepository.findByNotBeforeGreaterThan(oldestRelevantEpoch(generatedAt))
+                .stream()
+                .map(epoch -> new SessionEpochEvent(epoch.getUserId(), epoch.getNotBefore()))
+                .toList();
+        return new RevocationSnapshot(revocations, epochs, generatedAt);
+    }
+
+    public int deleteExpired() {
+        return revokedTokenRepository.deleteExpired(LocalDateTime.now());
+    }
+
+    public int deleteExpiredSessionEpochs() {
+        return userSessionEpochRepository.deleteOlderThan(oldestRelevantEpoch(System.currentTimeMillis()));
+    }
+
+    public static String tokenId(String jti) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(jti.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private void resync() {
+        long now = System.currentTimeMillis();
+        revoked.values().removeIf(expiresAt -> expiresAt <= now);
+        revokedTokenRepository.findByExpiresAtAfter(toLocalDateTime(now))
+                .forEach(revokedToken -> revoked.put(revokedToken.getTokenId(), toEpochMillis(revokedToken.getExpiresAt())));
+
+        long oldestRelevantEpoch = oldestRelevantEpoch(now);
+        sessionEpochs.values().removeIf(notBefore -> notBefore <= oldestRelevantEpoch);
+        userSessionEpochRepository.findByNotBeforeGreaterThan(oldestRelevantEpoch)
+                .forEach(epoch -> rememberSessionEpoch(epoch.getUserId(), epoch.getNotBefore()));
+    }
+
+    // Any token issued at or before this has expired, whatever the epoch says
+    private long oldestRelevantEpoch(long nowMillis) {
+        return nowMillis - refreshTokenExpirationMsec;
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    private static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
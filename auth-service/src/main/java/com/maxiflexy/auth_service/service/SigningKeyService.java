@@ -0,0 +1,223 @@
+package com.maxiflexy.auth_service.service;
+
+import com.maxiflexy.auth_service.model.SigningKey;
+import com.maxiflexy.auth_service.repository.SigningKeyRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * ES256 key ring for access and refresh tokens. Keys live in the signing_keys table, so every
+ * auth-service instance signs with and publishes the same set; private keys are stored encrypted
+ * with the service's encryption key.
+ * <p>
+ * A new key is created publish-lead ahead of the moment it starts signing, so verifiers that refresh
+ * the JWKS more often than that already hold it when the first token signed with it arrives. The key
+ * it replaces stays published for the refresh token lifetime, the longest any token it signed can live.
+ */
+@Service
+public class SigningKeyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SigningKeyService.class);
+    private static final String ALGORITHM = "ES256";
+    private static final String CURVE = "secp256r1";
+    // P-256 coordinates are 32 bytes
+    private static final int COORDINATE_LENGTH = 32;
+    private static final Duration MIN_ON_DEMAND_RELOAD_INTERVAL = Duration.ofSeconds(5);
+
+    @Autowired
+    private SigningKeyRepository signingKeyRepository;
+
+    @Autowired
+    private EncryptionService encryptionService;
+
+    @Value("${app.auth.signing-keys.rotation-period-days:30}")
+    private long rotationPeriodDays;
+
+    @Value("${app.auth.signing-keys.publish-lead-minutes:15}")
+    private long publishLeadMinutes;
+
+    @Value("${app.auth.refreshTokenExpirationMsec}")
+    private long refreshTokenExpirationMsec;
+
+    private volatile KeyRing keyRing = new KeyRing(null, Map.of());
+    private volatile LocalDateTime lastReloadAt = LocalDateTime.MIN;
+
+    public record ActiveKey(String kid, PrivateKey privateKey) {
+    }
+
+    private record KeyRing(ActiveKey activeKey, Map<String, ECPublicKey> publishedKeys) {
+    }
+
+    @PostConstruct
+    public void init() {
+        rotateIfDue();
+        reload();
+    }
+
+    // Picks up keys created by other instances and activates pending keys on time
+    @Scheduled(fixedDelayString = "${app.auth.signing-keys.refresh-interval-ms:60000}")
+    public void refresh() {
+        try {
+            rotateIfDue();
+            reload();
+        } catch (Exception e) {
+            logger.error("Failed to refresh signing keys: {}", e.getMessage(), e);
+        }
+    }
+
+    public ActiveKey activeKey() {
+        ActiveKey activeKey = keyRing.activeKey();
+        if (activeKey == null) {
+            throw new IllegalStateException("No signing key is active");
+        }
+        return activeKey;
+    }
+
+    // Null for a kid that is unknown or no longer published
+    public ECPublicKey verificationKey(String kid) {
+        if (kid == null) {
+            return null;
+        }
+        ECPublicKey key = keyRing.publishedKeys().get(kid);
+        // Another instance may have created the key since the last refresh; rate limited so unknown kids
+        // cannot turn every request into a query
+        if (key == null && lastReloadAt.plus(MIN_ON_DEMAND_RELOAD_INTERVAL).isBefore(LocalDateTime.now())) {
+            reload();
+            key = keyRing.publishedKeys().get(kid);
+        }
+        return key;
+    }
+
+    // The published keys as a JSON Web Key Set (RFC 7517)
+    public Map<String, Object> jwks() {
+        List<Map<String, Object>> keys = new ArrayList<>();
+        keyRing.publishedKeys().forEach((kid, key) -> {
+            Map<String, Object> jwk = new LinkedHashMap<>();
+            jwk.put("kty", "EC");
+            jwk.put("crv", "P-256");
+            jwk.put("kid", kid);
+            jwk.put("use", "sig");
+            jwk.put("alg", ALGORITHM);
+            jwk.put("x", encodeCoordinate(key.getW().getAffineX()));
+            jwk.put("y", encodeCoordinate(key.getW().getAffineY()));
+            keys.add(jwk);
+        });
+        return Map.of("keys", keys);
+    }
+
+    private void rotateIfDue() {
+        LocalDateTime now = LocalDateTime.now();
+        Optional<SigningKey> latest = signingKeyRepository.findFirstByOrderByActivatesAtDesc();
+        if (latest.isEmpty()) {
+            logger.info("No signing key found, creating one");
+            createKey(now);
+            return;
+        }
+
+        LocalDateTime nextActivation = latest.get().getActivatesAt().plusDays(rotationPeriodDays);
+        LocalDateTime earliestActivation = now.plusMinutes(publishLeadMinutes);
+        if (!earliestActivation.isBefore(nextActivation)) {
+            // Never activate sooner than the lead, even when the rotation is overdue. Two instances rotating
+            // at once both create a key; both are published and the later activating one takes over.
+            createKey(nextActivation.isAfter(earliestActivation) ? nextActivation : earliestActivation);
+        }
+    }
+
+    private void createKey(LocalDateTime activatesAt) {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+            generator.initialize(new ECGenParameterSpec(CURVE));
+            KeyPair keyPair = generator.generateKeyPair();
+
+            SigningKey key = new SigningKey();
+            key.setKid(UUID.randomUUID().toString());
+            key.setAlgorithm(ALGORITHM);
+            key.setPublicKey(Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded()));
+            key.setPrivateKey(encryptionService.encrypt(Base64.getEncoder().encodeToString(keyPair.getPrivate().getEncoded())));
+            key.setActivatesAt(activatesAt);
+            signingKeyRepository.save(key);
+            logger.info("Created signing key {} activating at {}", key.getKid(), activatesAt);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to generate a signing key", e);
+        }
+    }
+
+    private synchronized void reload() {
+        LocalDateTime now = LocalDateTime.now();
+        Duration overlap = Duration.ofMillis(refreshTokenExpirationMsec);
+        List<SigningKey> keys = signingKeyRepository.findAllByOrderByActivatesAtAsc();
+
+        SigningKey active = null;
+        Map<String, ECPublicKey> published = new LinkedHashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            SigningKey key = keys.get(i);
+            if (!key.getActivatesAt().isAfter(now)) {
+                active = key;
+            }
+            // A key retires when its successor activates, and stays published while tokens it signed may live
+            LocalDateTime retiredAt = i + 1 < keys.size() ? keys.get(i + 1).getActivatesAt() : null;
+            if (retiredAt == null || retiredAt.plus(overlap).isAfter(now)) {
+                published.put(key.getKid(), decodePublicKey(key));
+            }
+        }
+
+        ActiveKey current = keyRing.activeKey();
+        ActiveKey activeKey = active == null ? null
+                : current != null && current.kid().equals(active.getKid()) ? current
+                : new ActiveKey(active.getKid(), decodePrivateKey(active));
+        keyRing = new KeyRing(activeKey, Map.copyOf(published));
+        lastReloadAt = now;
+    }
+
+    private ECPublicKey decodePublicKey(SigningKey key) {
+        try {
+            byte[] encoded = Base64.getDecoder().decode(key.getPublicKey());
+            return (ECPublicKey) KeyFactory.getInstance("EC").generatePublic(new X509EncodedKeySpec(encoded));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unreadable public key for signing key " + key.getKid(), e);
+        }
+    }
+
+    private PrivateKey decodePrivateKey(SigningKey key) {
+        try {
+            byte[] encoded = Base64.getDecoder().decode(encryptionService.decrypt(key.getPrivateKey()));
+            return KeyFactory.getInstance("EC").generatePrivate(new PKCS8EncodedKeySpec(encoded));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unreadable private key for signing key " + key.getKid(), e);
+        }
+    }
+
+    // Unsigned, big-endian, left-padded to the coordinate length, Base64url without padding
+    static String encodeCoordinate(BigInteger coordinate) {
+        byte[] bytes = coordinate.toByteArray();
+        byte[] fixed = new byte[COORDINATE_LENGTH];
+        int length = Math.min(bytes.length, COORDINATE_LENGTH);
+        System.arraycopy(bytes, bytes.length - length, fixed, COORDINATE_LENGTH - length, length);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(fixed);
+    }
+}
@@ -14,7 +14,7 @@ public class TokenCleanupService {
     @Autowired
     private TokenProvider tokenProvider;
 
-    // Run every hour to cleanup expired tokens
+    // Run every hour to delete expired revocations, session epochs and refresh token families
     @Scheduled(fixedRate = 3600000) // 1 hour in milliseconds
     public void cleanupExpiredTokens() {
         try {
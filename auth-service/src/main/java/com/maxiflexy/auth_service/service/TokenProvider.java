@@ -1,38 +1,41 @@
 package com.maxiflexy.auth_service.service;
 
-import com.maxiflexy.auth_service.enums.TokenType;
-import com.maxiflexy.auth_service.model.Token;
+import com.maxiflexy.auth_service.dto.RevocationSnapshot;
+import com.maxiflexy.auth_service.model.RefreshTokenFamily;
 import com.maxiflexy.auth_service.model.User;
-import com.maxiflexy.auth_service.repository.TokenRepository;
+import com.maxiflexy.auth_service.repository.RefreshTokenFamilyRepository;
 import io.jsonwebtoken.*;
-import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.nio.charset.StandardCharsets;
+import java.security.Key;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
-import javax.crypto.SecretKey;
-
-import static com.maxiflexy.auth_service.enums.TokenType.ACCESS_TOKEN;
-import static com.maxiflexy.auth_service.enums.TokenType.REFRESH_TOKEN;
+import java.util.UUID;
 
 @Service
 public class TokenProvider {
 
     private static final Logger logger = LoggerFactory.getLogger(TokenProvider.class);
 
+    // Refresh tokens carry the id of their family
+    private static final String FAMILY_CLAIM = "fid";
+
+    @Autowired
+    private RefreshTokenFamilyRepository refreshTokenFamilyRepository;
+
     @Autowired
-    private TokenRepository tokenRepository;
+    private RevocationService revocationService;
 
-    @Value("${app.auth.tokenSecret}")
-    private String tokenSecret;
+    @Autowired
+    private SigningKeyService signingKeyService;
 
     @Value("${app.auth.accessTokenExpirationMsec}")
     private long accessTokenExpirationMsec;
@@ -40,11 +43,69 @@ public class TokenProvider {
     @Value("${app.auth.refreshTokenExpirationMsec}")
     private long refreshTokenExpirationMsec;
 
+    // Shared by every parse; the key is looked up by the token's kid header
+    private JwtParser jwtParser;
+
+    @PostConstruct
+    public void init() {
+        jwtParser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        Key key = signingKeyService.verificationKey(header.getKeyId());
+                        if (key == null) {
+                            throw new UnsupportedJwtException("Unknown signing key: " + header.getKeyId());
+                        }
+                        return key;
+                    }
+                })
+                .build();
+    }
+
+    // Starts a new refresh token family; the family row is the only thing a login writes
     public Map<String, Object> createTokens(User user) {
+        String familyId = UUID.randomUUID().toString();
+        String refreshJti = UUID.randomUUID().toString();
+        Date refreshExpiryDate = new Date(System.currentTimeMillis() + refreshTokenExpirationMsec);
+
+        RefreshTokenFamily family = new RefreshTokenFamily();
+        family.setId(familyId);
+        family.setUserId(user.getId());
+        family.setCurrentTokenId(RevocationService.tokenId(refreshJti));
+        family.setExpiresAt(toLocalDateTime(refreshExpiryDate));
+        family.setRevoked(false);
+        refreshTokenFamilyRepository.save(family);
+
+        return buildTokens(user, familyId, refreshJti, refreshExpiryDate);
+    }
+
+    // Swaps a valid refresh token for a new pair in the same family. A refresh token that was already
+    // swapped has been replayed, by a thief or by whoever it was stolen from, so the whole family is revoked.
+    public Map<String, Object> rotateRefreshToken(String refreshToken, User user) {
+        Claims claims = jwtParser.parseClaimsJws(refreshToken).getBody();
+        String familyId = claims.get(FAMILY_CLAIM, String.class);
+        String refreshJti = UUID.randomUUID().toString();
+        Date refreshExpiryDate = new Date(System.currentTimeMillis() + refreshTokenExpirationMsec);
+
+        int rotated = refreshTokenFamilyRepository.rotate(familyId,
+                RevocationService.tokenId(claims.getId()),
+                RevocationService.tokenId(refreshJti),
+                toLocalDateTime(refreshExpiryDate),
+                LocalDateTime.now());
+        if (rotated == 0) {
+            logger.warn("Refresh token of family {} was used twice; revoking the family", familyId);
+            refreshTokenFamilyRepository.revoke(familyId, LocalDateTime.now());
+            throw new JwtException("Refresh token has already been used");
+        }
+
+        return buildTokens(user, familyId, refreshJti, refreshExpiryDate);
+    }
+
+    private Map<String, Object> buildTokens(User user, String familyId, String refreshJti, Date refreshExpiryDate) {
         Map<String, Object> tokens = new HashMap<>();
 
         String accessToken = createAccessToken(user);
-        String refreshToken = createRefreshToken(user);
+        String refreshToken = createRefreshToken(user, familyId, refreshJti, refreshExpiryDate);
 
         tokens.put("accessToken", accessToken);
         tokens.put("refreshToken", refreshToken);
@@ -54,94 +115,68 @@ public class TokenProvider {
         return tokens;
     }
 
+    // Writes nothing: an access token is only ever recorded if it is revoked
     public String createAccessToken(User user) {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + accessTokenExpirationMsec);
 
-        SecretKey key = Keys.hmacShaKeyFor(tokenSecret.getBytes(StandardCharsets.UTF_8));
+        SigningKeyService.ActiveKey signingKey = signingKeyService.activeKey();
 
-        String token = Jwts.builder()
+        return Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, signingKey.kid())
+                .setId(UUID.randomUUID().toString())
                 .setSubject(Long.toString(user.getId()))
                 .claim("email", user.getEmail())
                 .claim("name", user.getName())
                 .claim("tokenType", "ACCESS")
-                .setIssuedAt(new Date())
+                .setIssuedAt(now)
                 .setExpiration(expiryDate)
-                .signWith(key)
+                .signWith(signingKey.privateKey(), SignatureAlgorithm.ES256)
                 .compact();
-
-        // Save access token to database
-        saveTokenToDatabase(token, ACCESS_TOKEN, user.getId(), expiryDate);
-
-        return token;
     }
 
-    public String createRefreshToken(User user) {
-        Date now = new Date();
-        Date expiryDate = new Date(now.getTime() + refreshTokenExpirationMsec);
-
-        SecretKey key = Keys.hmacShaKeyFor(tokenSecret.getBytes(StandardCharsets.UTF_8));
+    private String createRefreshToken(User user, String familyId, String jti, Date expiryDate) {
+        SigningKeyService.ActiveKey signingKey = signingKeyService.activeKey();
 
-        String token = Jwts.builder()
+        return Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, signingKey.kid())
+                .setId(jti)
                 .setSubject(Long.toString(user.getId()))
                 .claim("email", user.getEmail())
                 .claim("tokenType", "REFRESH")
+                .claim(FAMILY_CLAIM, familyId)
                 .setIssuedAt(new Date())
                 .setExpiration(expiryDate)
-                .signWith(key)
+                .signWith(signingKey.privateKey(), SignatureAlgorithm.ES256)
                 .compact();
-
-        // Save refresh token to database
-        saveTokenToDatabase(token, REFRESH_TOKEN, user.getId(), expiryDate);
-
-        return token;
-    }
-
-    private void saveTokenToDatabase(String tokenValue, TokenType tokenType, Long userId, Date expiryDate) {
-        Token token = new Token();
-        token.setTokenValue(tokenValue);
-        token.setTokenType(tokenType);
-        token.setUserId(userId);
-        token.setExpiryDate(expiryDate.toInstant().atZone(ZoneId.systemDefault()).toLocalDateTime());
-        token.setIsBlacklisted(false);
-
-        tokenRepository.save(token);
     }
 
     public Long getUserIdFromToken(String token) {
-        SecretKey key = Keys.hmacShaKeyFor(tokenSecret.getBytes(StandardCharsets.UTF_8));
-
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        Claims claims = jwtParser.parseClaimsJws(token).getBody();
 
         return Long.parseLong(claims.getSubject());
     }
 
     public String getTokenType(String token) {
-        SecretKey key = Keys.hmacShaKeyFor(tokenSecret.getBytes(StandardCharsets.UTF_8));
-
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        Claims claims = jwtParser.parseClaimsJws(token).getBody();
 
         return claims.get("tokenType", String.class);
     }
 
     public boolean validateToken(String authToken) {
         try {
-            // Check if token is blacklisted
-            if (isTokenBlacklisted(authToken)) {
-                logger.error("Token is blacklisted");
+            Claims claims = jwtParser.parseClaimsJws(authToken).getBody();
+
+            // Check if token is revoked, on its own or by a log out everywhere
+            if (claims.getId() == null || revocationService.isRevoked(claims.getId())) {
+                logger.error("Token is revoked");
+                return false;
+            }
+            if (claims.getIssuedAt() == null || revocationService.isBeforeSessionEpoch(
+                    Long.parseLong(claims.getSubject()), claims.getIssuedAt().getTime() / 1000)) {
+                logger.error("Token was issued before the user logged out everywhere");
                 return false;
             }
-
-            SecretKey key = Keys.hmacShaKeyFor(tokenSecret.getBytes(StandardCharsets.UTF_8));
-            Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(authToken);
             return true;
         } catch (SignatureException ex) {
             logger.error("Invalid JWT signature");
@@ -159,18 +194,7 @@ public class TokenProvider {
 
     public boolean validateRefreshToken(String refreshToken) {
         try {
-            // Check if refresh token is blacklisted
-            if (isTokenBlacklisted(refreshToken)) {
-                logger.error("Refresh token is blacklisted");
-                return false;
-            }
-
-            SecretKey key = Keys.hmacShaKeyFor(tokenSecret.getBytes(StandardCharsets.UTF_8));
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(key)
-                    .build()
-                    .parseClaimsJws(refreshToken)
-                    .getBody();
+            Claims claims = jwtParser.parseClaimsJws(refreshToken).getBody();
 
             // Verify it's a refresh token
             String tokenType = claims.get("tokenType", String.class);
@@ -179,6 +203,18 @@ public class TokenProvider {
                 return false;
             }
 
+            // Whether it is the family's current token is settled atomically when it is rotated. A family
+            // started before the user logged out everywhere is over, however recently it was rotated.
+            String familyId = claims.get(FAMILY_CLAIM, String.class);
+            boolean active = familyId != null && refreshTokenFamilyRepository.findById(familyId)
+                    .map(family -> !family.getRevoked() && !revocationService.isStartedBeforeSessionEpoch(family.getUserId(),
+                            family.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()))
+                    .orElse(false);
+            if (!active) {
+                logger.error("Refresh token family is revoked");
+                return false;
+            }
+
             return true;
         } catch (Exception ex) {
             logger.error("Invalid refresh token: {}", ex.getMessage());
@@ -186,20 +222,38 @@ public class TokenProvider {
         }
     }
 
-    public boolean isTokenBlacklisted(String token) {
-        return tokenRepository.existsByTokenValueAndIsBlacklistedTrue(token);
+    // Revokes an access token by its jti, or the whole family of a refresh token
+    public void revokeToken(String token) {
+        Claims claims;
+        try {
+            claims = jwtParser.parseClaimsJws(token).getBody();
+        } catch (ExpiredJwtException ex) {
+            // Already unusable
+            return;
+        }
+
+        if ("REFRESH".equals(claims.get("tokenType", String.class))) {
+            refreshTokenFamilyRepository.revoke(claims.get(FAMILY_CLAIM, String.class), LocalDateTime.now());
+        } else if (claims.getId() != null) {
+            revocationService.revoke(claims.getId(), claims.getExpiration());
+        }
     }
 
-    public void blacklistToken(String token) {
-        tokenRepository.blacklistToken(token, LocalDateTime.now());
+    // Ends every session of the user, access and refresh tokens alike, by moving the user's session epoch
+    public void revokeAllUserTokens(Long userId) {
+        revocationService.endAllSessions(userId);
     }
 
-    public void blacklistAllUserTokens(Long userId) {
-        tokenRepository.blacklistAllUserTokens(userId, LocalDateTime.now());
+    public RevocationSnapshot getActiveRevocations() {
+        return revocationService.snapshot();
     }
 
     public void cleanupExpiredTokens() {
-        tokenRepository.deleteExpiredTokens(LocalDateTime.now());
+        int revocations = revocationService.deleteExpired();
+        int epochs = revocationService.deleteExpiredSessionEpochs();
+        int families = refreshTokenFamilyRepository.deleteExpired(LocalDateTime.now());
+        logger.info("Deleted {} expired revocations, {} expired session epochs and {} expired refresh token families",
+                revocations, epochs, families);
     }
 
     @Deprecated
@@ -207,4 +261,8 @@ public class TokenProvider {
         // This method creates an access token for backward compatibility
         return createAccessToken(user);
     }
-}
\ No newline at end of file
+
+    private static LocalDateTime toLocalDateTime(Date date) {
+        return date.toInstant().atZone(ZoneId.systemDefault()).toLocalDateTime();
+    }
+}
@@ -0,0 +1,36 @@
+package com.maxiflexy.auth_service.service;
+
+import com.maxiflexy.auth_service.dto.UserCreatedEvent;
+import com.maxiflexy.auth_service.model.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Service;
+
+@Service
+public class UserEventPublisher {
+    private static final Logger logger = LoggerFactory.getLogger(UserEventPublisher.class);
+    private static final String TOPIC = "user-events";
+
+    @Autowired
+    private KafkaTemplate<String, UserCreatedEvent> kafkaTemplate;
+
+    // Best effort: consumers fall back to GET /api/auth/user/{userId} for users whose event they missed
+    public void publishUserCreated(User user) {
+        Message<UserCreatedEvent> message = MessageBuilder
+                .withPayload(new UserCreatedEvent(user.getId(), user.getEmail(), user.getCreatedAt()))
+                .setHeader(KafkaHeaders.TOPIC, TOPIC)
+                .setHeader(KafkaHeaders.KEY, String.valueOf(user.getId()))
+                .build();
+
+        kafkaTemplate.send(message).whenComplete((result, e) -> {
+            if (e != null) {
+                logger.error("Failed to publish user-created event for user {}: {}", user.getId(), e.getMessage());
+            }
+        });
+    }
+}
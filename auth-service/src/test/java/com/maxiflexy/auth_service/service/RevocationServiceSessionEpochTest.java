@@ -0,0 +1,89 @@
+package com.maxiflexy.auth_service.service;
+
+import com.maxiflexy.auth_service.dto.SessionEpochEvent;
+import com.maxiflexy.auth_service.repository.RevokedTokenRepository;
+import com.maxiflexy.auth_service.repository.UserSessionEpochRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class RevocationServiceSessionEpochTest {
+
+    @Mock
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Mock
+    private UserSessionEpochRepository userSessionEpochRepository;
+
+    @Mock
+    private RevocationEventPublisher revocationEventPublisher;
+
+    @InjectMocks
+    private RevocationService revocationService;
+
+    @Test
+    void tokensIssuedInAnEarlierSecondAreRejected() {
+        revocationService.rememberSessionEpoch(7L, 1_000_500L);
+
+        assertTrue(revocationService.isBeforeSessionEpoch(7L, 999L));
+        // The epoch's own second may hold a login just after it
+        assertFalse(revocationService.isBeforeSessionEpoch(7L, 1_000L));
+        assertFalse(revocationService.isBeforeSessionEpoch(7L, 1_001L));
+    }
+
+    @Test
+    void familiesStartedAtOrBeforeTheEpochAreRejectedToTheMillisecond() {
+        revocationService.rememberSessionEpoch(7L, 1_000_500L);
+
+        assertTrue(revocationService.isStartedBeforeSessionEpoch(7L, 1_000_499L));
+        assertTrue(revocationService.isStartedBeforeSessionEpoch(7L, 1_000_500L));
+        assertFalse(revocationService.isStartedBeforeSessionEpoch(7L, 1_000_501L));
+    }
+
+    @Test
+    void usersWithoutAnEpochAreNotAffected() {
+        revocationService.rememberSessionEpoch(7L, 1_000_000L);
+
+        assertFalse(revocationService.isBeforeSessionEpoch(8L, 0L));
+        assertFalse(revocationService.isStartedBeforeSessionEpoch(8L, 0L));
+    }
+
+    @Test
+    void anOlderEpochNeverMovesItBack() {
+        revocationService.rememberSessionEpoch(7L, 2_000_000L);
+        // A late event or a resync row older than what is already known
+        revocationService.rememberSessionEpoch(7L, 1_000_000L);
+
+        assertTrue(revocationService.isBeforeSessionEpoch(7L, 1_500L));
+        assertTrue(revocationService.isStartedBeforeSessionEpoch(7L, 1_500_000L));
+    }
+
+    @Test
+    void aLoginJustAfterEndingAllSessionsIsAccepted() {
+        long startedAt = System.currentTimeMillis();
+
+        revocationService.endAllSessions(7L);
+        long loggedInAt = System.currentTimeMillis() + 1;
+
+        assertTrue(revocationService.isStartedBeforeSessionEpoch(7L, startedAt));
+        assertTrue(revocationService.isBeforeSessionEpoch(7L, startedAt / 1000 - 1));
+        assertFalse(revocationService.isStartedBeforeSessionEpoch(7L, loggedInAt));
+        assertFalse(revocationService.isBeforeSessionEpoch(7L, loggedInAt / 1000));
+        verify(userSessionEpochRepository).advance(eq(7L), anyLong());
+        ArgumentCaptor<SessionEpochEvent> event = ArgumentCaptor.forClass(SessionEpochEvent.class);
+        verify(revocationEventPublisher).publishSessionEpoch(event.capture());
+        assertEquals(Long.valueOf(7L), event.getValue().getUserId());
+        assertTrue(event.getValue().getNotBefore() >= startedAt);
+    }
+}
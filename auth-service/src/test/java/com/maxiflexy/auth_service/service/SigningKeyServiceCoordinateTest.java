@@ -0,0 +1,68 @@
+package com.maxiflexy.auth_service.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Arrays;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SigningKeyServiceCoordinateTest {
+
+    @Test
+    void encodesAFullLengthCoordinateWithoutTheSignByte() {
+        // High bit set, so BigInteger.toByteArray() adds a leading zero byte that must not be published
+        BigInteger coordinate = new BigInteger(1, filled((byte) 0xff));
+
+        String encoded = SigningKeyService.encodeCoordinate(coordinate);
+
+        assertEquals(43, encoded.length());
+        assertEquals(32, Base64.getUrlDecoder().decode(encoded).length);
+        assertEquals(coordinate, new BigInteger(1, Base64.getUrlDecoder().decode(encoded)));
+    }
+
+    @Test
+    void leftPadsAShortCoordinateToThirtyTwoBytes() {
+        BigInteger coordinate = BigInteger.valueOf(0x0102);
+
+        byte[] decoded = Base64.getUrlDecoder().decode(SigningKeyService.encodeCoordinate(coordinate));
+
+        assertEquals(32, decoded.length);
+        assertEquals(0x01, decoded[30]);
+        assertEquals(0x02, decoded[31]);
+        assertEquals(coordinate, new BigInteger(1, decoded));
+    }
+
+    @Test
+    void encodesWithoutPaddingInTheUrlAlphabet() {
+        String encoded = SigningKeyService.encodeCoordinate(new BigInteger(1, filled((byte) 0xfb)));
+
+        assertEquals(-1, encoded.indexOf('='));
+        assertEquals(-1, encoded.indexOf('+'));
+        assertEquals(-1, encoded.indexOf('/'));
+    }
+
+    @Test
+    void roundTripsTheCoordinatesOfGeneratedKeys() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        for (int i = 0; i < 50; i++) {
+            ECPublicKey key = (ECPublicKey) generator.generateKeyPair().getPublic();
+            BigInteger x = key.getW().getAffineX();
+            BigInteger y = key.getW().getAffineY();
+
+            assertEquals(x, new BigInteger(1, Base64.getUrlDecoder().decode(SigningKeyService.encodeCoordinate(x))));
+            assertEquals(y, new BigInteger(1, Base64.getUrlDecoder().decode(SigningKeyService.encodeCoordinate(y))));
+        }
+    }
+
+    private static byte[] filled(byte value) {
+        byte[] bytes = new byte[32];
+        Arrays.fill(bytes, value);
+        return bytes;
+    }
+}
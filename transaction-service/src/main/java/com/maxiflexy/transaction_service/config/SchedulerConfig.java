@@ -0,0 +1,19 @@
+package com.maxiflexy.transaction_service.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+@Configuration
+public class SchedulerConfig {
+
+    // Blocking JPA work from reactive flows runs here, sized to the Hikari pool so threads never wait on connections
+    @Bean(destroyMethod = "dispose")
+    public Scheduler jdbcScheduler(
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+            @Value("${app.jdbc-scheduler.queue-capacity:10000}") int queueCapacity) {
+        return Schedulers.newBoundedElastic(poolSize, queueCapacity, "jdbc");
+    }
+}
@@ -1,9 +1,16 @@
 package com.maxiflexy.transaction_service.config;
 
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.client.loadbalancer.LoadBalanced;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
 
 @Configuration
 public class WebClientConfig {
@@ -13,4 +20,36 @@ public class WebClientConfig {
     public WebClient.Builder webClientBuilder() {
         return WebClient.builder();
     }
+
+    // Dedicated pool for account-service so its traffic cannot starve (or be starved by) other clients
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider accountServiceConnectionProvider(
+            @Value("${app.account-client.max-connections:100}") int maxConnections,
+            @Value("${app.account-client.pending-acquire-max-count:500}") int pendingAcquireMaxCount,
+            @Value("${app.account-client.pending-acquire-timeout-ms:5000}") long pendingAcquireTimeoutMs,
+            @Value("${app.account-client.max-idle-time-ms:30000}") long maxIdleTimeMs) {
+        return ConnectionProvider.builder("account-service")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeoutMs))
+                .maxIdleTime(Duration.ofMillis(maxIdleTimeMs))
+                .metrics(true)
+                .build();
+    }
+
+    @Bean
+    public WebClient accountServiceWebClient(
+            @LoadBalanced WebClient.Builder webClientBuilder,
+            ConnectionProvider accountServiceConnectionProvider,
+            @Value("${app.account-client.connect-timeout-ms:2000}") int connectTimeoutMs,
+            @Value("${app.account-client.response-timeout-ms:5000}") long responseTimeoutMs) {
+        HttpClient httpClient = HttpClient.create(accountServiceConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                .responseTimeout(Duration.ofMillis(responseTimeoutMs));
+
+        return webClientBuilder.clone()
+                .baseUrl("lb://account-service")
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
 }
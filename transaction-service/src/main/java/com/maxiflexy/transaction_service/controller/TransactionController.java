@@ -1,18 +1,37 @@
 package com.maxiflexy.transaction_service.controller;
 
 import com.maxiflexy.transaction_service.dto.*;
+import com.maxiflexy.transaction_service.enums.StatementFormat;
+import com.maxiflexy.transaction_service.enums.TransactionStatus;
+import com.maxiflexy.transaction_service.service.BalanceSnapshotService;
+import com.maxiflexy.transaction_service.service.BatchTransferService;
+import com.maxiflexy.transaction_service.service.IdempotencyService;
+import com.maxiflexy.transaction_service.service.StatementExportService;
 import com.maxiflexy.transaction_service.service.TransactionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Mono;
 
+import java.net.URI;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.concurrent.Callable;
 
 @RestController
 @RequestMapping("/api/transactions")
@@ -22,6 +41,22 @@ public class TransactionController {
     @Autowired
     private TransactionService transactionService;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private StatementExportService statementExportService;
+
+    @Autowired
+    private BalanceSnapshotService balanceSnapshotService;
+
+    @Autowired
+    private BatchTransferService batchTransferService;
+
+    // Statement exports stream for as long as the date range needs; every other async request keeps the default timeout
+    @Value("${app.statement-export.timeout-ms:600000}")
+    private long exportTimeoutMs;
+
 //    @PostMapping("/deposit")
 //    @Operation(summary = "Deposit funds", description = "Deposits funds into an account")
 //    public ResponseEntity<TransactionDto> deposit(
@@ -73,33 +108,90 @@ public class TransactionController {
 
     @PostMapping("/deposit")
     @Operation(summary = "Deposit funds", description = "Deposits funds into an account")
-    public ResponseEntity<EncryptedTransactionDto> deposit(
+    public Mono<ResponseEntity<EncryptedTransactionDto>> deposit(
             @RequestHeader("X-User-Id") Long userId,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             @Valid @RequestBody DepositDto depositDto) {
-        TransactionDto transaction = transactionService.deposit(userId, depositDto);
-        EncryptedTransactionDto encryptedTransaction = EncryptedTransactionDto.fromTransactionDto(transaction);
-        return ResponseEntity.ok(encryptedTransaction);
+        return idempotencyService.execute(userId, idempotencyKey, "DEPOSIT", depositDto,
+                        () -> transactionService.deposit(userId, depositDto))
+                .map(EncryptedTransactionDto::fromTransactionDto)
+                .map(ResponseEntity::ok);
     }
 
     @PostMapping("/withdraw")
     @Operation(summary = "Withdraw funds", description = "Withdraws funds from an account")
-    public ResponseEntity<EncryptedTransactionDto> withdraw(
+    public Mono<ResponseEntity<EncryptedTransactionDto>> withdraw(
             @RequestHeader("X-User-Id") Long userId,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             @Valid @RequestBody WithdrawDto withdrawDto) {
         System.out.println("userId: " +userId + ",....withdrawDto :" + withdrawDto.toString());
-        TransactionDto transaction = transactionService.withdraw(userId, withdrawDto);
-        EncryptedTransactionDto encryptedTransaction = EncryptedTransactionDto.fromTransactionDto(transaction);
-        return ResponseEntity.ok(encryptedTransaction);
+        return idempotencyService.execute(userId, idempotencyKey, "WITHDRAW", withdrawDto,
+                        () -> transactionService.withdraw(userId, withdrawDto))
+                .map(EncryptedTransactionDto::fromTransactionDto)
+                .map(ResponseEntity::ok);
     }
 
     @PostMapping("/transfer")
     @Operation(summary = "Transfer funds", description = "Transfers funds between accounts")
-    public ResponseEntity<EncryptedTransactionDto> transfer(
+    public Mono<ResponseEntity<EncryptedTransactionDto>> transfer(
+            @RequestHeader("X-User-Id") Long userId,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @Valid @RequestBody TransferDto transferDto) {
+        // A transfer whose outcome is not yet known comes back PENDING, like an asynchronous one
+        return idempotencyService.executeTransfer(userId, idempotencyKey, "TRANSFER", transferDto,
+                        () -> transactionService.transfer(userId, transferDto),
+                        reference -> transactionService.getTransferStatus(userId, reference))
+                .map(EncryptedTransactionDto::fromTransactionDto)
+                .map(transaction -> transaction.getStatus() == TransactionStatus.PENDING
+                        ? accepted(transaction)
+                        : ResponseEntity.ok(transaction));
+    }
+
+    @PostMapping("/transfer/async")
+    @Operation(summary = "Transfer funds asynchronously", description = "Accepts a transfer for background processing and returns it as PENDING; poll the status endpoint for the outcome")
+    public Mono<ResponseEntity<EncryptedTransactionDto>> transferAsync(
             @RequestHeader("X-User-Id") Long userId,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             @Valid @RequestBody TransferDto transferDto) {
-        TransactionDto transaction = transactionService.transfer(userId, transferDto);
-        EncryptedTransactionDto encryptedTransaction = EncryptedTransactionDto.fromTransactionDto(transaction);
-        return ResponseEntity.ok(encryptedTransaction);
+        return idempotencyService.executeTransfer(userId, idempotencyKey, "TRANSFER_ASYNC", transferDto,
+                        () -> transactionService.transferAsync(userId, transferDto),
+                        reference -> transactionService.getTransferStatus(userId, reference))
+                .map(EncryptedTransactionDto::fromTransactionDto)
+                .map(this::accepted);
+    }
+
+    @PostMapping("/transfer/batch")
+    @Operation(summary = "Batch transfer", description = "Pays many destination accounts from one source account and returns a result per line")
+    public Mono<ResponseEntity<BatchTransferResultDto>> batchTransfer(
+            @RequestHeader("X-User-Id") Long userId,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @Valid @RequestBody BatchTransferDto batchDto) {
+        return idempotencyService.execute(userId, idempotencyKey, "TRANSFER_BATCH", batchDto, BatchTransferResultDto.class,
+                        () -> batchTransferService.execute(userId, batchDto),
+                        result -> result.getStatus() == TransactionStatus.PENDING ? result.getReference() : null,
+                        reference -> batchTransferService.getBatchStatus(userId, reference))
+                .map(result -> result.getStatus() == TransactionStatus.PENDING
+                        ? ResponseEntity.accepted()
+                                .location(URI.create("/api/transactions/transfer/batch/status/" + result.getReference()))
+                                .body(result)
+                        : ResponseEntity.ok(result));
+    }
+
+    @GetMapping("/transfer/batch/status/{reference}")
+    @Operation(summary = "Get batch transfer status", description = "Returns the current state of a batch transfer by its reference")
+    public ResponseEntity<BatchTransferResultDto> getBatchTransferStatus(
+            @RequestHeader("X-User-Id") Long userId,
+            @PathVariable String reference) {
+        return ResponseEntity.ok(batchTransferService.getBatchStatus(userId, reference));
+    }
+
+    @GetMapping("/transfer/status/{reference}")
+    @Operation(summary = "Get transfer status", description = "Returns the current state of a transfer by its reference")
+    public ResponseEntity<EncryptedTransactionDto> getTransferStatus(
+            @RequestHeader("X-User-Id") Long userId,
+            @PathVariable String reference) {
+        TransactionDto transaction = transactionService.getTransferStatus(userId, reference);
+        return ResponseEntity.ok(EncryptedTransactionDto.fromTransactionDto(transaction));
     }
 
     @GetMapping("/history/{accountId}")
@@ -124,4 +216,73 @@ public class TransactionController {
         Page<EncryptedTransactionDto> encryptedTransactions = transactions.map(EncryptedTransactionDto::fromTransactionDto);
         return ResponseEntity.ok(encryptedTransactions);
     }
+
+    @GetMapping("/history/{accountId}/cursor")
+    @Operation(summary = "Get transaction history by cursor", description = "Returns transaction history for an account, newest first, using keyset pagination")
+    public ResponseEntity<CursorPageDto<EncryptedTransactionDto>> getTransactionHistoryByCursor(
+            @RequestHeader("X-User-Id") Long userId,
+            @PathVariable Long accountId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        CursorPageDto<TransactionDto> transactions = transactionService.getTransactionHistoryByCursor(userId, accountId, cursor, size);
+        return ResponseEntity.ok(transactions.map(EncryptedTransactionDto::fromTransactionDto));
+    }
+
+    @GetMapping("/date-range/cursor")
+    @Operation(summary = "Get transactions by date range by cursor", description = "Returns transactions within a date range, newest first, using keyset pagination")
+    public ResponseEntity<CursorPageDto<EncryptedTransactionDto>> getTransactionsByDateRangeByCursor(
+            @RequestHeader("X-User-Id") Long userId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        CursorPageDto<TransactionDto> transactions = transactionService.getTransactionsByDateRangeByCursor(userId, startDate, endDate, cursor, size);
+        return ResponseEntity.ok(transactions.map(EncryptedTransactionDto::fromTransactionDto));
+    }
+
+    @GetMapping("/balance/{accountId}")
+    @Operation(summary = "Get end-of-day balance", description = "Returns the account's closing balance on the given date")
+    public ResponseEntity<BalanceSnapshotDto> getClosingBalance(
+            @RequestHeader("X-User-Id") Long userId,
+            @PathVariable Long accountId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        BalanceSnapshotDto balance = balanceSnapshotService.getClosingBalance(userId, accountId, date);
+        return ResponseEntity.ok(balance);
+    }
+
+    @GetMapping("/statement/{accountId}")
+    @Operation(summary = "Export account statement", description = "Streams all transactions of an account within a date range as CSV or NDJSON")
+    public ResponseEntity<StreamingResponseBody> exportStatement(
+            @RequestHeader("X-User-Id") Long userId,
+            @PathVariable Long accountId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(defaultValue = "CSV") StatementFormat format,
+            WebRequest webRequest) {
+        // Checked before streaming starts so a foreign account still gets a proper 404
+        statementExportService.verifyAccountOwnership(userId, accountId);
+        // Raise the timeout of this response only, just before its async processing starts
+        WebAsyncUtils.getAsyncManager(webRequest).registerCallableInterceptor("statement-export-timeout",
+                new CallableProcessingInterceptor() {
+                    @Override
+                    public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+                        ((AsyncWebRequest) request).setTimeout(exportTimeoutMs);
+                    }
+                });
+
+        StreamingResponseBody body = outputStream ->
+                statementExportService.writeStatement(accountId, startDate, endDate, format, outputStream);
+        String fileName = "statement-" + accountId + "." + format.getFileExtension();
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .body(body);
+    }
+
+    private ResponseEntity<EncryptedTransactionDto> accepted(EncryptedTransactionDto transaction) {
+        return ResponseEntity
+                .accepted()
+                .location(URI.create("/api/transactions/transfer/status/" + transaction.getReference()))
+                .body(transaction);
+    }
 }
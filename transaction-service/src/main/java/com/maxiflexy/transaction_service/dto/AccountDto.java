@@ -15,9 +15,13 @@ public class AccountDto {
     private Long userId;
     private String accountNumber;
     private BigDecimal balance;
+    // Balance less funds reserved by holds; absent from older account-service responses
+    private BigDecimal availableBalance;
     private String accountType;
     private String fullName;
     private String email;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    // Only on responses to a credit or debit: the ledger entry that produced the balance
+    private Long journalEntryId;
 }
@@ -0,0 +1,15 @@
+package com.maxiflexy.transaction_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountLookupDto {
+    private List<Long> accountIds;
+    private List<String> accountNumbers;
+}
@@ -0,0 +1,17 @@
+package com.maxiflexy.transaction_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BalanceSnapshotDto {
+    private Long accountId;
+    private LocalDate date;
+    private BigDecimal closingBalance;
+}
@@ -0,0 +1,25 @@
+package com.maxiflexy.transaction_service.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransferDto {
+    @NotNull
+    private Long fromAccountId;
+
+    private String description;
+
+    @NotEmpty
+    @Size(max = 10000, message = "A batch can contain at most 10000 lines")
+    private List<@Valid BatchTransferLineDto> lines;
+}
@@ -0,0 +1,35 @@
+package com.maxiflexy.transaction_service.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.maxiflexy.transaction_service.enums.TransactionStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransferLineResultDto {
+    private String toAccountNumber;
+    private BigDecimal amount;
+    private TransactionStatus status;
+    private String error;
+
+    // Recipient details from account-service, used for the incoming legs and notifications but never returned to the sender
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
+    private Long toAccountId;
+
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
+    private Long toUserId;
+
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
+    private String toFullName;
+
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
+    private String toEmail;
+
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
+    private BigDecimal toAccountBalance;
+}
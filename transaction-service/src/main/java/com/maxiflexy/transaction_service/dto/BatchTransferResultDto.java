@@ -0,0 +1,30 @@
+package com.maxiflexy.transaction_service.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.maxiflexy.transaction_service.enums.TransactionStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransferResultDto {
+    // Set here rather than by account-service; each line's transactions carry reference + ":" + line index
+    private String reference;
+    // PENDING while the outcome of the balance step is unknown; lines and totals are then not yet known
+    private TransactionStatus status;
+    private Long fromAccountId;
+    private BigDecimal fromAccountBalance;
+    private BigDecimal totalAmount;
+    private int completedCount;
+    private int failedCount;
+    private List<BatchTransferLineResultDto> lines;
+
+    // From account-service; stored on the recorded legs but not returned to the sender
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
+    private Long journalEntryId;
+}
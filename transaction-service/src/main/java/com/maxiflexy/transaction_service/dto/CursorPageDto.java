@@ -0,0 +1,26 @@
+package com.maxiflexy.transaction_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageDto<T> {
+    private List<T> content;
+    private int size;
+    private boolean hasNext;
+
+    // Opaque token to pass back as ?cursor= for the next page; null on the last page
+    private String nextCursor;
+
+    public <R> CursorPageDto<R> map(Function<T, R> mapper) {
+        List<R> mapped = content.stream().map(mapper).collect(Collectors.toList());
+        return new CursorPageDto<>(mapped, size, hasNext, nextCursor);
+    }
+}
@@ -27,8 +27,11 @@ public class EncryptedTransactionDto {
     private Long targetAccountId;
 
     private BigDecimal amount; // You can add @EncryptedAmount if needed
+    private BigDecimal balanceAfter;
     private TransactionType type;
     private String description;
+    // Transfer saga reference, used to poll the status of an asynchronous transfer
+    private String reference;
     private TransactionStatus status;
     private LocalDateTime transactionDate;
 
@@ -40,8 +43,10 @@ public class EncryptedTransactionDto {
         encrypted.setAccountId(transactionDto.getAccountId());
         encrypted.setTargetAccountId(transactionDto.getTargetAccountId());
         encrypted.setAmount(transactionDto.getAmount());
+        encrypted.setBalanceAfter(transactionDto.getBalanceAfter());
         encrypted.setType(transactionDto.getType());
         encrypted.setDescription(transactionDto.getDescription());
+        encrypted.setReference(transactionDto.getReference());
         encrypted.setStatus(transactionDto.getStatus());
         encrypted.setTransactionDate(transactionDto.getTransactionDate());
         return encrypted;
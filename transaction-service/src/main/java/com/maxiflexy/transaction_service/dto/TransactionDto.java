@@ -2,6 +2,7 @@ package com.maxiflexy.transaction_service.dto;
 
 import com.maxiflexy.transaction_service.enums.TransactionStatus;
 import com.maxiflexy.transaction_service.enums.TransactionType;
+import com.maxiflexy.transaction_service.model.Transaction;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -18,8 +19,26 @@ public class TransactionDto {
     private Long accountId;
     private Long targetAccountId;
     private BigDecimal amount;
+    private BigDecimal balanceAfter;
     private TransactionType type;
     private String description;
+    private String reference;
     private TransactionStatus status;
     private LocalDateTime transactionDate;
+
+    public static TransactionDto fromTransaction(Transaction transaction) {
+        TransactionDto dto = new TransactionDto();
+        dto.setId(transaction.getId());
+        dto.setUserId(transaction.getUserId());
+        dto.setAccountId(transaction.getAccountId());
+        dto.setTargetAccountId(transaction.getTargetAccountId());
+        dto.setAmount(transaction.getAmount());
+        dto.setBalanceAfter(transaction.getBalanceAfter());
+        dto.setType(transaction.getType());
+        dto.setDescription(transaction.getDescription());
+        dto.setReference(transaction.getReference());
+        dto.setStatus(transaction.getStatus());
+        dto.setTransactionDate(transaction.getTransactionDate());
+        return dto;
+    }
 }
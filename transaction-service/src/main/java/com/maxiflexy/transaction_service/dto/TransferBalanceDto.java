@@ -21,4 +21,7 @@ public class TransferBalanceDto {
     @NotNull
     @DecimalMin(value = "0.01", message = "Transfer amount must be greater than zero")
     private BigDecimal amount;
+
+    // Caller-chosen key that makes the transfer safe to retry: a reference is applied at most once
+    private String reference;
 }
\ No newline at end of file
@@ -0,0 +1,6 @@
+package com.maxiflexy.transaction_service.enums;
+
+public enum IdempotencyStatus {
+    IN_PROGRESS,
+    COMPLETED
+}
@@ -0,0 +1,11 @@
+package com.maxiflexy.transaction_service.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class BalanceUnavailableException extends RuntimeException {
+    public BalanceUnavailableException(String message) {
+        super(message);
+    }
+}
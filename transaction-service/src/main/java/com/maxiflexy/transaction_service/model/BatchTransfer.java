@@ -0,0 +1,57 @@
+package com.maxiflexy.transaction_service.model;
+
+import com.maxiflexy.transaction_service.enums.TransactionStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "batch_transfers")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransfer {
+
+    // Also the reference of the batch's journal entry in account-service
+    @Id
+    @Column(length = 64)
+    private String reference;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private Long fromAccountId;
+
+    // Serialized BatchTransferDto, so recovery can replay the balance step
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String requestBody;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private TransactionStatus status;
+
+    // Serialized BatchTransferResultDto once the batch is recorded
+    @Column(columnDefinition = "TEXT")
+    private String resultBody;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    // Times the recovery worker has tried to finish this batch, and when it may try next
+    @Column(nullable = false)
+    private int recoveryAttempts;
+
+    private LocalDateTime nextRecoveryAt;
+
+    // Set when recovery gave up on the batch; it stays PENDING until someone looks at it
+    private LocalDateTime recoveryParkedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
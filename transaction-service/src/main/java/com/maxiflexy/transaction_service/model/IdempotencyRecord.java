@@ -0,0 +1,59 @@
+package com.maxiflexy.transaction_service.model;
+
+import com.maxiflexy.transaction_service.enums.IdempotencyStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "idempotency_keys",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"userId", "idempotencyKey"}),
+        indexes = @Index(name = "idx_idempotency_keys_expires_at", columnList = "expiresAt"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private String idempotencyKey;
+
+    @Column(nullable = false)
+    private String operation;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private IdempotencyStatus status;
+
+    // Serialized TransactionDto of the first successful execution
+    @Column(columnDefinition = "TEXT")
+    private String responseBody;
+
+    // Reference of a transfer or batch that was still PENDING when the request returned
+    @Column(length = 64)
+    private String reference;
+
+    // SHA-256 of the request body the key was first used with
+    @Column(length = 64)
+    private String requestHash;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
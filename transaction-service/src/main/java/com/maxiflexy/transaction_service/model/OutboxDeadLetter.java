@@ -0,0 +1,44 @@
+package com.maxiflexy.transaction_service.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "outbox_dead_letters")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxDeadLetter {
+
+    // Id of the outbox event it was moved from
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private String topic;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(nullable = false)
+    private Integer attempts;
+
+    // Why the last attempt failed
+    @Column(columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime deadLetteredAt;
+
+    public static OutboxDeadLetter fromEvent(OutboxEvent event, String lastError) {
+        return new OutboxDeadLetter(event.getId(), event.getTopic(), event.getPayload(), event.getAttempts(),
+                lastError, event.getCreatedAt(), LocalDateTime.now());
+    }
+}
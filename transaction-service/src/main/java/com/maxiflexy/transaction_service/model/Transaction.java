@@ -17,6 +17,8 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 public class Transaction {
 
+    // The table is partitioned by month on transaction_date (see db/migration), so the physical
+    // primary key is (id, transaction_date); id alone is still unique and is what JPA uses
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -32,12 +34,23 @@ public class Transaction {
     @Column(nullable = false)
     private BigDecimal amount;
 
+    // Account balance right after this transaction was applied; null for rows recorded before it was tracked
+    private BigDecimal balanceAfter;
+
     @Column(nullable = false)
     @Enumerated(EnumType.STRING)
     private TransactionType type;
 
     private String description;
 
+    // Shared by both legs of a transfer; also the idempotency key of the balance step in account-service
+    @Column(length = 64)
+    private String reference;
+
+    // Ledger entry that applied this transaction in account-service. Entry ids follow the order in which
+    // an account's balance changed, which transaction_date (set when the row is first written) does not.
+    private Long journalEntryId;
+
     @Column(nullable = false)
     @Enumerated(EnumType.STRING)
     private TransactionStatus status;
@@ -45,6 +58,15 @@ public class Transaction {
     @Column(nullable = false)
     private LocalDateTime transactionDate;
 
+    // Times the recovery worker has tried to resolve this saga, and when it may try next
+    @Column(nullable = false)
+    private int recoveryAttempts;
+
+    private LocalDateTime nextRecoveryAt;
+
+    // Set when recovery gave up on the saga; it stays PENDING until someone looks at it
+    private LocalDateTime recoveryParkedAt;
+
     @PrePersist
     protected void onCreate() {
         transactionDate = LocalDateTime.now();
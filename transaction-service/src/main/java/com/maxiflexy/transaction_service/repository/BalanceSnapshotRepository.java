@@ -0,0 +1,38 @@
+package com.maxiflexy.transaction_service.repository;
+
+import com.maxiflexy.transaction_service.model.BalanceSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface BalanceSnapshotRepository extends JpaRepository<BalanceSnapshot, Long> {
+
+    // Closing balance on a day is the balance_after of the account's last transaction that day, last in the
+    // order the ledger applied them. Legacy rows without an entry id are older than any row that has one.
+    // Runs as one set-based statement over a single day's partition; re-running a day overwrites it.
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO balance_snapshots (account_id, snapshot_date, closing_balance, created_at) " +
+            "SELECT DISTINCT ON (t.account_id) t.account_id, CAST(:snapshotDate AS DATE), t.balance_after, now() " +
+            "FROM transactions t " +
+            "WHERE t.transaction_date >= :dayStart AND t.transaction_date < :dayEnd AND t.balance_after IS NOT NULL " +
+            "ORDER BY t.account_id, t.journal_entry_id DESC NULLS LAST, t.transaction_date DESC, t.id DESC " +
+            "ON CONFLICT (account_id, snapshot_date) DO UPDATE SET closing_balance = EXCLUDED.closing_balance, created_at = EXCLUDED.created_at",
+            nativeQuery = true)
+    int snapshotDay(@Param("snapshotDate") LocalDate snapshotDate,
+                    @Param("dayStart") LocalDateTime dayStart,
+                    @Param("dayEnd") LocalDateTime dayEnd);
+
+    Optional<BalanceSnapshot> findByAccountIdAndSnapshotDate(Long accountId, LocalDate snapshotDate);
+
+    @Query("SELECT MAX(s.snapshotDate) FROM BalanceSnapshot s")
+    LocalDate findLatestSnapshotDate();
+}
@@ -0,0 +1,49 @@
+package com.maxiflexy.transaction_service.repository;
+
+import com.maxiflexy.transaction_service.enums.TransactionStatus;
+import com.maxiflexy.transaction_service.model.BatchTransfer;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BatchTransferRepository extends JpaRepository<BatchTransfer, String> {
+
+    Optional<BatchTransfer> findByReferenceAndUserId(String reference, Long userId);
+
+    // Locked so the request path and the recovery worker never record a batch twice
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM BatchTransfer b WHERE b.reference = :reference")
+    Optional<BatchTransfer> lockByReference(@Param("reference") String reference);
+
+    // Batches due for another recovery attempt, those never tried first by age. Parked batches are left out.
+    @Query("SELECT b FROM BatchTransfer b WHERE b.status = :status AND b.recoveryParkedAt IS NULL " +
+            "AND b.createdAt < :cutoff AND COALESCE(b.nextRecoveryAt, b.createdAt) <= :now " +
+            "ORDER BY COALESCE(b.nextRecoveryAt, b.createdAt)")
+    List<BatchTransfer> findDueForRecovery(@Param("status") TransactionStatus status,
+                                           @Param("cutoff") LocalDateTime cutoff,
+                                           @Param("now") LocalDateTime now,
+                                           Limit limit);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE BatchTransfer b SET b.recoveryAttempts = b.recoveryAttempts + 1, b.nextRecoveryAt = :nextAttemptAt " +
+            "WHERE b.reference = :reference AND b.status = com.maxiflexy.transaction_service.enums.TransactionStatus.PENDING")
+    int recordRecoveryAttempt(@Param("reference") String reference, @Param("nextAttemptAt") LocalDateTime nextAttemptAt);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE BatchTransfer b SET b.recoveryParkedAt = :parkedAt " +
+            "WHERE b.reference = :reference AND b.status = com.maxiflexy.transaction_service.enums.TransactionStatus.PENDING")
+    int parkRecovery(@Param("reference") String reference, @Param("parkedAt") LocalDateTime parkedAt);
+}
@@ -0,0 +1,9 @@
+package com.maxiflexy.transaction_service.repository;
+
+import com.maxiflexy.transaction_service.model.OutboxDeadLetter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface OutboxDeadLetterRepository extends JpaRepository<OutboxDeadLetter, Long> {
+}
@@ -0,0 +1,23 @@
+package com.maxiflexy.transaction_service.repository;
+
+import com.maxiflexy.transaction_service.model.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // Locks the claimed rows so several relay instances can drain the table without double publishing
+    @Query(value = "SELECT * FROM outbox_events ORDER BY id LIMIT :batchSize FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<OutboxEvent> claimBatch(@Param("batchSize") int batchSize);
+
+    // Walks the primary key index to its first entry rather than scanning the table: ids follow insertion
+    // order, and failed events leave for the dead-letter table, so the lowest id is the oldest unsent event
+    @Query(value = "SELECT created_at FROM outbox_events ORDER BY id LIMIT 1", nativeQuery = true)
+    LocalDateTime findOldestCreatedAt();
+}
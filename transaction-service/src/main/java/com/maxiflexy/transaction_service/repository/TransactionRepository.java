@@ -1,20 +1,122 @@
 package com.maxiflexy.transaction_service.repository;
 
+import com.maxiflexy.transaction_service.enums.TransactionStatus;
+import com.maxiflexy.transaction_service.enums.TransactionType;
 import com.maxiflexy.transaction_service.model.Transaction;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
 
     List<Transaction> findByAccountId(Long accountId);
+    boolean existsByAccountIdAndStatusAndBalanceAfterIsNullAndTransactionDateBefore(Long accountId, TransactionStatus status, LocalDateTime before);
     List<Transaction> findByUserId(Long userId);
+    List<Transaction> findByReference(String reference);
+    Optional<Transaction> findByReferenceAndUserIdAndType(String reference, Long userId, TransactionType type);
     Page<Transaction> findByAccountId(Long accountId, Pageable pageable);
     Page<Transaction> findByUserIdAndTransactionDateBetween(Long userId, LocalDateTime startDate, LocalDateTime endDate, Pageable pageable);
 
+    // Keyset pagination: newest first, seeking past the (transactionDate, id) of the last row already returned.
+    // The redundant transactionDate <= :cursorDate bound gives the planner an index range to start from;
+    // the OR alone is not turned into one. No count query is issued; callers fetch one extra row to know
+    // whether another page exists.
+
+    @Query("SELECT t FROM Transaction t WHERE t.accountId = :accountId " +
+            "ORDER BY t.transactionDate DESC, t.id DESC")
+    List<Transaction> findLatestByAccountId(@Param("accountId") Long accountId, Limit limit);
+
+    @Query("SELECT t FROM Transaction t WHERE t.accountId = :accountId " +
+            "AND t.transactionDate <= :cursorDate " +
+            "AND (t.transactionDate < :cursorDate OR (t.transactionDate = :cursorDate AND t.id < :cursorId)) " +
+            "ORDER BY t.transactionDate DESC, t.id DESC")
+    List<Transaction> findByAccountIdBefore(@Param("accountId") Long accountId,
+                                            @Param("cursorDate") LocalDateTime cursorDate,
+                                            @Param("cursorId") Long cursorId,
+                                            Limit limit);
+
+    @Query("SELECT t FROM Transaction t WHERE t.userId = :userId " +
+            "AND t.transactionDate BETWEEN :startDate AND :endDate " +
+            "ORDER BY t.transactionDate DESC, t.id DESC")
+    List<Transaction> findLatestByUserIdAndDateRange(@Param("userId") Long userId,
+                                                     @Param("startDate") LocalDateTime startDate,
+                                                     @Param("endDate") LocalDateTime endDate,
+                                                     Limit limit);
+
+    @Query("SELECT t FROM Transaction t WHERE t.userId = :userId " +
+            "AND t.transactionDate BETWEEN :startDate AND :endDate " +
+            "AND t.transactionDate <= :cursorDate " +
+            "AND (t.transactionDate < :cursorDate OR (t.transactionDate = :cursorDate AND t.id < :cursorId)) " +
+            "ORDER BY t.transactionDate DESC, t.id DESC")
+    List<Transaction> findByUserIdAndDateRangeBefore(@Param("userId") Long userId,
+                                                     @Param("startDate") LocalDateTime startDate,
+                                                     @Param("endDate") LocalDateTime endDate,
+                                                     @Param("cursorDate") LocalDateTime cursorDate,
+                                                     @Param("cursorId") Long cursorId,
+                                                     Limit limit);
+
+    // Both legs of a transfer saga, locked so the request path and the recovery worker never resolve it twice
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM Transaction t WHERE t.reference = :reference ORDER BY t.id")
+    List<Transaction> lockByReference(@Param("reference") String reference);
+
+    // Sagas due for another recovery attempt, those never tried first by age. Parked sagas are left out.
+    @Query("SELECT t FROM Transaction t WHERE t.status = :status AND t.type = :type AND t.recoveryParkedAt IS NULL " +
+            "AND t.transactionDate < :cutoff AND COALESCE(t.nextRecoveryAt, t.transactionDate) <= :now " +
+            "ORDER BY COALESCE(t.nextRecoveryAt, t.transactionDate)")
+    List<Transaction> findDueForRecovery(@Param("status") TransactionStatus status,
+                                         @Param("type") TransactionType type,
+                                         @Param("cutoff") LocalDateTime cutoff,
+                                         @Param("now") LocalDateTime now,
+                                         Limit limit);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Transaction t SET t.recoveryAttempts = t.recoveryAttempts + 1, t.nextRecoveryAt = :nextAttemptAt " +
+            "WHERE t.reference = :reference AND t.status = com.maxiflexy.transaction_service.enums.TransactionStatus.PENDING")
+    int recordRecoveryAttempt(@Param("reference") String reference, @Param("nextAttemptAt") LocalDateTime nextAttemptAt);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Transaction t SET t.recoveryParkedAt = :parkedAt " +
+            "WHERE t.reference = :reference AND t.status = com.maxiflexy.transaction_service.enums.TransactionStatus.PENDING")
+    int parkRecovery(@Param("reference") String reference, @Param("parkedAt") LocalDateTime parkedAt);
+
+    // Last transaction applied by the ledger that recorded a running balance, before the given instant
+    @Query("SELECT t FROM Transaction t WHERE t.accountId = :accountId " +
+            "AND t.balanceAfter IS NOT NULL AND t.transactionDate < :before " +
+            "ORDER BY t.journalEntryId DESC NULLS LAST, t.transactionDate DESC, t.id DESC")
+    List<Transaction> findLatestWithBalanceBefore(@Param("accountId") Long accountId,
+                                                  @Param("before") LocalDateTime before,
+                                                  Limit limit);
+
+    // Forward-only cursor for statement export: rows are fetched from the server in chunks of the
+    // fetch size instead of being materialized at once. Must be consumed inside a transaction.
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.fetchSize", value = "500"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    @Query("SELECT t FROM Transaction t WHERE t.accountId = :accountId " +
+            "AND t.transactionDate BETWEEN :startDate AND :endDate " +
+            "ORDER BY t.transactionDate, t.id")
+    Stream<Transaction> streamByAccountIdAndDateRange(@Param("accountId") Long accountId,
+                                                      @Param("startDate") LocalDateTime startDate,
+                                                      @Param("endDate") LocalDateTime endDate);
+
 }
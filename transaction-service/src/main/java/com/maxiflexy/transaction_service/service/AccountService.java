@@ -1,86 +1,159 @@
 package com.maxiflexy.transaction_service.service;
 
 import com.maxiflexy.transaction_service.dto.AccountDto;
+import com.maxiflexy.transaction_service.dto.AccountLookupDto;
+import com.maxiflexy.transaction_service.dto.BalanceAdjustmentDto;
+import com.maxiflexy.transaction_service.dto.BatchTransferBalanceDto;
+import com.maxiflexy.transaction_service.dto.BatchTransferResultDto;
 import com.maxiflexy.transaction_service.dto.TransferBalanceDto;
+import com.maxiflexy.transaction_service.dto.TransferResultDto;
 import com.maxiflexy.transaction_service.exception.InsufficientFundsException;
+import com.maxiflexy.transaction_service.exception.ReferenceConflictException;
 import com.maxiflexy.transaction_service.exception.ResourceNotFoundException;
+import com.maxiflexy.transaction_service.exception.TransferReversedException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClientRequest;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
 
 @Service
 public class AccountService {
 
+    // Pre-built client bound to account-service's dedicated connection pool
     @Autowired
-    private WebClient.Builder webClientBuilder;
+    private WebClient accountServiceWebClient;
 
-    public AccountDto getAccountById(Long userId, Long accountId) {
-        return webClientBuilder.build()
+    // A batch posts thousands of lines in one call, so it gets more time than the pool-wide response timeout
+    @Value("${app.account-client.batch-response-timeout-ms:60000}")
+    private long batchResponseTimeoutMs;
+
+    public Mono<AccountDto> getAccountById(Long userId, Long accountId) {
+        return accountServiceWebClient
                 .get()
-                .uri("lb://account-service/api/accounts/{accountId}", accountId)
+                .uri("/api/accounts/{accountId}", accountId)
                 .header("X-User-Id", userId.toString())
                 .retrieve()
                 .onStatus(
                         status -> status.equals(HttpStatus.NOT_FOUND),
                         clientResponse -> Mono.error(new ResourceNotFoundException("Account not found with ID: " + accountId))
                 )
-                .bodyToMono(AccountDto.class)
-                .block();
+                .bodyToMono(AccountDto.class);
     }
 
-    public AccountDto getAccountByNumber(Long userId, String accountNumber) {
-        return webClientBuilder.build()
+    public Mono<AccountDto> getAccountByNumber(Long userId, String accountNumber) {
+        return accountServiceWebClient
                 .get()
-                .uri("lb://account-service/api/accounts/number/{accountNumber}", accountNumber)
+                .uri("/api/accounts/number/{accountNumber}", accountNumber)
                 .header("X-User-Id", userId.toString())
                 .retrieve()
                 .onStatus(
                         status -> status.equals(HttpStatus.NOT_FOUND),
                         clientResponse -> Mono.error(new ResourceNotFoundException("Account not found with number: " + accountNumber))
                 )
-                .bodyToMono(AccountDto.class)
-                .block();
+                .bodyToMono(AccountDto.class);
+    }
+
+    // One round trip for several accounts: the caller's own among accountIds, any among accountNumbers.
+    // Keys that match nothing are simply absent from the list.
+    public Mono<List<AccountDto>> lookupAccounts(Long userId, List<Long> accountIds, List<String> accountNumbers) {
+        return accountServiceWebClient
+                .post()
+                .uri("/api/accounts/lookup")
+                .header("X-User-Id", userId.toString())
+                .bodyValue(new AccountLookupDto(accountIds, accountNumbers))
+                .retrieve()
+                .bodyToFlux(AccountDto.class)
+                .collectList();
     }
 
-    public void updateBalance(Long userId, Long accountId, BigDecimal newBalance) {
-        webClientBuilder.build()
+    public Mono<AccountDto> creditAccount(Long userId, Long accountId, BigDecimal amount) {
+        return accountServiceWebClient
                 .put()
-                .uri("lb://account-service/api/accounts/{id}/balance", accountId)
+                .uri("/api/accounts/{id}/credit", accountId)
                 .header("X-User-Id", userId.toString())
-                .bodyValue(newBalance)
+                .bodyValue(new BalanceAdjustmentDto(amount))
                 .retrieve()
                 .onStatus(
                         status -> status.equals(HttpStatus.NOT_FOUND),
                         clientResponse -> Mono.error(new ResourceNotFoundException("Account not found with ID: " + accountId))
                 )
-                .bodyToMono(Void.class)
-                .block();
+                .bodyToMono(AccountDto.class);
     }
 
-    public void transferBetweenAccounts(Long userId, Long fromAccountId, Long toAccountId, BigDecimal amount) {
-        TransferBalanceDto transferDto = new TransferBalanceDto(fromAccountId, toAccountId, amount);
+    public Mono<AccountDto> debitAccount(Long userId, Long accountId, BigDecimal amount) {
+        return accountServiceWebClient
+                .put()
+                .uri("/api/accounts/{id}/debit", accountId)
+                .header("X-User-Id", userId.toString())
+                .bodyValue(new BalanceAdjustmentDto(amount))
+                .retrieve()
+                .onStatus(status -> status.equals(HttpStatus.NOT_FOUND),
+                        clientResponse -> Mono.error(new ResourceNotFoundException("Account not found with ID: " + accountId)))
+                // Apart from insufficient funds, account-service's 400 is a validation failure of the amount, which
+                // WithdrawDto already rules out. Any other error keeps its own status.
+                .onStatus(status -> status.equals(HttpStatus.BAD_REQUEST),
+                        clientResponse -> Mono.error(new InsufficientFundsException("Insufficient funds")))
+                .bodyToMono(AccountDto.class);
+    }
 
-        webClientBuilder.build()
+    public Mono<TransferResultDto> transferBetweenAccounts(Long userId, Long fromAccountId, Long toAccountId, BigDecimal amount, String reference) {
+        TransferBalanceDto transferDto = new TransferBalanceDto(fromAccountId, toAccountId, amount, reference);
+
+        return accountServiceWebClient
                 .put()
-                .uri("lb://account-service/api/accounts/transfer")
+                .uri("/api/accounts/transfer")
                 .header("X-User-Id", userId.toString())
                 .bodyValue(transferDto)
                 .retrieve()
-                .onStatus(status -> status.is4xxClientError() || status.is5xxServerError(),
-                        clientResponse -> {
-                            if (clientResponse.statusCode().equals(HttpStatus.NOT_FOUND)) {
-                                return Mono.error(new ResourceNotFoundException("One of the accounts was not found"));
-                            } else if (clientResponse.statusCode().equals(HttpStatus.BAD_REQUEST)) {
-                                return Mono.error(new InsufficientFundsException("Insufficient funds for transfer"));
-                            }
-                            return clientResponse.bodyToMono(String.class)
-                                    .flatMap(body -> Mono.error(new RuntimeException("Error during transfer: " + body)));
-                        })
-                .bodyToMono(Void.class)
-                .block();
+                .onStatus(status -> status.is4xxClientError() || status.is5xxServerError(), this::mapTransferError)
+                .bodyToMono(TransferResultDto.class);
+    }
+
+    public Mono<BatchTransferResultDto> batchTransfer(Long userId, BatchTransferBalanceDto batchDto) {
+        return accountServiceWebClient
+                .put()
+                .uri("/api/accounts/transfer/batch")
+                .header("X-User-Id", userId.toString())
+                .httpRequest(request -> request.<HttpClientRequest>getNativeRequest()
+                        .responseTimeout(Duration.ofMillis(batchResponseTimeoutMs)))
+                .bodyValue(batchDto)
+                .retrieve()
+                .onStatus(status -> status.is4xxClientError() || status.is5xxServerError(), this::mapTransferError)
+                .bodyToMono(BatchTransferResultDto.class);
+    }
+
+    public Mono<TransferResultDto> reverseTransfer(Long userId, String reference) {
+        return accountServiceWebClient
+                .put()
+                .uri("/api/accounts/transfer/{reference}/reverse", reference)
+                .header("X-User-Id", userId.toString())
+                .retrieve()
+                .onStatus(status -> status.is4xxClientError() || status.is5xxServerError(), this::mapTransferError)
+                .bodyToMono(TransferResultDto.class);
+    }
+
+    private Mono<? extends Throwable> mapTransferError(ClientResponse clientResponse) {
+        if (clientResponse.statusCode().equals(HttpStatus.NOT_FOUND)) {
+            return Mono.error(new ResourceNotFoundException("One of the accounts was not found"));
+        } else if (clientResponse.statusCode().equals(HttpStatus.BAD_REQUEST)) {
+            return Mono.error(new InsufficientFundsException("Insufficient funds for transfer"));
+        } else if (clientResponse.statusCode().equals(HttpStatus.CONFLICT)) {
+            return Mono.error(new TransferReversedException("Transfer has already been reversed"));
+        } else if (clientResponse.statusCode().equals(HttpStatus.UNPROCESSABLE_ENTITY)) {
+            // The reference was first used for a different movement; replaying it will never succeed
+            return Mono.error(new ReferenceConflictException("Transfer reference was already used for a different transfer"));
+        }
+        // Anything else, a 504 for a ledger update whose outcome is unknown included, is not a rejection:
+        // the saga stays pending and recovery retries the reference, which account-service replays
+        return clientResponse.bodyToMono(String.class)
+                .flatMap(body -> Mono.error(new RuntimeException("Error during transfer: " + body)));
     }
-}
\ No newline at end of file
+}
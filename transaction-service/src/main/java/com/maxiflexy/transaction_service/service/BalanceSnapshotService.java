@@ -0,0 +1,89 @@
+package com.maxiflexy.transaction_service.service;
+
+import com.maxiflexy.transaction_service.dto.AccountDto;
+import com.maxiflexy.transaction_service.dto.BalanceSnapshotDto;
+import com.maxiflexy.transaction_service.enums.TransactionStatus;
+import com.maxiflexy.transaction_service.exception.BalanceUnavailableException;
+import com.maxiflexy.transaction_service.exception.ResourceNotFoundException;
+import com.maxiflexy.transaction_service.model.BalanceSnapshot;
+import com.maxiflexy.transaction_service.model.Transaction;
+import com.maxiflexy.transaction_service.repository.BalanceSnapshotRepository;
+import com.maxiflexy.transaction_service.repository.TransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Service
+@Slf4j
+public class BalanceSnapshotService {
+
+    @Autowired
+    private BalanceSnapshotRepository balanceSnapshotRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Value("${app.balance-snapshots.max-catch-up-days:7}")
+    private int maxCatchUpDays;
+
+    // Snapshot every completed day since the last run, so a missed night is filled in on the next one
+    @Scheduled(cron = "${app.balance-snapshots.cron:0 15 0 * * *}")
+    public void takeDailySnapshots() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        LocalDate earliest = yesterday.minusDays(maxCatchUpDays - 1L);
+        LocalDate latest = balanceSnapshotRepository.findLatestSnapshotDate();
+        LocalDate from = latest == null || latest.isBefore(earliest) ? earliest : latest.plusDays(1);
+
+        for (LocalDate day = from; !day.isAfter(yesterday); day = day.plusDays(1)) {
+            try {
+                int accounts = balanceSnapshotRepository.snapshotDay(day, day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+                log.info("Wrote closing balance snapshots for {} accounts on {}", accounts, day);
+            } catch (Exception e) {
+                log.error("Error writing balance snapshots for {}: {}", day, e.getMessage(), e);
+                return;
+            }
+        }
+    }
+
+    public BalanceSnapshotDto getClosingBalance(Long userId, Long accountId, LocalDate date) {
+        // First validate that the account belongs to the user
+        AccountDto account = accountService.getAccountById(userId, accountId).block();
+        if (account == null || !account.getUserId().equals(userId)) {
+            throw new ResourceNotFoundException("Account not found for this user");
+        }
+
+        // A closed day with its own snapshot is answered with a single index lookup. An older snapshot is not
+        // used: the day it stands in for may simply have been missed by the job.
+        if (date.isBefore(LocalDate.now())) {
+            Optional<BalanceSnapshot> snapshot = balanceSnapshotRepository.findByAccountIdAndSnapshotDate(accountId, date);
+            if (snapshot.isPresent()) {
+                return new BalanceSnapshotDto(accountId, date, snapshot.get().getClosingBalance());
+            }
+        }
+
+        // Otherwise the running balance of the last transaction the ledger applied before the end of the day
+        LocalDateTime endOfDay = date.plusDays(1).atStartOfDay();
+        List<Transaction> latest = transactionRepository.findLatestWithBalanceBefore(accountId, endOfDay, Limit.of(1));
+        if (!latest.isEmpty()) {
+            return new BalanceSnapshotDto(accountId, date, latest.get(0).getBalanceAfter());
+        }
+        // Completed transactions recorded before running balances were tracked leave the balance unknown, not zero
+        if (transactionRepository.existsByAccountIdAndStatusAndBalanceAfterIsNullAndTransactionDateBefore(
+                accountId, TransactionStatus.COMPLETED, endOfDay)) {
+            throw new BalanceUnavailableException("The closing balance on " + date + " cannot be determined from this account's history");
+        }
+        return new BalanceSnapshotDto(accountId, date, BigDecimal.ZERO);
+    }
+}
@@ -0,0 +1,287 @@
+package com.maxiflexy.transaction_service.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.maxiflexy.transaction_service.dto.AccountDto;
+import com.maxiflexy.transaction_service.dto.BatchTransferBalanceDto;
+import com.maxiflexy.transaction_service.dto.BatchTransferDto;
+import com.maxiflexy.transaction_service.dto.BatchTransferLineResultDto;
+import com.maxiflexy.transaction_service.dto.BatchTransferResultDto;
+import com.maxiflexy.transaction_service.dto.NotificationDto;
+import com.maxiflexy.transaction_service.enums.TransactionStatus;
+import com.maxiflexy.transaction_service.enums.TransactionType;
+import com.maxiflexy.transaction_service.exception.InsufficientFundsException;
+import com.maxiflexy.transaction_service.exception.ReferenceConflictException;
+import com.maxiflexy.transaction_service.exception.ResourceNotFoundException;
+import com.maxiflexy.transaction_service.model.BatchTransfer;
+import com.maxiflexy.transaction_service.repository.BatchTransferRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Pays many beneficiaries from one source account. The source is checked once, account-service
+ * resolves the destinations and posts the whole batch as one journal entry, and the resulting
+ * transaction legs and notifications are written here in JDBC batches.
+ * <p>
+ * Like a transfer, a batch is stored PENDING before the balance step. When that step fails without a
+ * clear answer, or its result cannot be recorded, the batch stays PENDING and
+ * {@link TransferRecoveryWorker} finishes it by replaying the reference, which account-service answers
+ * with the first attempt's result.
+ */
+@Service
+@Slf4j
+public class BatchTransferService {
+
+    private static final String INSERT_TRANSACTION_SQL = "INSERT INTO transactions " +
+            "(user_id, account_id, target_account_id, amount, balance_after, journal_entry_id, type, description, reference, status, transaction_date) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private BatchTransferRepository batchTransferRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private Scheduler jdbcScheduler;
+
+    @Value("${app.batch-transfers.insert-chunk-size:500}")
+    private int insertChunkSize;
+
+    public Mono<BatchTransferResultDto> execute(Long userId, BatchTransferDto batchDto) {
+        String reference = "batch:" + UUID.randomUUID();
+
+        return accountService.getAccountById(userId, batchDto.getFromAccountId())
+                .filter(account -> account.getUserId().equals(userId))
+                .switchIfEmpty(Mono.error(new ResourceNotFoundException("Source account not found for this user")))
+                .flatMap(fromAccount -> inTransaction(() -> begin(userId, fromAccount.getId(), batchDto, reference))
+                        .then(accountService.batchTransfer(userId, new BatchTransferBalanceDto(fromAccount.getId(), reference, batchDto.getLines()))
+                                .map(Optional::of)
+                                // A rejected balance step moved no money, so the batch simply ends as FAILED
+                                .onErrorResume(this::isRejection, e -> inTransaction(() -> fail(reference))
+                                        .then(Mono.<Optional<BatchTransferResultDto>>error(e)))
+                                .onErrorResume(e -> !isRejection(e), e -> {
+                                    log.warn("Outcome of batch {} is unknown, leaving it PENDING for recovery: {}", reference, e.getMessage());
+                                    return Mono.just(Optional.empty());
+                                }))
+                        .flatMap(result -> result.isEmpty()
+                                ? Mono.just(pending(reference, fromAccount.getId()))
+                                : inTransaction(() -> complete(userId, fromAccount, batchDto, reference, result.get()))
+                                        .onErrorResume(e -> {
+                                            // The money has moved; recovery records it from the replayed result
+                                            log.error("Recording batch {} failed after the balance step, leaving it PENDING for recovery: {}",
+                                                    reference, e.getMessage(), e);
+                                            return Mono.just(pending(reference, fromAccount.getId()));
+                                        })));
+    }
+
+    // Drives a PENDING batch to its outcome. Runs outside any transaction, like TransferSagaService.resume:
+    // the remote calls hold no connection and only the final update locks the batch row.
+    public void resume(String reference) {
+        BatchTransfer batch = batchTransferRepository.findById(reference)
+                .orElseThrow(() -> new IllegalStateException("Batch " + reference + " not found"));
+        if (batch.getStatus() != TransactionStatus.PENDING) {
+            return;
+        }
+
+        BatchTransferDto batchDto = read(batch.getRequestBody(), BatchTransferDto.class);
+        BatchTransferResultDto result;
+        // Only the replay's answer decides the outcome: an earlier, unclear attempt may already have moved the money
+        try {
+            result = accountService.batchTransfer(batch.getUserId(),
+                    new BatchTransferBalanceDto(batch.getFromAccountId(), reference, batchDto.getLines())).block();
+        } catch (ResourceNotFoundException | InsufficientFundsException | ReferenceConflictException e) {
+            transactionTemplate.execute(status -> fail(reference));
+            log.info("Batch {} failed: {}", reference, e.getMessage());
+            return;
+        }
+
+        // Needed for the legs and notifications; if it cannot be loaded the batch stays PENDING for the next attempt
+        AccountDto fromAccount = accountService.getAccountById(batch.getUserId(), batch.getFromAccountId()).block();
+        transactionTemplate.execute(status -> complete(batch.getUserId(), fromAccount, batchDto, reference, result));
+        log.info("Batch {} completed", reference);
+    }
+
+    public BatchTransferResultDto getBatchStatus(Long userId, String reference) {
+        BatchTransfer batch = batchTransferRepository.findByReferenceAndUserId(reference, userId)
+                .orElseThrow(() -> new ResourceNotFoundException("Batch transfer not found"));
+        if (batch.getStatus() == TransactionStatus.COMPLETED) {
+            return read(batch.getResultBody(), BatchTransferResultDto.class);
+        }
+        BatchTransferResultDto result = pending(reference, batch.getFromAccountId());
+        result.setStatus(batch.getStatus());
+        return result;
+    }
+
+    private Void begin(Long userId, Long fromAccountId, BatchTransferDto batchDto, String reference) {
+        BatchTransfer batch = new BatchTransfer();
+        batch.setReference(reference);
+        batch.setUserId(userId);
+        batch.setFromAccountId(fromAccountId);
+        batch.setRequestBody(write(batchDto));
+        batch.setStatus(TransactionStatus.PENDING);
+        batchTransferRepository.save(batch);
+        return null;
+    }
+
+    // Records the legs and marks the batch COMPLETED, unless recovery has already done so
+    private BatchTransferResultDto complete(Long userId, AccountDto fromAccount, BatchTransferDto batchDto,
+                                            String reference, BatchTransferResultDto result) {
+        BatchTransfer batch = batchTransferRepository.lockByReference(reference)
+                .orElseThrow(() -> new IllegalStateException("Batch " + reference + " not found"));
+        if (batch.getStatus() == TransactionStatus.COMPLETED) {
+            return read(batch.getResultBody(), BatchTransferResultDto.class);
+        }
+
+        BatchTransferResultDto recorded = record(userId, fromAccount, batchDto, reference, result);
+        batch.setStatus(TransactionStatus.COMPLETED);
+        batch.setResultBody(write(recorded));
+        return recorded;
+    }
+
+    private Void fail(String reference) {
+        batchTransferRepository.lockByReference(reference)
+                .filter(batch -> batch.getStatus() == TransactionStatus.PENDING)
+                .ifPresent(batch -> batch.setStatus(TransactionStatus.FAILED));
+        return null;
+    }
+
+    private BatchTransferResultDto pending(String reference, Long fromAccountId) {
+        BatchTransferResultDto result = new BatchTransferResultDto();
+        result.setReference(reference);
+        result.setStatus(TransactionStatus.PENDING);
+        result.setFromAccountId(fromAccountId);
+        return result;
+    }
+
+    private BatchTransferResultDto record(Long userId, AccountDto fromAccount, BatchTransferDto batchDto,
+                                          String reference, BatchTransferResultDto result) {
+        List<BatchTransferLineResultDto> lines = result.getLines();
+        Long entryId = result.getJournalEntryId();
+        Timestamp transactionDate = Timestamp.valueOf(LocalDateTime.now());
+        String description = batchDto.getDescription() != null ? batchDto.getDescription() : "Batch transfer";
+
+        // The source is debited once for the total, so walk its balance back up to give each line a running balance
+        BigDecimal runningBalance = result.getFromAccountBalance().add(result.getTotalAmount());
+
+        List<Object[]> rows = new ArrayList<>();
+        List<NotificationDto> notifications = new ArrayList<>();
+        int completed = 0;
+        for (int i = 0; i < lines.size(); i++) {
+            BatchTransferLineResultDto line = lines.get(i);
+            String lineReference = reference + ":" + i;
+
+            if (line.getStatus() != TransactionStatus.COMPLETED) {
+                rows.add(new Object[]{userId, fromAccount.getId(), null, line.getAmount(), null, null,
+                        TransactionType.TRANSFER_OUT.name(), description, lineReference, TransactionStatus.FAILED.name(), transactionDate});
+                continue;
+            }
+
+            runningBalance = runningBalance.subtract(line.getAmount());
+            rows.add(new Object[]{userId, fromAccount.getId(), line.getToAccountId(), line.getAmount(), runningBalance, entryId,
+                    TransactionType.TRANSFER_OUT.name(), description, lineReference, TransactionStatus.COMPLETED.name(), transactionDate});
+            rows.add(new Object[]{line.getToUserId(), line.getToAccountId(), fromAccount.getId(), line.getAmount(), line.getToAccountBalance(), entryId,
+                    TransactionType.TRANSFER_IN.name(), "Transfer from " + fromAccount.getAccountNumber(), lineReference,
+                    TransactionStatus.COMPLETED.name(), transactionDate});
+            notifications.add(recipientNotification(fromAccount, line));
+            completed++;
+        }
+
+        for (int from = 0; from < rows.size(); from += insertChunkSize) {
+            jdbcTemplate.batchUpdate(INSERT_TRANSACTION_SQL, rows.subList(from, Math.min(from + insertChunkSize, rows.size())));
+        }
+
+        // The sender gets one summary instead of a message per beneficiary
+        if (completed > 0) {
+            notifications.add(senderNotification(fromAccount, completed, result.getTotalAmount()));
+            outboxService.enqueueNotifications(notifications);
+        }
+
+        result.setReference(reference);
+        result.setStatus(TransactionStatus.COMPLETED);
+        result.setCompletedCount(completed);
+        result.setFailedCount(lines.size() - completed);
+        log.info("Batch {} recorded: {} lines completed, {} failed", reference, completed, lines.size() - completed);
+        return result;
+    }
+
+    private NotificationDto senderNotification(AccountDto fromAccount, int completed, BigDecimal total) {
+        NotificationDto notification = new NotificationDto();
+        notification.setRecipientEmail(fromAccount.getEmail());
+        notification.setRecipientName(fromAccount.getFullName());
+        notification.setSubject("Batch Transfer Successful");
+        notification.setMessage("You have transferred " + total + " to " + completed + " accounts");
+        notification.setAccountNumber(fromAccount.getAccountNumber());
+        notification.setAmount(total);
+        notification.setTransactionType("TRANSFER_OUT");
+        notification.setTimestamp(LocalDateTime.now());
+        return notification;
+    }
+
+    private NotificationDto recipientNotification(AccountDto fromAccount, BatchTransferLineResultDto line) {
+        NotificationDto notification = new NotificationDto();
+        notification.setRecipientEmail(line.getToEmail());
+        notification.setRecipientName(line.getToFullName());
+        notification.setSenderName(fromAccount.getFullName());
+        notification.setSubject("Transfer Received");
+        notification.setMessage("You have received " + line.getAmount() + " from account " + fromAccount.getAccountNumber());
+        notification.setAccountNumber(line.getToAccountNumber());
+        notification.setAmount(line.getAmount());
+        notification.setTransactionType("TRANSFER_IN");
+        notification.setTimestamp(LocalDateTime.now());
+        return notification;
+    }
+
+    private String write(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Error serializing batch transfer", e);
+        }
+    }
+
+    private <T> T read(String body, Class<T> type) {
+        try {
+            return objectMapper.readValue(body, type);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Error reading stored batch transfer", e);
+        }
+    }
+
+    private <T> Mono<T> inTransaction(Supplier<T> work) {
+        return Mono.fromCallable(() -> transactionTemplate.execute(status -> work.get()))
+                .subscribeOn(jdbcScheduler);
+    }
+
+    private boolean isRejection(Throwable e) {
+        return e instanceof ResourceNotFoundException || e instanceof InsufficientFundsException
+                || e instanceof ReferenceConflictException;
+    }
+}
@@ -0,0 +1,249 @@
+package com.maxiflexy.transaction_service.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.maxiflexy.transaction_service.dto.TransactionDto;
+import com.maxiflexy.transaction_service.enums.IdempotencyStatus;
+import com.maxiflexy.transaction_service.enums.TransactionStatus;
+import com.maxiflexy.transaction_service.exception.IdempotencyConflictException;
+import com.maxiflexy.transaction_service.exception.IdempotencyKeyMismatchException;
+import com.maxiflexy.transaction_service.exception.InsufficientFundsException;
+import com.maxiflexy.transaction_service.exception.ReferenceConflictException;
+import com.maxiflexy.transaction_service.exception.ResourceNotFoundException;
+import com.maxiflexy.transaction_service.exception.TransferQueueFullException;
+import com.maxiflexy.transaction_service.model.IdempotencyRecord;
+import com.maxiflexy.transaction_service.repository.IdempotencyRecordRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Replays the stored result of a money movement when a client retries it with the same
+ * Idempotency-Key. Completed responses are kept in a bounded in-memory cache and persisted
+ * to the idempotency_keys table so retries are recognised across restarts and instances.
+ * A transfer whose outcome is still unknown keeps its claim, so a retry never starts a second one.
+ * Each key remembers a hash of the request it was first used with, and a retry with a different
+ * body is refused. Any other unsettled claim answers 409 until the key expires: the request holding it
+ * may have moved money before it died, and deposits and withdrawals carry no reference to replay.
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final Cache<String, Object> responseCache;
+    private final Scheduler jdbcScheduler;
+
+    @Autowired
+    public IdempotencyService(IdempotencyRecordRepository idempotencyRecordRepository,
+                              ObjectMapper objectMapper,
+                              Scheduler jdbcScheduler,
+                              @Value("${app.idempotency.ttl-hours:24}") long ttlHours,
+                              @Value("${app.idempotency.cache-max-size:10000}") long cacheMaxSize) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.objectMapper = objectMapper;
+        this.jdbcScheduler = jdbcScheduler;
+        this.ttl = Duration.ofHours(ttlHours);
+        this.responseCache = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    public Mono<TransactionDto> execute(Long userId, String idempotencyKey, String operation, Object request,
+                                        Supplier<Mono<TransactionDto>> action) {
+        return execute(userId, idempotencyKey, operation, request, TransactionDto.class, action);
+    }
+
+    public <T> Mono<T> execute(Long userId, String idempotencyKey, String operation, Object request,
+                               Class<T> responseType, Supplier<Mono<T>> action) {
+        return execute(userId, idempotencyKey, operation, request, responseType, action, result -> null, null);
+    }
+
+    // A transfer that comes back PENDING keeps its claim, tied to the saga reference; a retry then reports
+    // the saga's current state through statusLookup rather than starting a second transfer
+    public Mono<TransactionDto> executeTransfer(Long userId, String idempotencyKey, String operation, Object request,
+                                                Supplier<Mono<TransactionDto>> action,
+                                                Function<String, TransactionDto> statusLookup) {
+        return execute(userId, idempotencyKey, operation, request, TransactionDto.class, action,
+                result -> result.getStatus() == TransactionStatus.PENDING ? result.getReference() : null,
+                statusLookup);
+    }
+
+    // pendingReference names the operation a result left PENDING (null once settled); statusLookup reports its current state
+    public <T> Mono<T> execute(Long userId, String idempotencyKey, String operation, Object request,
+                               Class<T> responseType, Supplier<Mono<T>> action, Function<T, String> pendingReference,
+                               Function<String, T> statusLookup) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return action.get();
+        }
+
+        // The hash is part of the cache key, so a retry with a different body misses and is refused below
+        String requestHash = fingerprint(request);
+        String cacheKey = userId + ":" + operation + ":" + idempotencyKey + ":" + requestHash;
+        Object cached = responseCache.getIfPresent(cacheKey);
+        if (cached != null) {
+            log.info("Replaying cached response for idempotency key {}", idempotencyKey);
+            return Mono.just(responseType.cast(cached));
+        }
+
+        return Mono.fromCallable(() -> lookupOrClaim(userId, idempotencyKey, operation, requestHash, cacheKey, responseType,
+                        statusLookup != null))
+                .subscribeOn(jdbcScheduler)
+                .flatMap(lookup -> {
+                    if (lookup.replay() != null) {
+                        return Mono.just(lookup.replay());
+                    }
+                    IdempotencyRecord claim = lookup.claim();
+                    if (claim.getReference() != null) {
+                        return Mono.fromCallable(() -> resolve(claim, cacheKey, statusLookup, pendingReference))
+                                .subscribeOn(jdbcScheduler);
+                    }
+                    return action.get()
+                            // Only a rejected request is known to have moved no money, so only then is the key
+                            // released for a retry. Any other failure keeps the claim.
+                            .onErrorResume(this::isRejection, e -> Mono.fromRunnable(() -> idempotencyRecordRepository.delete(claim))
+                                    .subscribeOn(jdbcScheduler)
+                                    .then(Mono.<T>error(e)))
+                            .flatMap(result -> Mono.fromCallable(() -> settle(claim, cacheKey, result, pendingReference))
+                                    .subscribeOn(jdbcScheduler));
+                });
+    }
+
+    // Run every hour to drop keys past their retention window
+    @Scheduled(fixedRate = 3600000)
+    public void purgeExpiredKeys() {
+        try {
+            int deleted = idempotencyRecordRepository.deleteExpired(LocalDateTime.now());
+            log.info("Purged {} expired idempotency keys", deleted);
+        } catch (Exception e) {
+            log.error("Error purging idempotency keys: {}", e.getMessage(), e);
+        }
+    }
+
+    private <T> Lookup<T> lookupOrClaim(Long userId, String idempotencyKey, String operation, String requestHash,
+                                        String cacheKey, Class<T> responseType, boolean resolvable) {
+        Optional<IdempotencyRecord> existing = idempotencyRecordRepository.findByUserIdAndIdempotencyKey(userId, idempotencyKey);
+        if (existing.isPresent()) {
+            IdempotencyRecord record = existing.get();
+            if (record.getExpiresAt().isAfter(LocalDateTime.now())) {
+                if (!record.getOperation().equals(operation)) {
+                    throw new IdempotencyConflictException("Idempotency key was already used for a different operation");
+                }
+                if (record.getRequestHash() != null && !record.getRequestHash().equals(requestHash)) {
+                    throw new IdempotencyKeyMismatchException("Idempotency key was already used with a different request");
+                }
+                if (resolvable && record.getStatus() == IdempotencyStatus.IN_PROGRESS && record.getReference() != null) {
+                    return new Lookup<>(null, record);
+                }
+                return new Lookup<>(replay(cacheKey, record, responseType), null);
+            }
+            idempotencyRecordRepository.delete(record);
+        }
+        return new Lookup<>(null, claim(userId, idempotencyKey, operation, requestHash));
+    }
+
+    // Completes the claim, or keeps it tied to the saga when the result is still PENDING
+    private <T> T settle(IdempotencyRecord claim, String cacheKey, T result, Function<T, String> pendingReference) {
+        String reference = pendingReference.apply(result);
+        if (reference == null) {
+            return complete(claim, cacheKey, result);
+        }
+        claim.setReference(reference);
+        idempotencyRecordRepository.save(claim);
+        return result;
+    }
+
+    private <T> T resolve(IdempotencyRecord claim, String cacheKey, Function<String, T> statusLookup, Function<T, String> pendingReference) {
+        log.info("Reporting transfer {} for idempotency key {}", claim.getReference(), claim.getIdempotencyKey());
+        T state = statusLookup.apply(claim.getReference());
+        return pendingReference.apply(state) == null ? complete(claim, cacheKey, state) : state;
+    }
+
+    private boolean isRejection(Throwable e) {
+        return e instanceof ResourceNotFoundException || e instanceof InsufficientFundsException
+                || e instanceof TransferQueueFullException || e instanceof ReferenceConflictException;
+    }
+
+    private <T> T complete(IdempotencyRecord claim, String cacheKey, T result) {
+        claim.setStatus(IdempotencyStatus.COMPLETED);
+        claim.setResponseBody(serialize(result));
+        idempotencyRecordRepository.save(claim);
+        responseCache.put(cacheKey, result);
+        return result;
+    }
+
+    private IdempotencyRecord claim(Long userId, String idempotencyKey, String operation, String requestHash) {
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setUserId(userId);
+        record.setIdempotencyKey(idempotencyKey);
+        record.setOperation(operation);
+        record.setRequestHash(requestHash);
+        record.setStatus(IdempotencyStatus.IN_PROGRESS);
+        record.setExpiresAt(LocalDateTime.now().plus(ttl));
+        try {
+            return idempotencyRecordRepository.saveAndFlush(record);
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent retry inserted the same key first
+            throw new IdempotencyConflictException("A request with this idempotency key is already being processed");
+        }
+    }
+
+    private <T> T replay(String cacheKey, IdempotencyRecord record, Class<T> responseType) {
+        if (record.getStatus() != IdempotencyStatus.COMPLETED) {
+            throw new IdempotencyConflictException("A request with this idempotency key is already being processed");
+        }
+
+        T response = deserialize(record.getResponseBody(), responseType);
+        responseCache.put(cacheKey, response);
+        log.info("Replaying stored response for idempotency key {}", record.getIdempotencyKey());
+        return response;
+    }
+
+    private String fingerprint(Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new RuntimeException("Error fingerprinting idempotent request", e);
+        }
+    }
+
+    private String serialize(Object response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Error serializing idempotent response", e);
+        }
+    }
+
+    private <T> T deserialize(String responseBody, Class<T> responseType) {
+        try {
+            return objectMapper.readValue(responseBody, responseType);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Error reading stored idempotent response", e);
+        }
+    }
+
+    // Either the stored response to replay, or the claimed record: fresh, or tied to a PENDING transfer
+    private record Lookup<T>(T replay, IdempotencyRecord claim) {
+    }
+}
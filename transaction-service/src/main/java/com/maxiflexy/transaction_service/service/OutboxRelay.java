@@ -0,0 +1,160 @@
+package com.maxiflexy.transaction_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.maxiflexy.transaction_service.dto.NotificationDto;
+import com.maxiflexy.transaction_service.model.OutboxDeadLetter;
+import com.maxiflexy.transaction_service.model.OutboxEvent;
+import com.maxiflexy.transaction_service.repository.OutboxDeadLetterRepository;
+import com.maxiflexy.transaction_service.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes outbox rows to Kafka in batches. Sends within a batch are pipelined up to
+ * app.outbox.max-in-flight and rows are deleted only after the broker acknowledged them. An event
+ * that still fails after app.outbox.max-attempts moves to outbox_dead_letters, so it no longer sits
+ * at the head of every batch.
+ */
+@Service
+@Slf4j
+public class OutboxRelay {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxDeadLetterRepository outboxDeadLetterRepository;
+    private final KafkaTemplate<String, NotificationDto> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    private final int batchSize;
+    private final int maxInFlight;
+    private final long sendTimeoutSeconds;
+    private final int maxAttempts;
+
+    private final AtomicLong oldestEventAgeMillis = new AtomicLong();
+    private final Counter publishedCounter;
+    private final Counter failedCounter;
+    private final Counter deadLetteredCounter;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       OutboxDeadLetterRepository outboxDeadLetterRepository,
+                       KafkaTemplate<String, NotificationDto> kafkaTemplate,
+                       ObjectMapper objectMapper,
+                       PlatformTransactionManager transactionManager,
+                       MeterRegistry meterRegistry,
+                       @Value("${app.outbox.batch-size:100}") int batchSize,
+                       @Value("${app.outbox.max-in-flight:50}") int maxInFlight,
+                       @Value("${app.outbox.send-timeout-seconds:10}") long sendTimeoutSeconds,
+                       @Value("${app.outbox.max-attempts:10}") int maxAttempts) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.outboxDeadLetterRepository = outboxDeadLetterRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxInFlight = maxInFlight;
+        this.sendTimeoutSeconds = sendTimeoutSeconds;
+        this.maxAttempts = maxAttempts;
+
+        // Lag is the oldest event's age, read off the primary key index; a count(*) every poll would scan the table
+        Gauge.builder("outbox.events.oldest.age", oldestEventAgeMillis, AtomicLong::get)
+                .description("Age of the oldest unpublished outbox event")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        this.publishedCounter = Counter.builder("outbox.events.published").register(meterRegistry);
+        this.failedCounter = Counter.builder("outbox.events.failed").register(meterRegistry);
+        this.deadLetteredCounter = Counter.builder("outbox.events.dead-lettered").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:500}")
+    public void relay() {
+        try {
+            Integer published;
+            // Keep draining while batches come back full; a short or failed batch waits for the next poll
+            do {
+                published = transactionTemplate.execute(status -> publishBatch());
+            } while (published != null && published == batchSize);
+        } catch (Exception e) {
+            log.error("Error relaying outbox events: {}", e.getMessage(), e);
+        } finally {
+            refreshLagMetrics();
+        }
+    }
+
+    private int publishBatch() {
+        List<OutboxEvent> events = outboxEventRepository.claimBatch(batchSize);
+        if (events.isEmpty()) {
+            return 0;
+        }
+
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        List<CompletableFuture<?>> sends = new ArrayList<>(events.size());
+        for (OutboxEvent event : events) {
+            inFlight.acquireUninterruptibly();
+            try {
+                NotificationDto notification = objectMapper.readValue(event.getPayload(), NotificationDto.class);
+                sends.add(kafkaTemplate.send(event.getTopic(), notification)
+                        .whenComplete((result, ex) -> inFlight.release()));
+            } catch (Exception e) {
+                inFlight.release();
+                sends.add(CompletableFuture.failedFuture(e));
+            }
+        }
+
+        List<OutboxEvent> delivered = new ArrayList<>(events.size());
+        List<OutboxEvent> deadLettered = new ArrayList<>();
+        List<OutboxDeadLetter> deadLetters = new ArrayList<>();
+        for (int i = 0; i < events.size(); i++) {
+            OutboxEvent event = events.get(i);
+            try {
+                sends.get(i).get(sendTimeoutSeconds, TimeUnit.SECONDS);
+                delivered.add(event);
+            } catch (Exception e) {
+                // Left in the table for the next poll; the attempt count is flushed on commit
+                event.setAttempts(event.getAttempts() + 1);
+                failedCounter.increment();
+                if (event.getAttempts() >= maxAttempts) {
+                    log.error("Giving up on outbox event {} after {} attempts: {}", event.getId(), event.getAttempts(), e.getMessage());
+                    deadLettered.add(event);
+                    deadLetters.add(OutboxDeadLetter.fromEvent(event, e.getMessage()));
+                } else {
+                    log.warn("Failed to publish outbox event {} (attempt {}): {}", event.getId(), event.getAttempts(), e.getMessage());
+                }
+            }
+        }
+
+        outboxEventRepository.deleteAllInBatch(delivered);
+        publishedCounter.increment(delivered.size());
+        if (!deadLettered.isEmpty()) {
+            outboxDeadLetterRepository.saveAll(deadLetters);
+            outboxEventRepository.deleteAllInBatch(deadLettered);
+            deadLetteredCounter.increment(deadLettered.size());
+        }
+        return delivered.size();
+    }
+
+    private void refreshLagMetrics() {
+        try {
+            LocalDateTime oldest = outboxEventRepository.findOldestCreatedAt();
+            oldestEventAgeMillis.set(oldest == null ? 0 : Duration.between(oldest, LocalDateTime.now()).toMillis());
+        } catch (Exception e) {
+            log.warn("Unable to refresh outbox lag metrics: {}", e.getMessage());
+        }
+    }
+}
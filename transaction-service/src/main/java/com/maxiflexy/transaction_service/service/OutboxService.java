@@ -0,0 +1,60 @@
+package com.maxiflexy.transaction_service.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.maxiflexy.transaction_service.dto.NotificationDto;
+import com.maxiflexy.transaction_service.model.OutboxEvent;
+import com.maxiflexy.transaction_service.repository.OutboxEventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+public class OutboxService {
+
+    public static final String TRANSACTION_NOTIFICATIONS_TOPIC = "transaction-notifications";
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Must join the caller's transaction so the event is only visible once the transaction rows commit
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueNotification(NotificationDto notification) {
+        OutboxEvent event = new OutboxEvent();
+        event.setTopic(TRANSACTION_NOTIFICATIONS_TOPIC);
+        event.setPayload(serialize(notification));
+        outboxEventRepository.save(event);
+    }
+
+    // Same as enqueueNotification for many events at once, written as one JDBC batch
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueNotifications(List<NotificationDto> notifications) {
+        Timestamp createdAt = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(notifications.size());
+        for (NotificationDto notification : notifications) {
+            rows.add(new Object[]{TRANSACTION_NOTIFICATIONS_TOPIC, serialize(notification), createdAt});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO outbox_events (topic, payload, attempts, created_at) VALUES (?, ?, 0, ?)", rows);
+    }
+
+    private String serialize(NotificationDto notification) {
+        try {
+            return objectMapper.writeValueAsString(notification);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Error serializing notification", e);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.maxiflexy.transaction_service.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+@Service
+@Slf4j
+public class PartitionMaintenanceService {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${app.partitions.months-ahead:3}")
+    private int monthsAhead;
+
+    // Keep monthly transactions partitions created ahead of time so inserts never land in the default partition
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${app.partitions.maintenance-cron:0 0 2 * * *}")
+    public void ensureFuturePartitions() {
+        try {
+            jdbcTemplate.execute("SELECT ensure_transactions_partitions(" + monthsAhead + ")");
+            log.info("Transactions partitions ensured for the next {} months", monthsAhead);
+        } catch (Exception e) {
+            log.error("Error creating transactions partitions: {}", e.getMessage(), e);
+        }
+    }
+}
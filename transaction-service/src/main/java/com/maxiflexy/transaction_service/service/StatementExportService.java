@@ -0,0 +1,133 @@
+package com.maxiflexy.transaction_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.maxiflexy.transaction_service.dto.AccountDto;
+import com.maxiflexy.transaction_service.dto.TransactionDto;
+import com.maxiflexy.transaction_service.enums.StatementFormat;
+import com.maxiflexy.transaction_service.exception.ResourceNotFoundException;
+import com.maxiflexy.transaction_service.model.Transaction;
+import com.maxiflexy.transaction_service.repository.TransactionRepository;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Service
+@Slf4j
+public class StatementExportService {
+
+    private static final String CSV_HEADER = "id,transactionDate,type,amount,balanceAfter,status,targetAccountId,description";
+    private static final int FLUSH_EVERY_ROWS = 500;
+    private static final String FORMULA_PREFIXES = "=+-@\t\r";
+
+    private final TransactionRepository transactionRepository;
+    private final AccountService accountService;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+
+    @Autowired
+    public StatementExportService(TransactionRepository transactionRepository,
+                                  AccountService accountService,
+                                  EntityManager entityManager,
+                                  ObjectMapper objectMapper,
+                                  PlatformTransactionManager transactionManager) {
+        this.transactionRepository = transactionRepository;
+        this.accountService = accountService;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        // PostgreSQL only honours the fetch size (server-side cursor) when autocommit is off
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+    }
+
+    public void verifyAccountOwnership(Long userId, Long accountId) {
+        AccountDto account = accountService.getAccountById(userId, accountId).block();
+        if (account == null || !account.getUserId().equals(userId)) {
+            throw new ResourceNotFoundException("Account not found for this user");
+        }
+    }
+
+    public void writeStatement(Long accountId, LocalDateTime startDate, LocalDateTime endDate,
+                               StatementFormat format, OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        if (format == StatementFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        try {
+            readOnlyTransactionTemplate.executeWithoutResult(status -> {
+                try (Stream<Transaction> transactions = transactionRepository.streamByAccountIdAndDateRange(accountId, startDate, endDate)) {
+                    long rows = 0;
+                    Iterator<Transaction> iterator = transactions.iterator();
+                    while (iterator.hasNext()) {
+                        Transaction transaction = iterator.next();
+                        writeRow(writer, format, transaction);
+                        // Drop the row from the persistence context so memory stays flat over long ranges
+                        entityManager.detach(transaction);
+                        if (++rows % FLUSH_EVERY_ROWS == 0) {
+                            writer.flush();
+                        }
+                    }
+                    log.info("Exported {} transactions for account {}", rows, accountId);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    private void writeRow(Writer writer, StatementFormat format, Transaction transaction) throws IOException {
+        if (format == StatementFormat.NDJSON) {
+            writer.write(objectMapper.writeValueAsString(TransactionDto.fromTransaction(transaction)));
+        } else {
+            writer.write(String.valueOf(transaction.getId()));
+            writer.write(',');
+            writer.write(String.valueOf(transaction.getTransactionDate()));
+            writer.write(',');
+            writer.write(transaction.getType().name());
+            writer.write(',');
+            writer.write(transaction.getAmount().toPlainString());
+            writer.write(',');
+            writer.write(transaction.getBalanceAfter() == null ? "" : transaction.getBalanceAfter().toPlainString());
+            writer.write(',');
+            writer.write(transaction.getStatus().name());
+            writer.write(',');
+            writer.write(transaction.getTargetAccountId() == null ? "" : String.valueOf(transaction.getTargetAccountId()));
+            writer.write(',');
+            writer.write(escapeCsv(transaction.getDescription()));
+        }
+        writer.write('\n');
+    }
+
+    private String escapeCsv(String value) {
+        if (value == null) {
+            return "";
+        }
+        // A spreadsheet would run a cell starting like a formula, so such text is forced to read as text
+        if (!value.isEmpty() && FORMULA_PREFIXES.indexOf(value.charAt(0)) >= 0) {
+            value = "'" + value;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -5,24 +5,36 @@ import com.maxiflexy.transaction_service.dto.*;
 import com.maxiflexy.transaction_service.enums.TransactionStatus;
 import com.maxiflexy.transaction_service.enums.TransactionType;
 import com.maxiflexy.transaction_service.exception.InsufficientFundsException;
+import com.maxiflexy.transaction_service.exception.ReferenceConflictException;
 import com.maxiflexy.transaction_service.exception.ResourceNotFoundException;
+import com.maxiflexy.transaction_service.exception.TransferQueueFullException;
 import com.maxiflexy.transaction_service.model.Transaction;
 import com.maxiflexy.transaction_service.repository.TransactionRepository;
+import com.maxiflexy.transaction_service.util.TransactionCursor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.util.function.Tuples;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 public class TransactionService {
 
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+
     @Autowired
     private TransactionRepository transactionRepository;
 
@@ -33,164 +45,204 @@ public class TransactionService {
 //    private NotificationService notificationService;
 
     @Autowired
-    private KafkaTemplate<String, NotificationDto> kafkaTemplate;
+    private OutboxService outboxService;
 
-    @Transactional
-    public TransactionDto deposit(Long userId, DepositDto depositDto) {
-        // Get account from account service
+    @Autowired
+    private TransferSagaService transferSagaService;
 
+    // The money-movement flows return Mono, so their JPA work runs in explicit transactions on the jdbc scheduler
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private Scheduler jdbcScheduler;
+
+    public Mono<TransactionDto> deposit(Long userId, DepositDto depositDto) {
         log.info("userId from request, {}", userId);
         log.info("Deposit request, {}", depositDto);
-        AccountDto account = accountService.getAccountById(userId, depositDto.getAccountId());
 
-        // Verify user owns the account
-        if (!account.getUserId().equals(userId)) {
+        // Credit the account in a single atomic call; account-service enforces ownership
+        return accountService.creditAccount(userId, depositDto.getAccountId(), depositDto.getAmount())
+                .flatMap(account -> inTransaction(() -> recordDeposit(userId, account, depositDto)));
+    }
+
+    public Mono<TransactionDto> withdraw(Long userId, WithdrawDto withdrawDto) {
+        // Debit the account in a single atomic call; account-service rejects it when funds are insufficient
+        return accountService.debitAccount(userId, withdrawDto.getAccountId(), withdrawDto.getAmount())
+                .flatMap(account -> inTransaction(() -> recordWithdrawal(userId, account, withdrawDto)));
+    }
+
+    public Mono<TransactionDto> transfer(Long userId, TransferDto transferDto) {
+        return prepareTransfer(userId, transferDto, (fromAccount, toAccount) ->
+                // Run the transfer saga: PENDING records, balance step, then completion or compensation
+                transferSagaService.execute(userId, fromAccount, toAccount, transferDto)
+                        .onErrorMap(e -> !isDomainException(e), e -> {
+                            log.error("Transfer failed: {}", e.getMessage());
+                            return new RuntimeException("Failed to process transfer between accounts: " + e.getMessage());
+                        }));
+    }
+
+    public Mono<TransactionDto> transferAsync(Long userId, TransferDto transferDto) {
+        // Only the lookups and checks run on the request; the saga continues on the source account's lane
+        return prepareTransfer(userId, transferDto, (fromAccount, toAccount) ->
+                transferSagaService.submit(userId, fromAccount, toAccount, transferDto));
+    }
+
+    public TransactionDto getTransferStatus(Long userId, String reference) {
+        Transaction transaction = transactionRepository.findByReferenceAndUserIdAndType(reference, userId, TransactionType.TRANSFER_OUT)
+                .orElseThrow(() -> new ResourceNotFoundException("Transfer not found"));
+        return TransactionDto.fromTransaction(transaction);
+    }
+
+    private Mono<TransactionDto> prepareTransfer(Long userId, TransferDto transferDto,
+                                                 BiFunction<AccountDto, AccountDto, Mono<TransactionDto>> action) {
+        // Source and destination come back from one lookup; ids only match accounts the user owns
+        return accountService.lookupAccounts(userId, List.of(transferDto.getFromAccountId()), List.of(transferDto.getToAccountNumber()))
+                .map(accounts -> {
+                    AccountDto fromAccount = accounts.stream()
+                            .filter(account -> account.getId().equals(transferDto.getFromAccountId()) && account.getUserId().equals(userId))
+                            .findFirst()
+                            .orElseThrow(() -> new ResourceNotFoundException("Source account not found for this user"));
+                    AccountDto toAccount = accounts.stream()
+                            .filter(account -> account.getAccountNumber().equals(transferDto.getToAccountNumber()))
+                            .findFirst()
+                            .orElseThrow(() -> new ResourceNotFoundException("Destination account not found. Please check the account number."));
+                    return Tuples.of(fromAccount, toAccount);
+                })
+                .flatMap(accounts -> {
+                    AccountDto fromAccount = accounts.getT1();
+                    AccountDto toAccount = accounts.getT2();
+
+                    // Check sufficient funds; money reserved by holds is not available to transfer
+                    BigDecimal available = fromAccount.getAvailableBalance() != null
+                            ? fromAccount.getAvailableBalance() : fromAccount.getBalance();
+                    if (available.compareTo(transferDto.getAmount()) < 0) {
+                        return Mono.error(new InsufficientFundsException(
+                                "Insufficient funds in account " + fromAccount.getAccountNumber() +
+                                        ". Available balance: " + available
+                        ));
+                    }
+
+                    return action.apply(fromAccount, toAccount);
+                })
+                .onErrorMap(e -> !isDomainException(e), e -> {
+                    log.error("Unexpected error during transfer: {}", e.getMessage(), e);
+                    return new RuntimeException("An unexpected error occurred during transfer. Please try again later.");
+                });
+    }
+
+    public Page<TransactionDto> getTransactionHistory(Long userId, Long accountId, Pageable pageable) {
+        // First validate that the account belongs to the user
+        AccountDto account = accountService.getAccountById(userId, accountId).block();
+        if (account == null || !account.getUserId().equals(userId)) {
+            throw new ResourceNotFoundException("Account not found for this user");
+        }
+
+        Page<Transaction> transactions = transactionRepository.findByAccountId(accountId, pageable);
+        return transactions.map(TransactionDto::fromTransaction);
+    }
+
+    public Page<TransactionDto> getTransactionsByDateRange(Long userId, LocalDateTime startDate, LocalDateTime endDate, Pageable pageable) {
+        Page<Transaction> transactions = transactionRepository.findByUserIdAndTransactionDateBetween(userId, startDate, endDate, pageable);
+        return transactions.map(TransactionDto::fromTransaction);
+    }
+
+    public CursorPageDto<TransactionDto> getTransactionHistoryByCursor(Long userId, Long accountId, String cursor, int size) {
+        // First validate that the account belongs to the user
+        AccountDto account = accountService.getAccountById(userId, accountId).block();
+        if (account == null || !account.getUserId().equals(userId)) {
             throw new ResourceNotFoundException("Account not found for this user");
         }
 
+        int pageSize = clampPageSize(size);
+        Limit limit = Limit.of(pageSize + 1);
+        List<Transaction> transactions;
+        if (cursor == null || cursor.isBlank()) {
+            transactions = transactionRepository.findLatestByAccountId(accountId, limit);
+        } else {
+            TransactionCursor position = TransactionCursor.decode(cursor);
+            transactions = transactionRepository.findByAccountIdBefore(accountId, position.transactionDate(), position.id(), limit);
+        }
+        return toCursorPage(transactions, pageSize);
+    }
+
+    public CursorPageDto<TransactionDto> getTransactionsByDateRangeByCursor(Long userId, LocalDateTime startDate, LocalDateTime endDate, String cursor, int size) {
+        int pageSize = clampPageSize(size);
+        Limit limit = Limit.of(pageSize + 1);
+        List<Transaction> transactions;
+        if (cursor == null || cursor.isBlank()) {
+            transactions = transactionRepository.findLatestByUserIdAndDateRange(userId, startDate, endDate, limit);
+        } else {
+            TransactionCursor position = TransactionCursor.decode(cursor);
+            transactions = transactionRepository.findByUserIdAndDateRangeBefore(
+                    userId, startDate, endDate, position.transactionDate(), position.id(), limit);
+        }
+        return toCursorPage(transactions, pageSize);
+    }
+
+    private CursorPageDto<TransactionDto> toCursorPage(List<Transaction> transactions, int pageSize) {
+        // One row beyond the page size was requested only to detect whether a next page exists
+        boolean hasNext = transactions.size() > pageSize;
+        List<Transaction> page = hasNext ? transactions.subList(0, pageSize) : transactions;
+        String nextCursor = hasNext ? TransactionCursor.of(page.get(page.size() - 1)).encode() : null;
+
+        List<TransactionDto> content = page.stream().map(TransactionDto::fromTransaction).collect(Collectors.toList());
+        return new CursorPageDto<>(content, content.size(), hasNext, nextCursor);
+    }
+
+    private int clampPageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+    }
+
+    private TransactionDto recordDeposit(Long userId, AccountDto account, DepositDto depositDto) {
         // Create a transaction record
         Transaction transaction = new Transaction();
         transaction.setUserId(userId);
         transaction.setAccountId(account.getId());
         transaction.setAmount(depositDto.getAmount());
+        // The credit response reflects the balance produced by this very update
+        transaction.setBalanceAfter(account.getBalance());
+        transaction.setJournalEntryId(account.getJournalEntryId());
         transaction.setType(TransactionType.DEPOSIT);
         transaction.setDescription(depositDto.getDescription());
         transaction.setStatus(TransactionStatus.COMPLETED);
 
-        // Update account balance via account service
-        BigDecimal newBalance = account.getBalance().add(depositDto.getAmount());
-        accountService.updateBalance(userId, account.getId(), newBalance);
-
         Transaction savedTransaction = transactionRepository.save(transaction);
 
         // Send notification
         sendDepositNotification(account, depositDto.getAmount());
 
-        return convertToDto(savedTransaction);
+        return TransactionDto.fromTransaction(savedTransaction);
     }
 
-    @Transactional
-    public TransactionDto withdraw(Long userId, WithdrawDto withdrawDto) {
-        // Get account from account service
-        AccountDto account = accountService.getAccountById(userId, withdrawDto.getAccountId());
-
-        // Verify user owns the account
-        if (!account.getUserId().equals(userId)) {
-            throw new ResourceNotFoundException("Account not found for this user");
-        }
-
-        // Check if sufficient funds
-        if (account.getBalance().compareTo(withdrawDto.getAmount()) < 0) {
-            throw new InsufficientFundsException("Insufficient funds");
-        }
-
+    private TransactionDto recordWithdrawal(Long userId, AccountDto account, WithdrawDto withdrawDto) {
         // Create a transaction record
         Transaction transaction = new Transaction();
         transaction.setUserId(userId);
         transaction.setAccountId(account.getId());
         transaction.setAmount(withdrawDto.getAmount());
+        transaction.setBalanceAfter(account.getBalance());
+        transaction.setJournalEntryId(account.getJournalEntryId());
         transaction.setType(TransactionType.WITHDRAWAL);
         transaction.setDescription(withdrawDto.getDescription());
         transaction.setStatus(TransactionStatus.COMPLETED);
 
-        // Update account balance via account service
-        BigDecimal newBalance = account.getBalance().subtract(withdrawDto.getAmount());
-        accountService.updateBalance(userId, account.getId(), newBalance);
-
         Transaction savedTransaction = transactionRepository.save(transaction);
 
         // Send notification
         sendWithdrawalNotification(account, withdrawDto.getAmount());
 
-        return convertToDto(savedTransaction);
+        return TransactionDto.fromTransaction(savedTransaction);
     }
 
-    @Transactional
-    public TransactionDto transfer(Long userId, TransferDto transferDto) {
-        try {
-            // Get source account from account service
-            AccountDto fromAccount = accountService.getAccountById(userId, transferDto.getFromAccountId());
-
-            // Verify user owns the source account
-            if (!fromAccount.getUserId().equals(userId)) {
-                throw new ResourceNotFoundException("Source account not found for this user");
-            }
-
-            // Get destination account from account service
-            AccountDto toAccount;
-            try {
-                toAccount = accountService.getAccountByNumber(userId, transferDto.getToAccountNumber());
-            } catch (ResourceNotFoundException e) {
-                throw new ResourceNotFoundException("Destination account not found. Please check the account number.");
-            }
-
-            // Check sufficient funds
-            if (fromAccount.getBalance().compareTo(transferDto.getAmount()) < 0) {
-                throw new InsufficientFundsException(
-                        "Insufficient funds in account " + fromAccount.getAccountNumber() +
-                                ". Available balance: " + fromAccount.getBalance()
-                );
-            }
-
-            // Create outgoing transaction
-            Transaction outgoingTransaction = new Transaction();
-            outgoingTransaction.setUserId(userId);
-            outgoingTransaction.setAccountId(fromAccount.getId());
-            outgoingTransaction.setTargetAccountId(toAccount.getId());
-            outgoingTransaction.setAmount(transferDto.getAmount());
-            outgoingTransaction.setType(TransactionType.TRANSFER_OUT);
-            outgoingTransaction.setDescription(transferDto.getDescription());
-            outgoingTransaction.setStatus(TransactionStatus.COMPLETED);
-
-            // Create incoming transaction
-            Transaction incomingTransaction = new Transaction();
-            incomingTransaction.setUserId(toAccount.getUserId());
-            incomingTransaction.setAccountId(toAccount.getId());
-            incomingTransaction.setTargetAccountId(fromAccount.getId());
-            incomingTransaction.setAmount(transferDto.getAmount());
-            incomingTransaction.setType(TransactionType.TRANSFER_IN);
-            incomingTransaction.setDescription("Transfer from " + fromAccount.getAccountNumber());
-            incomingTransaction.setStatus(TransactionStatus.COMPLETED);
-
-            // Execute the transfer
-            try {
-                accountService.transferBetweenAccounts(userId, fromAccount.getId(), toAccount.getId(), transferDto.getAmount());
-            } catch (Exception e) {
-                log.error("Transfer failed: {}", e.getMessage());
-                throw new RuntimeException("Failed to process transfer between accounts: " + e.getMessage());
-            }
-
-            // Save transaction records
-            Transaction savedOutgoingTransaction = transactionRepository.save(outgoingTransaction);
-            transactionRepository.save(incomingTransaction);
-
-            // Send notifications
-            sendTransferNotification(fromAccount, toAccount, transferDto.getAmount());
-
-            return convertToDto(savedOutgoingTransaction);
-        } catch (ResourceNotFoundException | InsufficientFundsException e) {
-            // These are already specific exceptions, just rethrow
-            throw e;
-        } catch (Exception e) {
-            log.error("Unexpected error during transfer: {}", e.getMessage(), e);
-            throw new RuntimeException("An unexpected error occurred during transfer. Please try again later.");
-        }
-    }
-
-    public Page<TransactionDto> getTransactionHistory(Long userId, Long accountId, Pageable pageable) {
-        // First validate that the account belongs to the user
-        AccountDto account = accountService.getAccountById(userId, accountId);
-        if (!account.getUserId().equals(userId)) {
-            throw new ResourceNotFoundException("Account not found for this user");
-        }
-
-        Page<Transaction> transactions = transactionRepository.findByAccountId(accountId, pageable);
-        return transactions.map(this::convertToDto);
+    private <T> Mono<T> inTransaction(Supplier<T> work) {
+        return Mono.fromCallable(() -> transactionTemplate.execute(status -> work.get()))
+                .subscribeOn(jdbcScheduler);
     }
 
-    public Page<TransactionDto> getTransactionsByDateRange(Long userId, LocalDateTime startDate, LocalDateTime endDate, Pageable pageable) {
-        Page<Transaction> transactions = transactionRepository.findByUserIdAndTransactionDateBetween(userId, startDate, endDate, pageable);
-        return transactions.map(this::convertToDto);
+    private boolean isDomainException(Throwable e) {
+        return e instanceof ResourceNotFoundException || e instanceof InsufficientFundsException
+                || e instanceof TransferQueueFullException || e instanceof ReferenceConflictException;
     }
 
     private void sendDepositNotification(AccountDto account, BigDecimal amount) {
@@ -204,7 +256,7 @@ public class TransactionService {
         notification.setTransactionType("DEPOSIT");
         notification.setTimestamp(LocalDateTime.now());
 
-        kafkaTemplate.send("transaction-notifications", notification);
+        outboxService.enqueueNotification(notification);
     }
 
     private void sendWithdrawalNotification(AccountDto account, BigDecimal amount) {
@@ -218,35 +270,7 @@ public class TransactionService {
         notification.setTransactionType("WITHDRAWAL");
         notification.setTimestamp(LocalDateTime.now());
 
-        kafkaTemplate.send("transaction-notifications", notification);
-    }
-
-    private void sendTransferNotification(AccountDto fromAccount, AccountDto toAccount, BigDecimal amount) {
-        // Sender notification
-        NotificationDto senderNotification = new NotificationDto();
-        senderNotification.setRecipientEmail(fromAccount.getEmail());
-        senderNotification.setRecipientName(fromAccount.getFullName());
-        senderNotification.setSubject("Transfer Successful");
-        senderNotification.setMessage("You have transferred " + amount + " to account " + toAccount.getAccountNumber());
-        senderNotification.setAccountNumber(fromAccount.getAccountNumber());
-        senderNotification.setAmount(amount);
-        senderNotification.setTransactionType("TRANSFER_OUT");
-        senderNotification.setTimestamp(LocalDateTime.now());
-
-        // Recipient notification
-        NotificationDto recipientNotification = new NotificationDto();
-        recipientNotification.setRecipientEmail(toAccount.getEmail());
-        recipientNotification.setRecipientName(toAccount.getFullName());
-        recipientNotification.setSenderName(fromAccount.getFullName());
-        recipientNotification.setSubject("Transfer Received");
-        recipientNotification.setMessage("You have received " + amount + " from account " + fromAccount.getAccountNumber());
-        recipientNotification.setAccountNumber(toAccount.getAccountNumber());
-        recipientNotification.setAmount(amount);
-        recipientNotification.setTransactionType("TRANSFER_IN");
-        recipientNotification.setTimestamp(LocalDateTime.now());
-
-        kafkaTemplate.send("transaction-notifications", senderNotification);
-        kafkaTemplate.send("transaction-notifications", recipientNotification);
+        outboxService.enqueueNotification(notification);
     }
 
 
@@ -305,19 +329,4 @@ public class TransactionService {
 //        notificationService.sendTransactionNotification(senderNotification);
 //        notificationService.sendTransactionNotification(recipientNotification);
 //    }
-
-
-    private TransactionDto convertToDto(Transaction transaction) {
-        TransactionDto dto = new TransactionDto();
-        dto.setId(transaction.getId());
-        dto.setUserId(transaction.getUserId());
-        dto.setAccountId(transaction.getAccountId());
-        dto.setTargetAccountId(transaction.getTargetAccountId());
-        dto.setAmount(transaction.getAmount());
-        dto.setType(transaction.getType());
-        dto.setDescription(transaction.getDescription());
-        dto.setStatus(transaction.getStatus());
-        dto.setTransactionDate(transaction.getTransactionDate());
-        return dto;
-    }
 }
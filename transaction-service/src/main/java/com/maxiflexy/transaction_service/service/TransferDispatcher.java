@@ -0,0 +1,71 @@
+package com.maxiflexy.transaction_service.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded pool of single-threaded lanes for asynchronous transfers. A source account always hashes
+ * to the same lane, so its transfers run one at a time in submission order; when a lane's queue is
+ * full the submission is refused rather than piling up.
+ */
+@Service
+@Slf4j
+public class TransferDispatcher {
+
+    private final ThreadPoolExecutor[] lanes;
+
+    public TransferDispatcher(MeterRegistry meterRegistry,
+                              @Value("${app.async-transfers.lanes:4}") int laneCount,
+                              @Value("${app.async-transfers.queue-capacity:1000}") int queueCapacity) {
+        this.lanes = new ThreadPoolExecutor[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            String threadName = "transfer-lane-" + i;
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity), runnable -> new Thread(runnable, threadName));
+        }
+
+        Gauge.builder("transfers.async.queued", this, TransferDispatcher::queuedTransfers)
+                .description("Asynchronous transfers waiting for a lane")
+                .register(meterRegistry);
+    }
+
+    // Returns false when the account's lane is saturated
+    public boolean submit(Long sourceAccountId, Runnable transfer) {
+        try {
+            lanes[Math.floorMod(sourceAccountId.hashCode(), lanes.length)].execute(transfer);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    private double queuedTransfers() {
+        int queued = 0;
+        for (ThreadPoolExecutor lane : lanes) {
+            queued += lane.getQueue().size();
+        }
+        return queued;
+    }
+
+    // Queued transfers are already stored as PENDING; whatever is left here is picked up by the recovery worker
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+        for (ThreadPoolExecutor lane : lanes) {
+            if (!lane.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("Transfer lane did not drain before shutdown; {} transfers left to recovery", lane.shutdownNow().size());
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.maxiflexy.transaction_service.service;
+
+import com.maxiflexy.transaction_service.enums.TransactionStatus;
+import com.maxiflexy.transaction_service.enums.TransactionType;
+import com.maxiflexy.transaction_service.model.BatchTransfer;
+import com.maxiflexy.transaction_service.model.Transaction;
+import com.maxiflexy.transaction_service.repository.BatchTransferRepository;
+import com.maxiflexy.transaction_service.repository.TransactionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Service
+@Slf4j
+public class TransferRecoveryWorker {
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransferSagaService transferSagaService;
+
+    @Autowired
+    private BatchTransferRepository batchTransferRepository;
+
+    @Autowired
+    private BatchTransferService batchTransferService;
+
+    // Well past the account-service response timeout, so the request that started the saga has given up
+    @Value("${app.transfer-recovery.stale-after-seconds:60}")
+    private long staleAfterSeconds;
+
+    // A batch's balance step has its own, longer response timeout
+    @Value("${app.transfer-recovery.batch-stale-after-seconds:120}")
+    private long batchStaleAfterSeconds;
+
+    @Value("${app.transfer-recovery.batch-size:20}")
+    private int batchSize;
+
+    // After this many attempts a saga is parked for someone to look at instead of being retried
+    @Value("${app.transfer-recovery.max-attempts:10}")
+    private int maxAttempts;
+
+    // Wait before the next attempt, doubled after each one up to the maximum
+    @Value("${app.transfer-recovery.backoff-seconds:60}")
+    private long backoffSeconds;
+
+    @Value("${app.transfer-recovery.max-backoff-seconds:3600}")
+    private long maxBackoffSeconds;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Scheduled(fixedDelayString = "${app.transfer-recovery.poll-interval-ms:30000}")
+    public void recoverStalledTransfers() {
+        List<Transaction> stalled;
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            stalled = transactionRepository.findDueForRecovery(TransactionStatus.PENDING, TransactionType.TRANSFER_OUT,
+                    now.minusSeconds(staleAfterSeconds), now, Limit.of(batchSize));
+        } catch (Exception e) {
+            log.error("Error looking up stalled transfers: {}", e.getMessage(), e);
+            return;
+        }
+
+        // One saga at a time, so a transfer that still cannot be resolved does not hold back the rest
+        for (Transaction outgoing : stalled) {
+            String reference = outgoing.getReference();
+            try {
+                if (outgoing.getRecoveryAttempts() >= maxAttempts) {
+                    transactionRepository.parkRecovery(reference, LocalDateTime.now());
+                    meterRegistry.counter("transfers.recovery.parked", "kind", "transfer").increment();
+                    log.error("Giving up on transfer {} after {} recovery attempts; it stays PENDING", reference, maxAttempts);
+                    continue;
+                }
+                // Counted before trying, so an attempt that hangs or takes the instance down still counts
+                transactionRepository.recordRecoveryAttempt(reference, nextAttemptAt(outgoing.getRecoveryAttempts() + 1));
+                transferSagaService.resume(reference, null, null);
+            } catch (Exception e) {
+                log.warn("Transfer {} is still unresolved: {}", reference, e.getMessage());
+            }
+        }
+    }
+
+    // Batches left PENDING are finished the same way, by replaying their reference
+    @Scheduled(fixedDelayString = "${app.transfer-recovery.poll-interval-ms:30000}")
+    public void recoverStalledBatches() {
+        List<BatchTransfer> stalled;
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            stalled = batchTransferRepository.findDueForRecovery(TransactionStatus.PENDING,
+                    now.minusSeconds(batchStaleAfterSeconds), now, Limit.of(batchSize));
+        } catch (Exception e) {
+            log.error("Error looking up stalled batch transfers: {}", e.getMessage(), e);
+            return;
+        }
+
+        for (BatchTransfer batch : stalled) {
+            String reference = batch.getReference();
+            try {
+                if (batch.getRecoveryAttempts() >= maxAttempts) {
+                    batchTransferRepository.parkRecovery(reference, LocalDateTime.now());
+                    meterRegistry.counter("transfers.recovery.parked", "kind", "batch").increment();
+                    log.error("Giving up on batch {} after {} recovery attempts; it stays PENDING", reference, maxAttempts);
+                    continue;
+                }
+                batchTransferRepository.recordRecoveryAttempt(reference, nextAttemptAt(batch.getRecoveryAttempts() + 1));
+                batchTransferService.resume(reference);
+            } catch (Exception e) {
+                log.warn("Batch {} is still unresolved: {}", reference, e.getMessage());
+            }
+        }
+    }
+
+    private LocalDateTime nextAttemptAt(int attempt) {
+        long delaySeconds = backoffSeconds << Math.min(attempt - 1, 30);
+        return LocalDateTime.now().plusSeconds(Math.min(delaySeconds, maxBackoffSeconds));
+    }
+}
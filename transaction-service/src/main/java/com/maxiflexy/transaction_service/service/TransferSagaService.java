@@ -0,0 +1,254 @@
+package com.maxiflexy.transaction_service.service;
+
+import com.maxiflexy.transaction_service.dto.AccountDto;
+import com.maxiflexy.transaction_service.dto.NotificationDto;
+import com.maxiflexy.transaction_service.dto.TransactionDto;
+import com.maxiflexy.transaction_service.dto.TransferDto;
+import com.maxiflexy.transaction_service.dto.TransferResultDto;
+import com.maxiflexy.transaction_service.enums.TransactionStatus;
+import com.maxiflexy.transaction_service.enums.TransactionType;
+import com.maxiflexy.transaction_service.exception.InsufficientFundsException;
+import com.maxiflexy.transaction_service.exception.ReferenceConflictException;
+import com.maxiflexy.transaction_service.exception.ResourceNotFoundException;
+import com.maxiflexy.transaction_service.exception.TransferQueueFullException;
+import com.maxiflexy.transaction_service.exception.TransferReversedException;
+import com.maxiflexy.transaction_service.model.Transaction;
+import com.maxiflexy.transaction_service.repository.TransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Runs a transfer as a saga: both legs are stored PENDING, the balance step runs in account-service
+ * under the saga reference, then the legs are marked COMPLETED, FAILED, or REVERSED after compensation.
+ * Asynchronous transfers run the same saga on a {@link TransferDispatcher} lane. Transfers left
+ * PENDING by a crash or timeout are resumed by {@link TransferRecoveryWorker}.
+ */
+@Service
+@Slf4j
+public class TransferSagaService {
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private TransferDispatcher transferDispatcher;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private Scheduler jdbcScheduler;
+
+    // Returns the saga as PENDING when the balance step failed without a clear answer: the money may or may
+    // not have moved, so the recovery worker settles it and the caller polls the status endpoint
+    public Mono<TransactionDto> execute(Long userId, AccountDto fromAccount, AccountDto toAccount, TransferDto transferDto) {
+        String reference = "transfer:" + UUID.randomUUID();
+
+        return inTransaction(() -> begin(userId, fromAccount, toAccount, transferDto, reference))
+                .then(accountService.transferBetweenAccounts(userId, fromAccount.getId(), toAccount.getId(), transferDto.getAmount(), reference)
+                        .map(Optional::of)
+                        // A rejected balance step moved no money, so the saga simply ends as FAILED
+                        .onErrorResume(this::isRejection, e -> inTransaction(() -> transition(reference, TransactionStatus.FAILED))
+                                .then(Mono.<Optional<TransferResultDto>>error(e)))
+                        .onErrorResume(e -> !isRejection(e), e -> {
+                            log.warn("Outcome of transfer {} is unknown, leaving it PENDING for recovery: {}", reference, e.getMessage());
+                            return Mono.just(Optional.empty());
+                        }))
+                .flatMap(result -> result.isEmpty()
+                        ? inTransaction(() -> currentState(reference))
+                        : inTransaction(() -> complete(reference, result.get(), fromAccount, toAccount))
+                                .onErrorResume(e -> compensate(userId, reference, e)));
+    }
+
+    // Stores the PENDING legs and hands the rest of the saga to the source account's lane
+    public Mono<TransactionDto> submit(Long userId, AccountDto fromAccount, AccountDto toAccount, TransferDto transferDto) {
+        String reference = "transfer:" + UUID.randomUUID();
+
+        return inTransaction(() -> begin(userId, fromAccount, toAccount, transferDto, reference))
+                .flatMap(pending -> {
+                    boolean queued = transferDispatcher.submit(fromAccount.getId(), () -> {
+                        try {
+                            resume(reference, fromAccount, toAccount);
+                        } catch (Exception e) {
+                            // Left PENDING; the recovery worker retries it
+                            log.warn("Asynchronous transfer {} did not finish: {}", reference, e.getMessage());
+                        }
+                    });
+                    if (queued) {
+                        return Mono.just(TransactionDto.fromTransaction(pending));
+                    }
+                    return inTransaction(() -> transition(reference, TransactionStatus.FAILED))
+                            .then(Mono.<TransactionDto>error(new TransferQueueFullException(
+                                    "Too many transfers are queued for this account. Please try again later.")));
+                });
+    }
+
+    // Drives a PENDING saga to its outcome from the stored legs. Runs outside any transaction: the legs are
+    // read without a lock, the remote calls hold no connection, and only the final update locks them.
+    // The accounts are only needed for notifications and are looked up when not supplied.
+    public void resume(String reference, AccountDto fromAccount, AccountDto toAccount) {
+        List<Transaction> legs = transactionRepository.findByReference(reference);
+        Transaction outgoing = findLeg(legs, TransactionType.TRANSFER_OUT);
+        Transaction incoming = findLeg(legs, TransactionType.TRANSFER_IN);
+        if (outgoing.getStatus() != TransactionStatus.PENDING) {
+            return;
+        }
+
+        // The balance step is keyed by the reference, so repeating it never moves money twice
+        TransferResultDto result;
+        try {
+            result = accountService.transferBetweenAccounts(outgoing.getUserId(), outgoing.getAccountId(),
+                    incoming.getAccountId(), outgoing.getAmount(), reference).block();
+        } catch (TransferReversedException e) {
+            transactionTemplate.execute(status -> transition(reference, TransactionStatus.REVERSED));
+            log.info("Transfer {} had been reversed", reference);
+            return;
+        } catch (ResourceNotFoundException | InsufficientFundsException | ReferenceConflictException e) {
+            transactionTemplate.execute(status -> transition(reference, TransactionStatus.FAILED));
+            log.info("Transfer {} failed: {}", reference, e.getMessage());
+            return;
+        }
+
+        if (fromAccount == null || toAccount == null) {
+            fromAccount = accountService.getAccountById(outgoing.getUserId(), outgoing.getAccountId()).block();
+            toAccount = accountService.getAccountById(incoming.getUserId(), incoming.getAccountId()).block();
+        }
+        AccountDto from = fromAccount;
+        AccountDto to = toAccount;
+        // complete() re-checks the status under the lock, so a concurrent resolution is not applied twice
+        transactionTemplate.execute(status -> complete(reference, result, from, to));
+        log.info("Transfer {} completed", reference);
+    }
+
+    private Transaction begin(Long userId, AccountDto fromAccount, AccountDto toAccount, TransferDto transferDto, String reference) {
+        // Create outgoing transaction
+        Transaction outgoingTransaction = new Transaction();
+        outgoingTransaction.setUserId(userId);
+        outgoingTransaction.setAccountId(fromAccount.getId());
+        outgoingTransaction.setTargetAccountId(toAccount.getId());
+        outgoingTransaction.setAmount(transferDto.getAmount());
+        outgoingTransaction.setType(TransactionType.TRANSFER_OUT);
+        outgoingTransaction.setDescription(transferDto.getDescription());
+        outgoingTransaction.setReference(reference);
+        outgoingTransaction.setStatus(TransactionStatus.PENDING);
+
+        // Create incoming transaction
+        Transaction incomingTransaction = new Transaction();
+        incomingTransaction.setUserId(toAccount.getUserId());
+        incomingTransaction.setAccountId(toAccount.getId());
+        incomingTransaction.setTargetAccountId(fromAccount.getId());
+        incomingTransaction.setAmount(transferDto.getAmount());
+        incomingTransaction.setType(TransactionType.TRANSFER_IN);
+        incomingTransaction.setDescription("Transfer from " + fromAccount.getAccountNumber());
+        incomingTransaction.setReference(reference);
+        incomingTransaction.setStatus(TransactionStatus.PENDING);
+
+        transactionRepository.save(incomingTransaction);
+        return transactionRepository.save(outgoingTransaction);
+    }
+
+    private TransactionDto complete(String reference, TransferResultDto result, AccountDto fromAccount, AccountDto toAccount) {
+        List<Transaction> legs = transactionRepository.lockByReference(reference);
+        Transaction outgoing = findLeg(legs, TransactionType.TRANSFER_OUT);
+        Transaction incoming = findLeg(legs, TransactionType.TRANSFER_IN);
+
+        // The recovery worker may have resolved the saga already
+        if (outgoing.getStatus() != TransactionStatus.PENDING) {
+            return TransactionDto.fromTransaction(outgoing);
+        }
+
+        outgoing.setStatus(TransactionStatus.COMPLETED);
+        outgoing.setBalanceAfter(result.getFromAccountBalance());
+        outgoing.setJournalEntryId(result.getJournalEntryId());
+        incoming.setStatus(TransactionStatus.COMPLETED);
+        incoming.setBalanceAfter(result.getToAccountBalance());
+        incoming.setJournalEntryId(result.getJournalEntryId());
+
+        // Send notifications
+        sendTransferNotification(fromAccount, toAccount, outgoing.getAmount());
+
+        return TransactionDto.fromTransaction(outgoing);
+    }
+
+    private Mono<TransactionDto> compensate(Long userId, String reference, Throwable cause) {
+        log.error("Recording transfer {} failed after the balance step, reversing it: {}", reference, cause.getMessage(), cause);
+        return accountService.reverseTransfer(userId, reference)
+                .then(inTransaction(() -> transition(reference, TransactionStatus.REVERSED)))
+                .then(Mono.<TransactionDto>error(new RuntimeException("Transfer could not be recorded and has been reversed")));
+    }
+
+    private TransactionDto currentState(String reference) {
+        return TransactionDto.fromTransaction(findLeg(transactionRepository.findByReference(reference), TransactionType.TRANSFER_OUT));
+    }
+
+    private Void transition(String reference, TransactionStatus status) {
+        for (Transaction leg : transactionRepository.lockByReference(reference)) {
+            if (leg.getStatus() == TransactionStatus.PENDING) {
+                leg.setStatus(status);
+            }
+        }
+        return null;
+    }
+
+    private Transaction findLeg(List<Transaction> legs, TransactionType type) {
+        return legs.stream()
+                .filter(leg -> leg.getType() == type)
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Transfer is missing its " + type + " leg"));
+    }
+
+    private <T> Mono<T> inTransaction(Supplier<T> work) {
+        return Mono.fromCallable(() -> transactionTemplate.execute(status -> work.get()))
+                .subscribeOn(jdbcScheduler);
+    }
+
+    private boolean isRejection(Throwable e) {
+        return e instanceof ResourceNotFoundException || e instanceof InsufficientFundsException
+                || e instanceof ReferenceConflictException;
+    }
+
+    private void sendTransferNotification(AccountDto fromAccount, AccountDto toAccount, BigDecimal amount) {
+        // Sender notification
+        NotificationDto senderNotification = new NotificationDto();
+        senderNotification.setRecipientEmail(fromAccount.getEmail());
+        senderNotification.setRecipientName(fromAccount.getFullName());
+        senderNotification.setSubject("Transfer Successful");
+        senderNotification.setMessage("You have transferred " + amount + " to account " + toAccount.getAccountNumber());
+        senderNotification.setAccountNumber(fromAccount.getAccountNumber());
+        senderNotification.setAmount(amount);
+        senderNotification.setTransactionType("TRANSFER_OUT");
+        senderNotification.setTimestamp(LocalDateTime.now());
+
+        // Recipient notification
+        NotificationDto recipientNotification = new NotificationDto();
+        recipientNotification.setRecipientEmail(toAccount.getEmail());
+        recipientNotification.setRecipientName(toAccount.getFullName());
+        recipientNotification.setSenderName(fromAccount.getFullName());
+        recipientNotification.setSubject("Transfer Received");
+        recipientNotification.setMessage("You have received " + amount + " from account " + fromAccount.getAccountNumber());
+        recipientNotification.setAccountNumber(toAccount.getAccountNumber());
+        recipientNotification.setAmount(amount);
+        recipientNotification.setTransactionType("TRANSFER_IN");
+        recipientNotification.setTimestamp(LocalDateTime.now());
+
+        outboxService.enqueueNotification(senderNotification);
+        outboxService.enqueueNotification(recipientNotification);
+    }
+}
@@ -0,0 +1,16 @@
+-- How often the recovery worker has tried to resolve a saga and when it may try again, so a transfer that
+-- cannot be resolved backs off instead of taking a slot at the head of every poll
+ALTER TABLE transactions ADD COLUMN recovery_attempts INT NOT NULL DEFAULT 0;
+ALTER TABLE transactions ADD COLUMN next_recovery_at TIMESTAMP(6);
+
+-- Set once recovery gives up. The saga stays PENDING, since its outcome is still unknown; clearing this
+-- column hands it back to the worker.
+ALTER TABLE transactions ADD COLUMN recovery_parked_at TIMESTAMP(6);
+
+DROP INDEX idx_transactions_pending_transfers;
+
+CREATE INDEX idx_transactions_pending_transfers ON transactions (COALESCE(next_recovery_at, transaction_date))
+    WHERE status = 'PENDING' AND type = 'TRANSFER_OUT' AND recovery_parked_at IS NULL;
+
+CREATE INDEX idx_transactions_parked_transfers ON transactions (recovery_parked_at)
+    WHERE status = 'PENDING' AND type = 'TRANSFER_OUT' AND recovery_parked_at IS NOT NULL;
@@ -0,0 +1,13 @@
+-- Same recovery bookkeeping as transfers (V10): batches back off between attempts and are parked,
+-- still PENDING, once recovery gives up
+ALTER TABLE batch_transfers ADD COLUMN recovery_attempts INT NOT NULL DEFAULT 0;
+ALTER TABLE batch_transfers ADD COLUMN next_recovery_at TIMESTAMP(6);
+ALTER TABLE batch_transfers ADD COLUMN recovery_parked_at TIMESTAMP(6);
+
+DROP INDEX idx_batch_transfers_pending;
+
+CREATE INDEX idx_batch_transfers_pending ON batch_transfers (COALESCE(next_recovery_at, created_at))
+    WHERE status = 'PENDING' AND recovery_parked_at IS NULL;
+
+CREATE INDEX idx_batch_transfers_parked ON batch_transfers (recovery_parked_at)
+    WHERE status = 'PENDING' AND recovery_parked_at IS NOT NULL;
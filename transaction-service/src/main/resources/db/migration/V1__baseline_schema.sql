@@ -0,0 +1,36 @@
+-- Tables previously created by Hibernate (ddl-auto: update). IF NOT EXISTS lets this run
+-- both on a fresh database and on one that Hibernate already populated.
+
+CREATE TABLE IF NOT EXISTS transactions (
+    id                BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id           BIGINT         NOT NULL,
+    account_id        BIGINT         NOT NULL,
+    target_account_id BIGINT,
+    amount            NUMERIC(38, 2) NOT NULL,
+    type              VARCHAR(255)   NOT NULL,
+    description       VARCHAR(255),
+    status            VARCHAR(255)   NOT NULL,
+    transaction_date  TIMESTAMP(6)   NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    id              BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id         BIGINT       NOT NULL,
+    idempotency_key VARCHAR(255) NOT NULL,
+    operation       VARCHAR(255) NOT NULL,
+    status          VARCHAR(255) NOT NULL,
+    response_body   TEXT,
+    created_at      TIMESTAMP(6) NOT NULL,
+    expires_at      TIMESTAMP(6) NOT NULL,
+    CONSTRAINT uk_idempotency_keys_user_key UNIQUE (user_id, idempotency_key)
+);
+
+CREATE INDEX IF NOT EXISTS idx_idempotency_keys_expires_at ON idempotency_keys (expires_at);
+
+CREATE TABLE IF NOT EXISTS outbox_events (
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    topic      VARCHAR(255) NOT NULL,
+    payload    TEXT         NOT NULL,
+    attempts   INTEGER      NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL
+);
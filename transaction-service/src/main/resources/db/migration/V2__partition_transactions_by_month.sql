@@ -0,0 +1,71 @@
+-- Rebuild transactions as a table range-partitioned by month on transaction_date.
+-- The primary key has to include the partition key, so it becomes (id, transaction_date);
+-- ids still come from a single sequence and stay unique.
+
+ALTER TABLE transactions RENAME TO transactions_legacy;
+ALTER TABLE transactions_legacy RENAME CONSTRAINT transactions_pkey TO transactions_legacy_pkey;
+ALTER TABLE transactions_legacy ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+CREATE SEQUENCE transactions_id_seq;
+
+CREATE TABLE transactions (
+    id                BIGINT         NOT NULL DEFAULT nextval('transactions_id_seq'),
+    user_id           BIGINT         NOT NULL,
+    account_id        BIGINT         NOT NULL,
+    target_account_id BIGINT,
+    amount            NUMERIC(38, 2) NOT NULL,
+    type              VARCHAR(255)   NOT NULL,
+    description       VARCHAR(255),
+    status            VARCHAR(255)   NOT NULL,
+    transaction_date  TIMESTAMP(6)   NOT NULL,
+    CONSTRAINT transactions_pkey PRIMARY KEY (id, transaction_date)
+) PARTITION BY RANGE (transaction_date);
+
+ALTER SEQUENCE transactions_id_seq OWNED BY transactions.id;
+
+-- Catches rows outside every monthly partition so inserts never fail; it should stay empty
+CREATE TABLE transactions_default PARTITION OF transactions DEFAULT;
+
+-- Indexes declared on the parent are created on every existing and future partition
+CREATE INDEX idx_transactions_account_date_id ON transactions (account_id, transaction_date DESC, id DESC);
+CREATE INDEX idx_transactions_user_date ON transactions (user_id, transaction_date);
+
+CREATE OR REPLACE FUNCTION create_transactions_partition(p_month DATE) RETURNS VOID AS $$
+DECLARE
+    start_date     DATE := date_trunc('month', p_month)::DATE;
+    end_date       DATE := (date_trunc('month', p_month) + INTERVAL '1 month')::DATE;
+    partition_name TEXT := format('transactions_%s', to_char(start_date, 'YYYY_MM'));
+BEGIN
+    EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF transactions FOR VALUES FROM (%L) TO (%L)',
+                   partition_name, start_date, end_date);
+END;
+$$ LANGUAGE plpgsql;
+
+-- Creates the partition for the current month and the given number of months after it
+CREATE OR REPLACE FUNCTION ensure_transactions_partitions(p_months_ahead INTEGER) RETURNS VOID AS $$
+BEGIN
+    FOR i IN 0..p_months_ahead LOOP
+        PERFORM create_transactions_partition((date_trunc('month', now()) + make_interval(months => i))::DATE);
+    END LOOP;
+END;
+$$ LANGUAGE plpgsql;
+
+DO $$
+DECLARE
+    legacy_month DATE;
+BEGIN
+    FOR legacy_month IN SELECT DISTINCT date_trunc('month', transaction_date)::DATE FROM transactions_legacy LOOP
+        PERFORM create_transactions_partition(legacy_month);
+    END LOOP;
+END;
+$$;
+
+SELECT ensure_transactions_partitions(3);
+
+INSERT INTO transactions (id, user_id, account_id, target_account_id, amount, type, description, status, transaction_date)
+SELECT id, user_id, account_id, target_account_id, amount, type, description, status, transaction_date
+FROM transactions_legacy;
+
+SELECT setval('transactions_id_seq', COALESCE((SELECT MAX(id) FROM transactions), 0) + 1, false);
+
+DROP TABLE transactions_legacy;
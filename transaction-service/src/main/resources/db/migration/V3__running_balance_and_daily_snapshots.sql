@@ -0,0 +1,15 @@
+-- Balance of the account right after each transaction. Added on the partitioned parent, so it
+-- propagates to every monthly partition. Rows written before this migration stay NULL.
+ALTER TABLE transactions ADD COLUMN balance_after NUMERIC(38, 2);
+
+-- End-of-day closing balance per account, written by the nightly snapshot job. A row only exists
+-- for days the account had activity. A day without its own row is answered from the running balance
+-- of the last transaction before its end, never from an older snapshot: the job may have missed that day.
+CREATE TABLE balance_snapshots (
+    id              BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    account_id      BIGINT         NOT NULL,
+    snapshot_date   DATE           NOT NULL,
+    closing_balance NUMERIC(38, 2) NOT NULL,
+    created_at      TIMESTAMP(6)   NOT NULL,
+    CONSTRAINT uk_balance_snapshots_account_date UNIQUE (account_id, snapshot_date)
+);
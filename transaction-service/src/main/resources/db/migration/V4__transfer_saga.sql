@@ -0,0 +1,8 @@
+-- Links the two legs of a transfer and keys the balance step in account-service
+ALTER TABLE transactions ADD COLUMN reference VARCHAR(64);
+
+CREATE INDEX idx_transactions_reference ON transactions (reference) WHERE reference IS NOT NULL;
+
+-- The recovery worker only ever looks for transfers still in flight
+CREATE INDEX idx_transactions_pending_transfers ON transactions (transaction_date)
+    WHERE status = 'PENDING' AND type = 'TRANSFER_OUT';
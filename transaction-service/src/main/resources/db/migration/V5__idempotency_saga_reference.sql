@@ -0,0 +1,3 @@
+-- A transfer whose outcome was unknown keeps its idempotency claim, tied to the saga it started,
+-- so a retry reports that saga instead of starting another one
+ALTER TABLE idempotency_keys ADD COLUMN reference VARCHAR(64);
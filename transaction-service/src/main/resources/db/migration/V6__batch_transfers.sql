@@ -0,0 +1,13 @@
+-- One row per batch transfer, written before the balance step so a batch whose outcome is unknown
+-- can be finished by the recovery worker replaying its reference
+CREATE TABLE batch_transfers (
+    reference       VARCHAR(64)  PRIMARY KEY,
+    user_id         BIGINT       NOT NULL,
+    from_account_id BIGINT       NOT NULL,
+    request_body    TEXT         NOT NULL,
+    status          VARCHAR(255) NOT NULL,
+    result_body     TEXT,
+    created_at      TIMESTAMP(6) NOT NULL
+);
+
+CREATE INDEX idx_batch_transfers_pending ON batch_transfers (created_at) WHERE status = 'PENDING';
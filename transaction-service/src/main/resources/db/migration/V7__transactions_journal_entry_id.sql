@@ -0,0 +1,6 @@
+-- Ledger entry that applied each transaction, giving the order in which balances actually changed.
+-- Rows recorded before this migration stay NULL and sort before every row that has it.
+ALTER TABLE transactions ADD COLUMN journal_entry_id BIGINT;
+
+-- Serves the latest-balance lookup, which walks an account's transactions in ledger order
+CREATE INDEX idx_transactions_account_journal_entry ON transactions (account_id, journal_entry_id DESC NULLS LAST);
@@ -0,0 +1,3 @@
+-- Hash of the request a key was first used with, so a retry carrying a different body is refused.
+-- Keys stored before this migration stay NULL and are not checked.
+ALTER TABLE idempotency_keys ADD COLUMN request_hash VARCHAR(64);
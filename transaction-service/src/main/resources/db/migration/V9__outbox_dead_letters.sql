@@ -0,0 +1,11 @@
+-- Outbox events the relay gave up on after app.outbox.max-attempts, kept for inspection and replay
+-- instead of being retried at the head of the outbox forever
+CREATE TABLE outbox_dead_letters (
+    id               BIGINT       PRIMARY KEY,
+    topic            VARCHAR(255) NOT NULL,
+    payload          TEXT         NOT NULL,
+    attempts         INTEGER      NOT NULL,
+    last_error       TEXT,
+    created_at       TIMESTAMP(6) NOT NULL,
+    dead_lettered_at TIMESTAMP(6) NOT NULL
+);
@@ -0,0 +1,218 @@
+package com.maxiflexy.transaction_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.maxiflexy.transaction_service.dto.DepositDto;
+import com.maxiflexy.transaction_service.dto.TransactionDto;
+import com.maxiflexy.transaction_service.enums.IdempotencyStatus;
+import com.maxiflexy.transaction_service.enums.TransactionStatus;
+import com.maxiflexy.transaction_service.exception.IdempotencyConflictException;
+import com.maxiflexy.transaction_service.exception.IdempotencyKeyMismatchException;
+import com.maxiflexy.transaction_service.exception.InsufficientFundsException;
+import com.maxiflexy.transaction_service.model.IdempotencyRecord;
+import com.maxiflexy.transaction_service.repository.IdempotencyRecordRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IdempotencyServiceTest {
+
+    private static final Long USER_ID = 7L;
+    private static final String KEY = "key-1";
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+    private IdempotencyRecordRepository repository;
+    private IdempotencyService idempotencyService;
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(IdempotencyRecordRepository.class);
+        when(repository.saveAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(repository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        idempotencyService = new IdempotencyService(repository, objectMapper, Schedulers.immediate(), 24, 100);
+    }
+
+    @Test
+    void runsTheActionDirectlyWithoutAKey() {
+        StepVerifier.create(idempotencyService.execute(USER_ID, null, "DEPOSIT", deposit("10.00"), this::completedDeposit))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        assertEquals(1, executions.get());
+        verify(repository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void completesTheClaimAndReplaysTheResponseOnRetry() {
+        DepositDto request = deposit("10.00");
+
+        TransactionDto first = idempotencyService.execute(USER_ID, KEY, "DEPOSIT", request, this::completedDeposit).block();
+        TransactionDto retry = idempotencyService.execute(USER_ID, KEY, "DEPOSIT", request, this::completedDeposit).block();
+
+        assertEquals(1, executions.get());
+        assertEquals(first, retry);
+        ArgumentCaptor<IdempotencyRecord> saved = ArgumentCaptor.forClass(IdempotencyRecord.class);
+        verify(repository).save(saved.capture());
+        assertEquals(IdempotencyStatus.COMPLETED, saved.getValue().getStatus());
+        assertEquals(fingerprint(request), saved.getValue().getRequestHash());
+    }
+
+    @Test
+    void replaysAStoredResponseForTheSameRequest() throws Exception {
+        DepositDto request = deposit("10.00");
+        TransactionDto stored = transaction(41L, TransactionStatus.COMPLETED);
+        IdempotencyRecord record = record(IdempotencyStatus.COMPLETED, fingerprint(request));
+        record.setResponseBody(objectMapper.writeValueAsString(stored));
+        when(repository.findByUserIdAndIdempotencyKey(USER_ID, KEY)).thenReturn(Optional.of(record));
+
+        StepVerifier.create(idempotencyService.execute(USER_ID, KEY, "DEPOSIT", request, this::completedDeposit))
+                .expectNext(stored)
+                .verifyComplete();
+
+        assertEquals(0, executions.get());
+    }
+
+    @Test
+    void refusesTheSameKeyWithADifferentRequest() {
+        IdempotencyRecord record = record(IdempotencyStatus.COMPLETED, fingerprint(deposit("10.00")));
+        when(repository.findByUserIdAndIdempotencyKey(USER_ID, KEY)).thenReturn(Optional.of(record));
+
+        StepVerifier.create(idempotencyService.execute(USER_ID, KEY, "DEPOSIT", deposit("99.00"), this::completedDeposit))
+                .expectError(IdempotencyKeyMismatchException.class)
+                .verify();
+
+        assertEquals(0, executions.get());
+    }
+
+    @Test
+    void refusesTheSameKeyForADifferentOperationBeforeComparingRequests() {
+        IdempotencyRecord record = record(IdempotencyStatus.COMPLETED, fingerprint(deposit("10.00")));
+        when(repository.findByUserIdAndIdempotencyKey(USER_ID, KEY)).thenReturn(Optional.of(record));
+
+        StepVerifier.create(idempotencyService.execute(USER_ID, KEY, "WITHDRAW", deposit("99.00"), this::completedDeposit))
+                .expectError(IdempotencyConflictException.class)
+                .verify();
+
+        assertEquals(0, executions.get());
+    }
+
+    @Test
+    void answersConflictForAnUnsettledClaimHoweverOldItIs() {
+        // The request holding the claim may have moved money before it died, so a retry must not run it again
+        DepositDto request = deposit("10.00");
+        IdempotencyRecord record = record(IdempotencyStatus.IN_PROGRESS, fingerprint(request));
+        record.setCreatedAt(LocalDateTime.now().minusHours(6));
+        when(repository.findByUserIdAndIdempotencyKey(USER_ID, KEY)).thenReturn(Optional.of(record));
+
+        StepVerifier.create(idempotencyService.execute(USER_ID, KEY, "DEPOSIT", request, this::completedDeposit))
+                .expectError(IdempotencyConflictException.class)
+                .verify();
+
+        assertEquals(0, executions.get());
+        assertEquals(IdempotencyStatus.IN_PROGRESS, record.getStatus());
+    }
+
+    @Test
+    void releasesTheKeyOnlyForARejection() {
+        StepVerifier.create(idempotencyService.execute(USER_ID, KEY, "WITHDRAW", deposit("10.00"),
+                        () -> Mono.error(new InsufficientFundsException("Insufficient funds"))))
+                .expectError(InsufficientFundsException.class)
+                .verify();
+        verify(repository).delete(any(IdempotencyRecord.class));
+    }
+
+    @Test
+    void keepsTheKeyWhenTheOutcomeIsUnknown() {
+        StepVerifier.create(idempotencyService.execute(USER_ID, KEY, "WITHDRAW", deposit("10.00"),
+                        () -> Mono.error(new RuntimeException("connection reset"))))
+                .expectError(RuntimeException.class)
+                .verify();
+        verify(repository, never()).delete(any(IdempotencyRecord.class));
+    }
+
+    @Test
+    void pendingTransferKeepsItsClaimAndRetriesReportTheSaga() {
+        DepositDto request = deposit("10.00");
+        TransactionDto pending = transaction(41L, TransactionStatus.PENDING);
+        pending.setReference("transfer:abc");
+
+        StepVerifier.create(idempotencyService.executeTransfer(USER_ID, KEY, "TRANSFER", request,
+                        () -> Mono.just(pending), reference -> null))
+                .expectNext(pending)
+                .verifyComplete();
+
+        ArgumentCaptor<IdempotencyRecord> saved = ArgumentCaptor.forClass(IdempotencyRecord.class);
+        verify(repository).save(saved.capture());
+        IdempotencyRecord claim = saved.getValue();
+        assertEquals(IdempotencyStatus.IN_PROGRESS, claim.getStatus());
+        assertEquals("transfer:abc", claim.getReference());
+
+        // The retry finds the claim tied to the saga and reports its settled state instead of transferring again
+        when(repository.findByUserIdAndIdempotencyKey(USER_ID, KEY)).thenReturn(Optional.of(claim));
+        TransactionDto settled = transaction(41L, TransactionStatus.COMPLETED);
+        settled.setReference("transfer:abc");
+        StepVerifier.create(idempotencyService.executeTransfer(USER_ID, KEY, "TRANSFER", request,
+                        () -> Mono.error(new AssertionError("transferred twice")), reference -> settled))
+                .expectNext(settled)
+                .verifyComplete();
+
+        assertEquals(IdempotencyStatus.COMPLETED, claim.getStatus());
+    }
+
+    private Mono<TransactionDto> completedDeposit() {
+        executions.incrementAndGet();
+        return Mono.just(transaction(41L, TransactionStatus.COMPLETED));
+    }
+
+    private static DepositDto deposit(String amount) {
+        return new DepositDto(3L, new BigDecimal(amount), "test");
+    }
+
+    private static TransactionDto transaction(Long id, TransactionStatus status) {
+        TransactionDto transaction = new TransactionDto();
+        transaction.setId(id);
+        transaction.setUserId(USER_ID);
+        transaction.setAmount(new BigDecimal("10.00"));
+        transaction.setStatus(status);
+        return transaction;
+    }
+
+    private static IdempotencyRecord record(IdempotencyStatus status, String requestHash) {
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setId(1L);
+        record.setUserId(USER_ID);
+        record.setIdempotencyKey(KEY);
+        record.setOperation("DEPOSIT");
+        record.setStatus(status);
+        record.setRequestHash(requestHash);
+        record.setExpiresAt(LocalDateTime.now().plusHours(1));
+        return record;
+    }
+
+    // Same fingerprint IdempotencyService stores: SHA-256 of the request as JSON
+    private String fingerprint(Object request) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request)));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
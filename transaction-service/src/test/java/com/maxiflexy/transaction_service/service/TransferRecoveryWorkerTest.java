@@ -0,0 +1,124 @@
+package com.maxiflexy.transaction_service.service;
+
+import com.maxiflexy.transaction_service.enums.TransactionStatus;
+import com.maxiflexy.transaction_service.enums.TransactionType;
+import com.maxiflexy.transaction_service.model.BatchTransfer;
+import com.maxiflexy.transaction_service.model.Transaction;
+import com.maxiflexy.transaction_service.repository.BatchTransferRepository;
+import com.maxiflexy.transaction_service.repository.TransactionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TransferRecoveryWorkerTest {
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private TransferSagaService transferSagaService;
+
+    @Mock
+    private BatchTransferRepository batchTransferRepository;
+
+    @Mock
+    private BatchTransferService batchTransferService;
+
+    @InjectMocks
+    private TransferRecoveryWorker recoveryWorker;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(recoveryWorker, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(recoveryWorker, "staleAfterSeconds", 60L);
+        ReflectionTestUtils.setField(recoveryWorker, "batchStaleAfterSeconds", 120L);
+        ReflectionTestUtils.setField(recoveryWorker, "batchSize", 20);
+        ReflectionTestUtils.setField(recoveryWorker, "maxAttempts", 3);
+        ReflectionTestUtils.setField(recoveryWorker, "backoffSeconds", 60L);
+        ReflectionTestUtils.setField(recoveryWorker, "maxBackoffSeconds", 3600L);
+    }
+
+    @Test
+    void countsTheAttemptAndBacksOffBeforeResuming() {
+        when(transactionRepository.findDueForRecovery(eq(TransactionStatus.PENDING), eq(TransactionType.TRANSFER_OUT), any(), any(), any()))
+                .thenReturn(List.of(outgoing("transfer:stuck", 2)));
+        doThrow(new RuntimeException("Read timed out")).when(transferSagaService).resume("transfer:stuck", null, null);
+
+        LocalDateTime before = LocalDateTime.now();
+        recoveryWorker.recoverStalledTransfers();
+
+        ArgumentCaptor<LocalDateTime> nextAttemptAt = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(transactionRepository).recordRecoveryAttempt(eq("transfer:stuck"), nextAttemptAt.capture());
+        // Third attempt: 60s doubled twice
+        assertFalse(nextAttemptAt.getValue().isBefore(before.plusSeconds(240)));
+        assertTrue(nextAttemptAt.getValue().isBefore(before.plusSeconds(250)));
+        verify(transactionRepository, never()).parkRecovery(anyString(), any());
+    }
+
+    @Test
+    void parksASagaOnceItsAttemptsAreUsedUp() {
+        when(transactionRepository.findDueForRecovery(eq(TransactionStatus.PENDING), eq(TransactionType.TRANSFER_OUT), any(), any(), any()))
+                .thenReturn(List.of(outgoing("transfer:hopeless", 3), outgoing("transfer:fresh", 0)));
+
+        recoveryWorker.recoverStalledTransfers();
+
+        verify(transactionRepository).parkRecovery(eq("transfer:hopeless"), any());
+        verify(transferSagaService, never()).resume("transfer:hopeless", null, null);
+        verify(transferSagaService).resume("transfer:fresh", null, null);
+        assertEquals(1.0, meterRegistry.get("transfers.recovery.parked").tag("kind", "transfer").counter().count());
+    }
+
+    @Test
+    void parksABatchOnceItsAttemptsAreUsedUp() {
+        when(batchTransferRepository.findDueForRecovery(eq(TransactionStatus.PENDING), any(), any(), any()))
+                .thenReturn(List.of(batch("batch:hopeless", 3), batch("batch:fresh", 1)));
+
+        recoveryWorker.recoverStalledBatches();
+
+        verify(batchTransferRepository).parkRecovery(eq("batch:hopeless"), any());
+        verify(batchTransferService, never()).resume("batch:hopeless");
+        verify(batchTransferRepository).recordRecoveryAttempt(eq("batch:fresh"), any());
+        verify(batchTransferService).resume("batch:fresh");
+        assertEquals(1.0, meterRegistry.get("transfers.recovery.parked").tag("kind", "batch").counter().count());
+    }
+
+    private static Transaction outgoing(String reference, int recoveryAttempts) {
+        Transaction outgoing = new Transaction();
+        outgoing.setReference(reference);
+        outgoing.setType(TransactionType.TRANSFER_OUT);
+        outgoing.setStatus(TransactionStatus.PENDING);
+        outgoing.setRecoveryAttempts(recoveryAttempts);
+        return outgoing;
+    }
+
+    private static BatchTransfer batch(String reference, int recoveryAttempts) {
+        BatchTransfer batch = new BatchTransfer();
+        batch.setReference(reference);
+        batch.setStatus(TransactionStatus.PENDING);
+        batch.setRecoveryAttempts(recoveryAttempts);
+        return batch;
+    }
+}
@@ -0,0 +1,201 @@
+package com.maxiflexy.transaction_service.service;
+
+import com.maxiflexy.transaction_service.dto.AccountDto;
+import com.maxiflexy.transaction_service.dto.TransactionDto;
+import com.maxiflexy.transaction_service.dto.TransferDto;
+import com.maxiflexy.transaction_service.dto.TransferResultDto;
+import com.maxiflexy.transaction_service.enums.TransactionStatus;
+import com.maxiflexy.transaction_service.enums.TransactionType;
+import com.maxiflexy.transaction_service.exception.InsufficientFundsException;
+import com.maxiflexy.transaction_service.exception.ReferenceConflictException;
+import com.maxiflexy.transaction_service.model.Transaction;
+import com.maxiflexy.transaction_service.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TransferSagaServiceTest {
+
+    private static final Long USER_ID = 7L;
+    private static final BigDecimal AMOUNT = new BigDecimal("25.00");
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private AccountService accountService;
+
+    @Mock
+    private OutboxService outboxService;
+
+    @Mock
+    private TransferDispatcher transferDispatcher;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private TransferSagaService transferSagaService;
+
+    // The legs the saga has stored, standing in for the transactions table
+    private final List<Transaction> legs = new ArrayList<>();
+    private final AccountDto fromAccount = account(1L, USER_ID, "ACC0000000000018");
+    private final AccountDto toAccount = account(2L, 8L, "ACC0009876543217");
+    private final TransferDto transferDto = new TransferDto(1L, "ACC0009876543217", AMOUNT, "rent");
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(transferSagaService, "jdbcScheduler", Schedulers.immediate());
+        lenient().when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        lenient().when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> {
+            Transaction leg = invocation.getArgument(0);
+            legs.add(leg);
+            return leg;
+        });
+        lenient().when(transactionRepository.findByReference(anyString())).thenReturn(legs);
+        lenient().when(transactionRepository.lockByReference(anyString())).thenReturn(legs);
+    }
+
+    @Test
+    void completesBothLegsAndNotifiesOnceTheBalancesMove() {
+        when(accountService.transferBetweenAccounts(eq(USER_ID), eq(1L), eq(2L), eq(AMOUNT), anyString()))
+                .thenReturn(Mono.just(new TransferResultDto(1L, new BigDecimal("75.00"), 2L, new BigDecimal("125.00"), 99L)));
+
+        TransactionDto result = transferSagaService.execute(USER_ID, fromAccount, toAccount, transferDto).block();
+
+        assertEquals(TransactionStatus.COMPLETED, result.getStatus());
+        assertEquals(TransactionType.TRANSFER_OUT, result.getType());
+        assertEquals(new BigDecimal("75.00"), result.getBalanceAfter());
+        assertEquals(2, legs.size());
+        for (Transaction leg : legs) {
+            assertEquals(TransactionStatus.COMPLETED, leg.getStatus());
+            assertEquals(Long.valueOf(99L), leg.getJournalEntryId());
+            assertEquals(result.getReference(), leg.getReference());
+        }
+        verify(outboxService, times(2)).enqueueNotification(any());
+    }
+
+    @Test
+    void rejectedBalanceStepFailsTheSagaAndReportsTheRejection() {
+        when(accountService.transferBetweenAccounts(eq(USER_ID), eq(1L), eq(2L), eq(AMOUNT), anyString()))
+                .thenReturn(Mono.error(new InsufficientFundsException("Insufficient funds")));
+
+        StepVerifier.create(transferSagaService.execute(USER_ID, fromAccount, toAccount, transferDto))
+                .expectError(InsufficientFundsException.class)
+                .verify();
+
+        assertEquals(2, legs.size());
+        assertTrue(legs.stream().allMatch(leg -> leg.getStatus() == TransactionStatus.FAILED));
+        verify(outboxService, never()).enqueueNotification(any());
+    }
+
+    @Test
+    void unclearBalanceStepLeavesTheSagaPendingForRecovery() {
+        when(accountService.transferBetweenAccounts(eq(USER_ID), eq(1L), eq(2L), eq(AMOUNT), anyString()))
+                .thenReturn(Mono.error(new RuntimeException("Read timed out")));
+
+        TransactionDto result = transferSagaService.execute(USER_ID, fromAccount, toAccount, transferDto).block();
+
+        assertEquals(TransactionStatus.PENDING, result.getStatus());
+        assertTrue(result.getReference().startsWith("transfer:"));
+        assertTrue(legs.stream().allMatch(leg -> leg.getStatus() == TransactionStatus.PENDING));
+        verify(accountService, never()).reverseTransfer(any(), anyString());
+    }
+
+    @Test
+    void reversesTheBalanceStepWhenItCannotBeRecorded() {
+        when(accountService.transferBetweenAccounts(eq(USER_ID), eq(1L), eq(2L), eq(AMOUNT), anyString()))
+                .thenReturn(Mono.just(new TransferResultDto(1L, new BigDecimal("75.00"), 2L, new BigDecimal("125.00"), 99L)));
+        doThrow(new IllegalStateException("outbox unavailable")).when(outboxService).enqueueNotification(any());
+        when(accountService.reverseTransfer(eq(USER_ID), anyString())).thenReturn(Mono.just(new TransferResultDto()));
+
+        StepVerifier.create(transferSagaService.execute(USER_ID, fromAccount, toAccount, transferDto))
+                .expectErrorMessage("Transfer could not be recorded and has been reversed")
+                .verify();
+
+        verify(accountService).reverseTransfer(USER_ID, legs.get(0).getReference());
+    }
+
+    @Test
+    void resumeLeavesAnAlreadySettledSagaAlone() {
+        legs.add(leg(TransactionType.TRANSFER_OUT, TransactionStatus.COMPLETED));
+        legs.add(leg(TransactionType.TRANSFER_IN, TransactionStatus.COMPLETED));
+
+        transferSagaService.resume("transfer:settled", fromAccount, toAccount);
+
+        verify(accountService, never()).transferBetweenAccounts(any(), any(), any(), any(), anyString());
+    }
+
+    @Test
+    void resumeFailsTheSagaWhenTheRetriedBalanceStepIsRejected() {
+        legs.add(leg(TransactionType.TRANSFER_OUT, TransactionStatus.PENDING));
+        legs.add(leg(TransactionType.TRANSFER_IN, TransactionStatus.PENDING));
+        when(accountService.transferBetweenAccounts(USER_ID, 1L, 2L, AMOUNT, "transfer:stuck"))
+                .thenReturn(Mono.error(new InsufficientFundsException("Insufficient funds")));
+
+        transferSagaService.resume("transfer:stuck", fromAccount, toAccount);
+
+        assertTrue(legs.stream().allMatch(leg -> leg.getStatus() == TransactionStatus.FAILED));
+    }
+
+    @Test
+    void resumeFailsTheSagaWhenItsReferenceRecordedADifferentTransfer() {
+        legs.add(leg(TransactionType.TRANSFER_OUT, TransactionStatus.PENDING));
+        legs.add(leg(TransactionType.TRANSFER_IN, TransactionStatus.PENDING));
+        when(accountService.transferBetweenAccounts(USER_ID, 1L, 2L, AMOUNT, "transfer:mismatched"))
+                .thenReturn(Mono.error(new ReferenceConflictException("Transfer reference was already used for a different transfer")));
+
+        transferSagaService.resume("transfer:mismatched", fromAccount, toAccount);
+
+        assertTrue(legs.stream().allMatch(leg -> leg.getStatus() == TransactionStatus.FAILED));
+    }
+
+    private static AccountDto account(Long id, Long userId, String accountNumber) {
+        AccountDto account = new AccountDto();
+        account.setId(id);
+        account.setUserId(userId);
+        account.setAccountNumber(accountNumber);
+        account.setFullName("Account " + id);
+        account.setEmail("user" + userId + "@example.com");
+        return account;
+    }
+
+    private static Transaction leg(TransactionType type, TransactionStatus status) {
+        Transaction leg = new Transaction();
+        boolean outgoing = type == TransactionType.TRANSFER_OUT;
+        leg.setUserId(outgoing ? USER_ID : 8L);
+        leg.setAccountId(outgoing ? 1L : 2L);
+        leg.setTargetAccountId(outgoing ? 2L : 1L);
+        leg.setAmount(AMOUNT);
+        leg.setType(type);
+        leg.setStatus(status);
+        return leg;
+    }
+}